@@ -0,0 +1,33 @@
+package ui;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmarks, which runs the benchmarks selected on the command line, all of them by default,
+ * with the GC profiler for the allocation rate, and writes the results to <code>lab1-benchmarks.json</code>.
+ * All other JMH options, such as <code>-p states=1000</code>, are accepted as well
+ * @author Vito Sabalic
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("lab1-benchmarks.json")
+				.build();
+
+		new Runner(options).run();
+	}
+
+}
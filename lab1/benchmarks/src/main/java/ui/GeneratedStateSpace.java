@@ -0,0 +1,116 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A state space generated once for every trial of a benchmark by the {@link StateSpaceGenerator}, written
+ * to temporary files and loaded into a graph. The sizes run from a thousand to a million states, and a single
+ * size can be chosen on the command line, for example <code>-p states=100000</code>. Ten million states are
+ * only generated when they are chosen explicitly, with <code>-p states=10000000</code>
+ * @author Vito Sabalic
+ *
+ */
+@State(Scope.Benchmark)
+public class GeneratedStateSpace {
+
+	@Param({ "random", "grid", "scalefree", "tree" })
+	public String shape;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int states;
+
+	@Param({ "42" })
+	public long seed;
+
+	private Path directory;
+	private Path stateSpacePath;
+	private Path heuristicPath;
+	private Graph graph;
+	private int starter;
+	private int[] goals;
+
+	/**
+	 * Generates the files and loads the graph
+	 * @throws IOException If a file cannot be written or read
+	 */
+	@Setup
+	public void generate() throws IOException {
+
+		directory = Files.createTempDirectory("lab1-benchmark-");
+		stateSpacePath = directory.resolve("state-space.txt");
+		heuristicPath = directory.resolve("heuristic.txt");
+
+		new StateSpaceGenerator(shape, states, seed).generate(stateSpacePath, heuristicPath);
+
+		StateSpaceLoader loader = load();
+		graph = loader.build();
+		starter = loader.getStarter();
+		goals = loader.getGoals();
+	}
+
+	/**
+	 * Deletes the generated files
+	 * @throws IOException If a file cannot be deleted
+	 */
+	@TearDown
+	public void delete() throws IOException {
+		Files.deleteIfExists(stateSpacePath);
+		Files.deleteIfExists(heuristicPath);
+		Files.deleteIfExists(directory);
+	}
+
+	/**
+	 * Loads the state space and the heuristic files
+	 * @return Returns the loader, from which the graph can be built
+	 * @throws IOException If a file cannot be read
+	 */
+	public StateSpaceLoader load() throws IOException {
+
+		StateSpaceLoader loader = new StateSpaceLoader();
+		loader.loadStateSpace(stateSpacePath.toString());
+		loader.loadHeuristic(heuristicPath.toString());
+
+		return loader;
+	}
+
+	/**
+	 * A getter for the loaded graph
+	 * @return Returns the graph
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * A getter for the starter state
+	 * @return Returns the starter state id
+	 */
+	public int getStarter() {
+		return starter;
+	}
+
+	/**
+	 * A getter for the destination states
+	 * @return Returns the destination state ids
+	 */
+	public int[] getGoals() {
+		return goals;
+	}
+
+	/**
+	 * A getter for the path of the heuristic file, used in the output of the heuristic checks
+	 * @return Returns the path
+	 */
+	public String getHeuristicPath() {
+		return heuristicPath.toString();
+	}
+
+}
@@ -0,0 +1,74 @@
+package ui;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed to check whether the heuristic is optimistic or consistent, including the formatting
+ * of the conditions, whose output is discarded
+ * @author Vito Sabalic
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicCheckBenchmark {
+
+	@Param({ "optimistic", "consistent" })
+	public String check;
+
+	@Param({ "1" })
+	public int threads;
+
+	private PrintStream output;
+
+	/**
+	 * Discards the standard output during the iteration
+	 */
+	@Setup(Level.Iteration)
+	public void discardOutput() {
+		output = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	/**
+	 * Restores the standard output after the iteration
+	 */
+	@TearDown(Level.Iteration)
+	public void restoreOutput() {
+		System.setOut(output);
+	}
+
+	/**
+	 * Checks the heuristic of every state
+	 * @param space The generated state space
+	 */
+	@Benchmark
+	public void checkHeuristic(GeneratedStateSpace space) {
+
+		if (check.equals("optimistic")) {
+			new OptimisticTest(space.getGraph(), space.getGoals(), space.getHeuristicPath(), threads).start();
+		} else {
+			new ConsistencyTest(space.getGraph(), space.getHeuristicPath(), threads, false).start();
+		}
+	}
+
+}
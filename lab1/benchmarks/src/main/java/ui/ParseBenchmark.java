@@ -0,0 +1,37 @@
+package ui;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed to load the state space and the heuristic files and build the graph
+ * @author Vito Sabalic
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+	/**
+	 * Loads the files and builds the graph
+	 * @param space The generated state space
+	 * @return Returns the graph
+	 * @throws IOException If a file cannot be read
+	 */
+	@Benchmark
+	public Graph parse(GeneratedStateSpace space) throws IOException {
+		return space.load().build();
+	}
+
+}
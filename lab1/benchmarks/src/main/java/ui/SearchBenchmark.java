@@ -0,0 +1,108 @@
+package ui;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the BFS, UCS and A* search algorithms, in searches and in expanded states per second.
+ * The context of the search is reused between searches, as in the query server
+ * @author Vito Sabalic
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+	/**
+	 * The search algorithm with its reused context
+	 * @author Vito Sabalic
+	 *
+	 */
+	@State(Scope.Thread)
+	public static class Query {
+
+		@Param({ "bfs", "ucs", "astar" })
+		public String algorithm;
+
+		private Search search;
+		private SearchContext context;
+
+		/**
+		 * Creates the search algorithm and its context
+		 * @param space The generated state space
+		 */
+		@Setup
+		public void create(GeneratedStateSpace space) {
+
+			Graph graph = space.getGraph();
+			context = new SearchContext(graph);
+
+			switch (algorithm) {
+			case "bfs":
+				search = new BFS(graph, space.getGoals(), space.getStarter());
+				break;
+			case "ucs":
+				search = new UCS(graph, space.getGoals(), space.getStarter());
+				break;
+			default:
+				search = new AStar(graph, space.getGoals(), space.getStarter(), space.getHeuristicPath());
+				break;
+			}
+		}
+
+	}
+
+	/**
+	 * The counter of the expanded states, reported by JMH as a rate next to the searches
+	 * @author Vito Sabalic
+	 *
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Expansions {
+
+		public long expansions;
+
+		/**
+		 * Resets the counter before every iteration
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			expansions = 0;
+		}
+
+	}
+
+	/**
+	 * Searches for the path from the starter state to the destination states
+	 * @param space The generated state space
+	 * @param query The search algorithm
+	 * @param counter The counter of the expanded states
+	 * @return Returns the result of the search
+	 */
+	@Benchmark
+	public SearchResult search(GeneratedStateSpace space, Query query, Expansions counter) {
+
+		SearchResult result = query.search.search(query.context, space.getStarter(), space.getGoals());
+		counter.expansions += result.getVisitedCount();
+
+		return result;
+	}
+
+}
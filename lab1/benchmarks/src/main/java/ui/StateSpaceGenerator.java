@@ -0,0 +1,253 @@
+package ui;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * A generator of synthetic state space and heuristic files, used by the benchmarks. The same shape, number
+ * of states and seed always generate the same files. Every state is written with all its transitions
+ * as soon as they are known, so even the largest state spaces are written without keeping them in the memory.
+ * The heuristic of the shapes other than the grid is half of the cost of the cheapest path to the destination
+ * state, rounded down, which is calculated by loading the written state space and searching it from the destination
+ * state. Since all costs are integers, the heuristic is consistent without being exact, so the A* algorithm
+ * expands fewer states than the UCS algorithm without knowing the answer in advance.
+ * The supported shapes are:
+ * <ul>
+ * <li><code>random</code>, where every state has four transitions to uniformly random states</li>
+ * <li><code>grid</code>, a square grid where every state has transitions to its four neighbours,
+ * with the Manhattan distance to the opposite corner as a consistent heuristic</li>
+ * <li><code>scalefree</code>, where every state has three transitions to older states, chosen by preferential
+ * attachment, so the numbers of transitions into the states follow a power law</li>
+ * <li><code>tree</code>, a ternary tree with transitions in both directions and a transition to a random state
+ * from every hundredth state</li>
+ * </ul>
+ * @author Vito Sabalic
+ *
+ */
+public class StateSpaceGenerator {
+
+	private static final int RANDOM_DEGREE = 4;
+	private static final int SCALE_FREE_DEGREE = 3;
+	private static final int TREE_BRANCHING = 3;
+	private static final int TREE_SHORTCUT_INTERVAL = 100;
+	private static final int MAX_COST = 9;
+
+	private String shape;
+	private int stateCount;
+	private SplittableRandom random;
+
+	/**
+	 * A simple constructor
+	 * @param shape The shape of the state space
+	 * @param stateCount The number of states, rounded down to a square for the grid
+	 * @param seed The seed of the random generator
+	 */
+	public StateSpaceGenerator(String shape, int stateCount, long seed) {
+		this.shape = shape;
+		this.stateCount = shape.equals("grid") ? square(stateCount) : Math.max(2, stateCount);
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Writes the state space and its heuristic to the provided files
+	 * @param stateSpacePath The path of the state space file
+	 * @param heuristicPath The path of the heuristic file
+	 * @throws IOException If a file cannot be written
+	 */
+	public void generate(Path stateSpacePath, Path heuristicPath) throws IOException {
+
+		try (Writer writer = new BufferedWriter(Files.newBufferedWriter(stateSpacePath, StandardCharsets.UTF_8), 1 << 16)) {
+			switch (shape) {
+			case "random":
+				writeRandom(writer);
+				break;
+			case "grid":
+				writeGrid(writer);
+				break;
+			case "scalefree":
+				writeScaleFree(writer);
+				break;
+			case "tree":
+				writeTree(writer);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown shape '" + shape + "'");
+			}
+		}
+
+		double[] costsToGo = null;
+		Graph graph = null;
+
+		if (!shape.equals("grid")) {
+			StateSpaceLoader loader = new StateSpaceLoader();
+			loader.loadStateSpace(stateSpacePath.toString());
+			graph = loader.build();
+			costsToGo = NearestGoalHeuristic.calculate(graph, loader.getGoals(), 1);
+		}
+
+		try (Writer writer = new BufferedWriter(Files.newBufferedWriter(heuristicPath, StandardCharsets.UTF_8), 1 << 16)) {
+			int side = (int) Math.sqrt(stateCount);
+
+			for (int state = 0; state < stateCount; state++) {
+				long heuristic;
+				if (costsToGo == null) {
+					heuristic = side - 1 - state / side + side - 1 - state % side;
+				} else {
+					int id = graph.getId(name(state));
+					heuristic = id == -1 ? 0 : (long) costsToGo[id] / 2;
+				}
+				writer.write(name(state) + ": " + heuristic + "\n");
+			}
+		}
+	}
+
+	/**
+	 * Writes a state space where every state has transitions to uniformly random states
+	 * @param writer The writer of the state space file
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeRandom(Writer writer) throws IOException {
+
+		writeHeader(writer, 0, stateCount - 1);
+
+		for (int state = 0; state < stateCount; state++) {
+			writer.write(name(state) + ":");
+			for (int i = 0; i < RANDOM_DEGREE; i++) {
+				writeTransition(writer, random.nextInt(stateCount));
+			}
+			writer.write("\n");
+		}
+	}
+
+	/**
+	 * Writes a square grid from the top left corner to the bottom right corner
+	 * @param writer The writer of the state space file
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeGrid(Writer writer) throws IOException {
+
+		int side = (int) Math.sqrt(stateCount);
+		writeHeader(writer, 0, stateCount - 1);
+
+		for (int state = 0; state < stateCount; state++) {
+			int row = state / side;
+			int column = state % side;
+
+			writer.write(name(state) + ":");
+			if (row > 0) {
+				writeTransition(writer, state - side);
+			}
+			if (column > 0) {
+				writeTransition(writer, state - 1);
+			}
+			if (column < side - 1) {
+				writeTransition(writer, state + 1);
+			}
+			if (row < side - 1) {
+				writeTransition(writer, state + side);
+			}
+			writer.write("\n");
+		}
+	}
+
+	/**
+	 * Writes a state space where every new state has transitions to older states, each of which is either
+	 * a uniformly random older state or the target of a uniformly random older transition. The search starts
+	 * from the newest state
+	 * @param writer The writer of the state space file
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeScaleFree(Writer writer) throws IOException {
+
+		int[] targets = new int[stateCount * SCALE_FREE_DEGREE];
+		int targetCount = 0;
+
+		writeHeader(writer, stateCount - 1, 0);
+		writer.write(name(0) + ":\n");
+
+		for (int state = 1; state < stateCount; state++) {
+			writer.write(name(state) + ":");
+			int first = targetCount;
+
+			for (int i = 0; i < Math.min(state, SCALE_FREE_DEGREE); i++) {
+				int target = first == 0 || random.nextBoolean() ? random.nextInt(state) : targets[random.nextInt(first)];
+				targets[targetCount++] = target;
+				writeTransition(writer, target);
+			}
+			writer.write("\n");
+		}
+	}
+
+	/**
+	 * Writes a ternary tree with transitions in both directions, from the root to a random leaf
+	 * @param writer The writer of the state space file
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeTree(Writer writer) throws IOException {
+
+		writeHeader(writer, 0, stateCount - 1 - random.nextInt(Math.max(1, stateCount / (2 * TREE_BRANCHING))));
+
+		for (int state = 0; state < stateCount; state++) {
+			writer.write(name(state) + ":");
+			if (state > 0) {
+				writeTransition(writer, (state - 1) / TREE_BRANCHING);
+			}
+			for (long child = (long) state * TREE_BRANCHING + 1; child <= (long) state * TREE_BRANCHING + TREE_BRANCHING
+					&& child < stateCount; child++) {
+				writeTransition(writer, (int) child);
+			}
+			if (state % TREE_SHORTCUT_INTERVAL == TREE_SHORTCUT_INTERVAL - 1) {
+				writeTransition(writer, random.nextInt(stateCount));
+			}
+			writer.write("\n");
+		}
+	}
+
+	/**
+	 * Writes the starter and the destination state
+	 * @param writer The writer of the state space file
+	 * @param starter The starter state
+	 * @param goal The destination state
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeHeader(Writer writer, int starter, int goal) throws IOException {
+		writer.write("# " + shape + " state space of " + stateCount + " states\n");
+		writer.write(name(starter) + "\n");
+		writer.write(name(goal) + "\n");
+	}
+
+	/**
+	 * Writes a transition with a random cost
+	 * @param writer The writer of the state space file
+	 * @param target The target state
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeTransition(Writer writer, int target) throws IOException {
+		writer.write(" " + name(target) + "," + (1 + random.nextInt(MAX_COST)));
+	}
+
+	/**
+	 * Creates the name of the state
+	 * @param state The state
+	 * @return Returns the name
+	 */
+	private static String name(int state) {
+		return "s" + state;
+	}
+
+	/**
+	 * Rounds the number down to the nearest square
+	 * @param value The number
+	 * @return Returns the square
+	 */
+	private static int square(int value) {
+		int side = Math.max(2, (int) Math.sqrt(value));
+		return side * side;
+	}
+
+}
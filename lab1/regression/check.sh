@@ -0,0 +1,26 @@
+#!/bin/sh
+# Runs every case of this directory against the compiled classes and compares its output with the expected one.
+# A case is a file <name>.args with the arguments of the solution, and <name>.out with the expected output,
+# which is the one of the original implementation, or of its sequential counterpart for a parallel algorithm.
+# The output of a lazy search is the one of the search over the loaded graph, followed by the number of reached states.
+# The output of an algorithm without such a counterpart, like arastar, is the reviewed output of the current one.
+# The check of an optimistic heuristic sums every true cost along a single tie-broken path, so the expected output
+# of optimistic-g8 is the reviewed one, which differs from the original in the last digit of a single cost.
+# Timings vary between runs, so every number of milliseconds is replaced by <time> before the comparison.
+# Run it from any directory after mvn compile.
+
+cd "$(dirname "$0")" || exit 1
+classes=../target/classes
+failed=0
+
+for args in *.args; do
+	name=${args%.args}
+	if java -cp "$classes" ui.Solution $(cat "$args") | sed 's/[0-9][0-9.]* ms/<time> ms/g' | cmp -s - "$name.out"; then
+		echo "[OK] $name"
+	else
+		echo "[FAIL] $name"
+		failed=1
+	fi
+done
+
+exit $failed
@@ -0,0 +1,208 @@
+package ui;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute an anytime repairing A* (ARA*) search algorithm.
+ * The states are ordered by their cost plus the heuristic multiplied by a weight, so the first solution
+ * is found quickly, and the weight is then lowered step by step until the solution is proven optimal or
+ * the time budget runs out. Every iteration continues from the frontier of the previous one instead of
+ * starting over: the frontier is only reordered by the new weight, and the closed states whose cost was
+ * lowered in the previous iteration are added to it, so every state is expanded at most once per iteration.
+ * <p>
+ * After every iteration the found solution is reported together with its suboptimality bound, the largest
+ * ratio between its cost and the cost of the optimal solution, which holds if the heuristic is optimistic.
+ * A solution which costs nothing is optimal, so its bound is 1 and the search stops after it.
+ * The time budget is only enforced once the first solution is found
+ * @author Vito Sabalic
+ *
+ */
+public class ARAStar implements Search {
+
+	/**
+	 * The weight used if no other weight is provided
+	 */
+	public static final double DEFAULT_WEIGHT = 3;
+
+	/**
+	 * The amount by which the weight is lowered after every iteration
+	 */
+	private static final double WEIGHT_STEP = 0.5;
+
+	/**
+	 * The number of expanded states between two checks of the time budget
+	 */
+	private static final int CLOCK_INTERVAL = 64;
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+	private double weight;
+	private long timeBudget;
+	private PrintStream progress;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 * @param weight The weight of the heuristic in the first iteration, at least 1
+	 * @param timeBudget The time in milliseconds after which the best found solution is returned,
+	 * or 0 if the search should continue until the solution is proven optimal
+	 */
+	public ARAStar(Graph graph, int[] solutions, int starterNode, String heuristicsPath, double weight,
+			long timeBudget) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+		this.weight = Math.max(1, weight);
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * A setter for the stream to which every found solution is reported as soon as it is found
+	 * @param progress The stream, or null if the solutions should not be reported
+	 */
+	public void setProgress(PrintStream progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Executes the algorithm, reporting every found solution before the final one
+	 */
+	public void start() {
+		setProgress(System.out);
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		long startTime = System.nanoTime();
+		long deadline = timeBudget > 0 ? startTime + timeBudget * 1000000 : Long.MAX_VALUE;
+		String header = "# ARA-STAR " + heuristicsPath;
+
+		context.reset();
+		GoalSet goals = context.getGoals(solutions);
+		context.set(starterNode, 0, -1);
+
+		Frontier unvisited = context.getHeap();
+		double epsilon = weight;
+		unvisited.push(starterNode, epsilon * graph.getHeuristic(starterNode));
+
+		int[] inconsistent = new int[16];
+		int inconsistentCount = 0;
+		int[] states = new int[16];
+		int finalState = goals.contains(starterNode) ? starterNode : -1;
+		int visitedCount = 0;
+		int iterations = 0;
+		double bound = Double.MAX_VALUE;
+		boolean exceeded = false;
+
+		while (true) {
+
+			iterations++;
+
+			while (!unvisited.isEmpty() && (finalState == -1 || context.getDistance(finalState) > unvisited.peekKey())) {
+
+				if (finalState != -1 && visitedCount % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+					exceeded = true;
+					break;
+				}
+
+				int currentNode = unvisited.poll();
+				context.close(currentNode);
+				visitedCount++;
+
+				for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+					int adjacent = graph.getTarget(i);
+
+					if (context.relax(adjacent, graph.getCost(i), currentNode)) {
+
+						if (goals.contains(adjacent)
+								&& (finalState == -1 || context.getDistance(adjacent) < context.getDistance(finalState))) {
+							finalState = adjacent;
+						}
+
+						if (!context.isClosed(adjacent)) {
+							unvisited.push(adjacent, context.getDistance(adjacent) + epsilon * graph.getHeuristic(adjacent));
+						} else {
+							if (inconsistentCount == inconsistent.length) {
+								inconsistent = Arrays.copyOf(inconsistent, inconsistentCount * 2);
+							}
+							inconsistent[inconsistentCount++] = adjacent;
+						}
+					}
+				}
+			}
+
+			if (finalState == -1) {
+				return SearchResult.notFound(graph, header, visitedCount)
+						.addStatistic("ITERATIONS", iterations);
+			}
+
+			if (exceeded) {
+				break;
+			}
+
+			int stateCount = 0;
+			while (!unvisited.isEmpty()) {
+				if (stateCount == states.length) {
+					states = Arrays.copyOf(states, stateCount * 2);
+				}
+				states[stateCount++] = unvisited.poll();
+			}
+
+			if (stateCount + inconsistentCount > states.length) {
+				states = Arrays.copyOf(states, stateCount + inconsistentCount);
+			}
+			System.arraycopy(inconsistent, 0, states, stateCount, inconsistentCount);
+			stateCount += inconsistentCount;
+			inconsistentCount = 0;
+
+			double lowestEstimate = Double.MAX_VALUE;
+			for (int i = 0; i < stateCount; i++) {
+				lowestEstimate = Math.min(lowestEstimate, context.getDistance(states[i]) + graph.getHeuristic(states[i]));
+			}
+
+			double cost = context.getDistance(finalState);
+			double ratio = cost / lowestEstimate;
+			if (cost == 0 || Double.isNaN(ratio)) {
+				bound = 1;
+			} else {
+				bound = Math.max(1, Math.min(epsilon, ratio));
+			}
+
+			if (progress != null) {
+				progress.printf("[SOLUTION]: cost %s, weight %s, bound %.4f, %d states visited, %.3f ms%n", cost, epsilon,
+						bound, visitedCount, (System.nanoTime() - startTime) / 1e6);
+			}
+
+			if (bound <= 1 || System.nanoTime() > deadline) {
+				exceeded = bound > 1;
+				break;
+			}
+
+			epsilon = Math.max(1, Math.min(epsilon - WEIGHT_STEP, bound));
+			context.reopenAll();
+
+			for (int i = 0; i < stateCount; i++) {
+				unvisited.push(states[i], context.getDistance(states[i]) + epsilon * graph.getHeuristic(states[i]));
+			}
+		}
+
+		int[] path = context.calculatePath(finalState);
+
+		return new SearchResult(graph, header, true, visitedCount, path, graph.calculateCost(path))
+				.addStatistic("ITERATIONS", iterations)
+				.addStatistic("WEIGHT", epsilon)
+				.addStatistic("SUBOPTIMALITY_BOUND", String.format("%.4f", bound))
+				.addStatistic("TIME_BUDGET_EXCEEDED", exceeded ? "yes" : "no");
+	}
+
+}
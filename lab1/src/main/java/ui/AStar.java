@@ -1,35 +1,27 @@
 package ui;
 
-import java.util.ArrayList;
-
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-
 /**
  * An implementation of a class which can execute an A* search algorithm
  * @author Vito Sabalic
  *
  */
-public class AStar {
+public class AStar implements Search {
 
-	private List<Node> solutions;
-	private Node starterNode;
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
 	private String heuristicsPath;
 
 	/**
 	 * A simple constructor
+	 * @param graph
 	 * @param solutions
 	 * @param starterNode
 	 * @param heruisticsPath
 	 */
-	public AStar(List<Node> solutions, Node starterNode, String heruisticsPath) {
+	public AStar(Graph graph, int[] solutions, int starterNode, String heruisticsPath) {
 
+		this.graph = graph;
 		this.solutions = solutions;
 		this.starterNode = starterNode;
 		this.heuristicsPath = heruisticsPath;
@@ -39,120 +31,73 @@ public class AStar {
 	 * Executes the algorithm
 	 */
 	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
 
-		starterNode.setValue(0);
-
-		Set<Node> visited = new HashSet<>();
-		Queue<Node> unvisited = new PriorityQueue<>(new Comparator<Node>() {
-			@Override
-			public int compare(Node o1, Node o2) {
-
-				int i = Double.compare(o1.getValue() + o1.getHeuristic(), o2.getValue() + o2.getHeuristic());
-				if (i == 0) {
-					i = o1.getName().compareTo(o2.getName());
-				}
-
-				return i;
-			}
-		});
-
-		unvisited.add(starterNode);
-
-		while (!unvisited.isEmpty()) {
-
-			Node currentNode = unvisited.poll();
-
-			if (solutions.contains(currentNode)) {
-				visited.add(solutions.get(solutions.indexOf(currentNode)));
-				printSolution(true, currentNode, visited);
-				return;
-			}
-
-			for (Map.Entry<Node, Double> entry : currentNode.getAdjacentNodes().entrySet()) {
-				Node adjacent = entry.getKey();
-
-				if (!visited.contains(adjacent)) {
-					calculateMinimumDistance(adjacent, entry.getValue(), currentNode);
-					unvisited.add(adjacent);
-				}
-			}
-
-			visited.add(currentNode);
-		}
-
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+		return search(context, starterNode, solutions, graph::getHeuristic, context.getFrontier(true),
+				"# A-STAR " + heuristicsPath);
 	}
 
 	/**
-	 * Prints the solution found by the algorithm to the standard output
-	 * @param b true if a solution is found, false otherwise
-	 * @param currentNode The finishing node
-	 * @param visited All visited nodes
+	 * Searches for the path from the starter state to any of the destination states, guided by the provided heuristic
+	 * @param context The context of the query, which is reset before it is used
+	 * @param starterNode The starter state id
+	 * @param solutions The destination state ids
+	 * @param heuristic The heuristic
+	 * @param unvisited The frontier of the context which accepts the keys of the heuristic
+	 * @param header The header line of the output
+	 * @return Returns the result of the search
 	 */
-	private void printSolution(boolean b, Node currentNode, Set<Node> visited) {
-		System.out.println("# A-STAR " + heuristicsPath);
-		if (!b) {
-			System.out.println("[FOUND_SOLUTION]: no");
-			return;
-		}
-
-		System.out.println("[FOUND_SOLUTION]: yes");
-		System.out.println("[STATES_VISITED]: " + visited.size());
-
-		List<Node> path = calculatePath(currentNode);
-		System.out.println("[PATH_LENGTH]: " + path.size());
+	SearchResult search(SearchContext context, int starterNode, int[] solutions, Heuristic heuristic, Frontier unvisited,
+			String header) {
 
-		System.out.println("[TOTAL_COST]: " + (double) currentNode.getValue());
-		Collections.reverse(path);
-		String s = new String();
-		for (Node node : path) {
+		context.reset();
+		GoalSet goals = context.getGoals(solutions);
+		context.set(starterNode, 0, -1);
 
-			if (path.indexOf(node) == path.size() - 1) {
-				s += node.getName();
-				break;
-			}
+		unvisited.push(starterNode, heuristic.estimate(starterNode));
 
-			s += node.getName() + " => ";
+		SearchMetrics metrics = context.getMetrics();
+		if (metrics != null) {
+			metrics.pushed(false, unvisited.size());
 		}
 
-		System.out.println("[PATH]: " + s);
+		while (!unvisited.isEmpty()) {
 
-	}
+			int currentNode = unvisited.poll();
 
-	
-	/**
-	 * Calculates the path which was taken to arrive to the final node
-	 * @param finalNode The final node
-	 * @return Returns a list which represents a path of nodes
-	 */
-	private List<Node> calculatePath(Node finalNode) {
-		List<Node> path = new ArrayList<>();
+			if (metrics != null) {
+				metrics.polled();
+			}
 
-		path.add(finalNode);
+			if (goals.contains(currentNode)) {
+				return new SearchResult(graph, header, true, context.getClosedCount() + 1,
+						context.calculatePath(currentNode), context.getDistance(currentNode));
+			}
 
-		Node previousNode = finalNode.getVisitedFrom();
+			if (metrics != null) {
+				metrics.expanded(graph.getLastTransition(currentNode) - graph.getFirstTransition(currentNode));
+			}
 
-		while (previousNode != null) {
-			path.add(previousNode);
-			previousNode = previousNode.getVisitedFrom();
-		}
+			for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+				int adjacent = graph.getTarget(i);
 
-		return path;
-	}
+				if (!context.isClosed(adjacent) && context.relax(adjacent, graph.getCost(i), currentNode)) {
+					boolean duplicate = metrics != null && unvisited.contains(adjacent);
+					unvisited.push(adjacent, context.getDistance(adjacent) + heuristic.estimate(adjacent));
 
-	/**
-	 * Calculates whether the cost of the transition from the current node to the adjacent node 
-	 * is cheaper than the stored cost of the transition in the adjacent node
-	 * @param adjacent The adjacent node
-	 * @param value The cost of the transition
-	 * @param currentNode The current node
-	 */
-	private void calculateMinimumDistance(Node adjacent, double value, Node currentNode) {
+					if (metrics != null) {
+						metrics.pushed(duplicate, unvisited.size());
+					}
+				}
+			}
 
-		if (currentNode.getValue() + value < adjacent.getValue()) {
-			adjacent.setValue(currentNode.getValue() + value);
-			adjacent.setVisitedFrom(currentNode);
+			context.close(currentNode);
 		}
 
+		return SearchResult.notFound(graph, header, context.getClosedCount());
 	}
 
 }
@@ -1,32 +1,27 @@
 package ui;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Arrays;
 
 /**
  * An implementation of a class which can execute a BFS search algorithm
  * @author Vito Sabalic
  *
  */
-public class BFS {
+public class BFS implements Search {
 
-	private List<Node> solutions;
-	private Node starterNode;
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
 
 	/**
 	 * A simple constructor
+	 * @param graph
 	 * @param solutions
 	 * @param starterNode
 	 */
-	public BFS(List<Node> solutions, Node starterNode) {
+	public BFS(Graph graph, int[] solutions, int starterNode) {
 
+		this.graph = graph;
 		this.solutions = solutions;
 		this.starterNode = starterNode;
 
@@ -36,127 +31,101 @@ public class BFS {
 	 * Executes the algorithm
 	 */
 	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
 
-		Queue<Node> queue = new LinkedBlockingQueue<>();
-		Set<Node> visited = new HashSet<>();
-		Node currentNode;
-
-		queue.add(starterNode);
-
-		while (!queue.isEmpty()) {
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
 
-			currentNode = queue.poll();
+		context.reset();
+		GoalSet goals = context.getGoals(solutions);
 
-			if (visited.contains(currentNode)) {
-				continue;
-			}
+		int[] queue = context.getQueue();
+		int head = 0;
+		int tail = 0;
+		int[] neighbours = new int[16];
+		int currentNode;
 
-			if (solutions.contains(currentNode)) {
-				visited.add(solutions.get(solutions.indexOf(currentNode)));
-				printSolution(true, currentNode, visited);
-				return;
-			}
+		queue[tail++] = starterNode;
 
-			visited.add(currentNode);
-			List<Node> neighbours = new ArrayList<>(currentNode.getAdjacentNodes().keySet());
+		SearchMetrics metrics = context.getMetrics();
+		if (metrics != null) {
+			metrics.pushed(false, tail - head);
+		}
 
-			neighbours.removeAll(visited);
+		while (head < tail) {
 
-			Collections.sort(neighbours, new Comparator<Node>() {
-				@Override
-				public int compare(Node o1, Node o2) {
-					return o1.getName().compareTo(o2.getName());
-				}
-			});
+			currentNode = queue[head++];
 
-			for (Node n : neighbours) {
-				n.setVisitedFrom(currentNode);
+			if (metrics != null) {
+				metrics.polled();
 			}
-			queue.addAll(neighbours);
-
-		}
-
-		printSolution(false, null, visited);
-	}
-
-	/**
-	 * Prints the solution found by the algorithm to the standard output
-	 * @param b true if a solution is found, false otherwise
-	 * @param currentNode The finishing node
-	 * @param visited All visited nodes
-	 */
-	private void printSolution(boolean b, Node finalNode, Set<Node> visited) {
-		System.out.println("# BFS");
-		if (!b) {
-			System.out.println("[FOUND_SOLUTION]: no");
-			return;
-		}
 
-		System.out.println("[FOUND_SOLUTION]: yes");
-		System.out.println("[STATES_VISITED]: " + visited.size());
+			if (context.isClosed(currentNode)) {
+				continue;
+			}
 
-		List<Node> path = calculatePath(finalNode);
-		System.out.println("[PATH_LENGTH]: " + path.size());
+			if (goals.contains(currentNode)) {
+				int[] path = context.calculatePath(currentNode);
+				return new SearchResult(graph, "# BFS", true, context.getClosedCount() + 1, path,
+						graph.calculateCostBackwards(path));
+			}
 
-		System.out.println("[TOTAL_COST]: " + calculateCost(path));
-		Collections.reverse(path);
-		String s = new String();
-		for (Node node : path) {
+			context.close(currentNode);
 
-			if (path.indexOf(node) == path.size() - 1) {
-				s += node.getName();
-				break;
+			if (metrics != null) {
+				metrics.expanded(graph.getLastTransition(currentNode) - graph.getFirstTransition(currentNode));
 			}
 
-			s += node.getName() + " => ";
-		}
+			int count = 0;
+			for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+				int adjacent = graph.getTarget(i);
 
-		System.out.println("[PATH]: " + s);
+				if (!context.isClosed(adjacent)) {
+					if (count == neighbours.length) {
+						neighbours = Arrays.copyOf(neighbours, count * 2);
+					}
+					neighbours[count++] = adjacent;
+				}
+			}
 
-	}
+			sortByName(neighbours, count);
 
-	/**
-	 * Calculates the path which was taken to arrive to the final node
-	 * @param finalNode The final node
-	 * @return Returns a list which represents a path of nodes
-	 */
-	private List<Node> calculatePath(Node finalNode) {
-		List<Node> path = new ArrayList<>();
-
-		path.add(finalNode);
+			for (int i = 0; i < count; i++) {
+				boolean duplicate = metrics != null && context.getParent(neighbours[i]) != -1;
+				context.setParent(neighbours[i], currentNode);
+				queue[tail++] = neighbours[i];
 
-		Node previousNode = finalNode.getVisitedFrom();
+				if (metrics != null) {
+					metrics.pushed(duplicate, tail - head);
+				}
+			}
 
-		while (previousNode != null) {
-			path.add(previousNode);
-			previousNode = previousNode.getVisitedFrom();
 		}
 
-		return path;
+		return SearchResult.notFound(graph, "# BFS", context.getClosedCount());
 	}
 
 	/**
-	 * Calculates the total cost of the transitions 
-	 * @param path The transition path
-	 * @return Returns the total cost
+	 * Sorts the first <code>count</code> states of the provided array by their names, through their ranks.
+	 * The transitions of a loaded graph are already sorted, so this takes linear time
+	 * @param states The states
+	 * @param count The number of states to sort
 	 */
-	private double calculateCost(List<Node> path) {
+	private void sortByName(int[] states, int count) {
 
-		double cost = 0;
+		for (int i = 1; i < count; i++) {
+			int state = states[i];
+			int rank = graph.getRank(state);
+			int j = i - 1;
 
-		for (Node n : path) {
-			Node previousNode = n.getVisitedFrom();
-
-			if (previousNode == null) {
-				break;
+			while (j >= 0 && graph.getRank(states[j]) > rank) {
+				states[j + 1] = states[j];
+				j--;
 			}
 
-			Map<Node, Double> adjacent = previousNode.getAdjacentNodes();
-
-			cost += adjacent.get(n);
+			states[j + 1] = state;
 		}
-
-		return cost;
 	}
 
 }
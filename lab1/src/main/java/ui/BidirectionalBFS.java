@@ -0,0 +1,124 @@
+package ui;
+
+/**
+ * An implementation of a class which can execute a bidirectional BFS search algorithm.
+ * One search starts in the starter state, and the other one in all destination states at once over
+ * the reverse graph. The search with the smaller queue expands its whole next level, and the searches stop
+ * after the first level in which they meet, choosing the path with the fewest transitions through any
+ * of the meeting states
+ * @author Vito Sabalic
+ *
+ */
+public class BidirectionalBFS implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 */
+	public BidirectionalBFS(Graph graph, int[] solutions, int starterNode) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		SearchContext backward = context.getReverse();
+		Graph reverseGraph = backward.getGraph();
+
+		context.reset();
+		backward.reset();
+
+		int[] forwardQueue = context.getQueue();
+		int forwardHead = 0;
+		int forwardTail = 0;
+		int[] backwardQueue = backward.getQueue();
+		int backwardHead = 0;
+		int backwardTail = 0;
+
+		context.set(starterNode, 0, -1);
+		forwardQueue[forwardTail++] = starterNode;
+
+		for (int solution : solutions) {
+			if (backward.getDistance(solution) == Double.MAX_VALUE) {
+				backward.set(solution, 0, -1);
+				backwardQueue[backwardTail++] = solution;
+			}
+		}
+
+		int meetingNode = backward.getDistance(starterNode) == 0 ? starterNode : -1;
+		double best = meetingNode == -1 ? Double.MAX_VALUE : 0;
+
+		while (meetingNode == -1 && forwardHead < forwardTail && backwardHead < backwardTail) {
+
+			boolean forward = forwardTail - forwardHead <= backwardTail - backwardHead;
+			SearchContext current = forward ? context : backward;
+			SearchContext other = forward ? backward : context;
+			Graph currentGraph = forward ? graph : reverseGraph;
+			int[] queue = forward ? forwardQueue : backwardQueue;
+			int head = forward ? forwardHead : backwardHead;
+			int tail = forward ? forwardTail : backwardTail;
+			int levelEnd = tail;
+
+			while (head < levelEnd) {
+				int currentNode = queue[head++];
+				current.close(currentNode);
+
+				for (int i = currentGraph.getFirstTransition(currentNode); i < currentGraph.getLastTransition(currentNode); i++) {
+					int adjacent = currentGraph.getTarget(i);
+
+					if (current.getDistance(adjacent) != Double.MAX_VALUE) {
+						continue;
+					}
+
+					current.set(adjacent, current.getDistance(currentNode) + 1, currentNode);
+					queue[tail++] = adjacent;
+
+					double otherDistance = other.getDistance(adjacent);
+					if (otherDistance != Double.MAX_VALUE && current.getDistance(adjacent) + otherDistance < best) {
+						best = current.getDistance(adjacent) + otherDistance;
+						meetingNode = adjacent;
+					}
+				}
+			}
+
+			if (forward) {
+				forwardHead = head;
+				forwardTail = tail;
+			} else {
+				backwardHead = head;
+				backwardTail = tail;
+			}
+		}
+
+		int visited = context.getClosedCount() + backward.getClosedCount();
+
+		if (meetingNode == -1) {
+			return SearchResult.notFound(graph, "# BIBFS", visited)
+					.addStatistic("STATES_VISITED_FORWARD", context.getClosedCount())
+					.addStatistic("STATES_VISITED_BACKWARD", backward.getClosedCount());
+		}
+
+		int[] path = context.calculatePath(meetingNode, backward);
+		return new SearchResult(graph, "# BIBFS", true, visited, path, graph.calculateCost(path))
+				.addStatistic("STATES_VISITED_FORWARD", context.getClosedCount())
+				.addStatistic("STATES_VISITED_BACKWARD", backward.getClosedCount());
+	}
+
+}
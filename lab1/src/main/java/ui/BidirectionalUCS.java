@@ -0,0 +1,112 @@
+package ui;
+
+/**
+ * An implementation of a class which can execute a bidirectional UCS search algorithm.
+ * One search starts in the starter state, and the other one in all destination states at once over
+ * the reverse graph, and the search with the smaller frontier expands the next state. Whenever a state is
+ * reached by both searches, the cost of the path through it is a candidate for the cheapest path. The searches
+ * stop when the sum of the smallest keys of both frontiers is not smaller than the cheapest candidate,
+ * because no path which is not found yet can be cheaper
+ * @author Vito Sabalic
+ *
+ */
+public class BidirectionalUCS implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 */
+	public BidirectionalUCS(Graph graph, int[] solutions, int starterNode) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		SearchContext backward = context.getReverse();
+		Graph reverseGraph = backward.getGraph();
+
+		context.reset();
+		backward.reset();
+
+		Frontier forwardFrontier = context.getFrontier(false);
+		Frontier backwardFrontier = backward.getFrontier(false);
+
+		context.set(starterNode, 0, -1);
+		forwardFrontier.push(starterNode, 0);
+
+		for (int solution : solutions) {
+			if (backward.getDistance(solution) == Double.MAX_VALUE) {
+				backward.set(solution, 0, -1);
+				backwardFrontier.push(solution, 0);
+			}
+		}
+
+		int meetingNode = backward.getDistance(starterNode) == 0 ? starterNode : -1;
+		double best = meetingNode == -1 ? Double.MAX_VALUE : 0;
+
+		while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+
+			if (forwardFrontier.peekKey() + backwardFrontier.peekKey() >= best) {
+				break;
+			}
+
+			boolean forward = forwardFrontier.size() <= backwardFrontier.size();
+			SearchContext current = forward ? context : backward;
+			SearchContext other = forward ? backward : context;
+			Graph currentGraph = forward ? graph : reverseGraph;
+			Frontier frontier = forward ? forwardFrontier : backwardFrontier;
+
+			int currentNode = frontier.poll();
+
+			for (int i = currentGraph.getFirstTransition(currentNode); i < currentGraph.getLastTransition(currentNode); i++) {
+				int adjacent = currentGraph.getTarget(i);
+
+				if (current.isClosed(adjacent) || !current.relax(adjacent, currentGraph.getCost(i), currentNode)) {
+					continue;
+				}
+
+				frontier.push(adjacent, current.getDistance(adjacent));
+
+				double otherDistance = other.getDistance(adjacent);
+				if (otherDistance != Double.MAX_VALUE && current.getDistance(adjacent) + otherDistance < best) {
+					best = current.getDistance(adjacent) + otherDistance;
+					meetingNode = adjacent;
+				}
+			}
+
+			current.close(currentNode);
+		}
+
+		int visited = context.getClosedCount() + backward.getClosedCount();
+
+		if (meetingNode == -1) {
+			return SearchResult.notFound(graph, "# BIUCS", visited)
+					.addStatistic("STATES_VISITED_FORWARD", context.getClosedCount())
+					.addStatistic("STATES_VISITED_BACKWARD", backward.getClosedCount());
+		}
+
+		int[] path = context.calculatePath(meetingNode, backward);
+		return new SearchResult(graph, "# BIUCS", true, visited, path, graph.calculateCost(path))
+				.addStatistic("STATES_VISITED_FORWARD", context.getClosedCount())
+				.addStatistic("STATES_VISITED_BACKWARD", backward.getClosedCount());
+	}
+
+}
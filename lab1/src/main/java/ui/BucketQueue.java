@@ -0,0 +1,310 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * A bucket queue (Dial's algorithm) of state ids, usable only when all keys are non-negative integers.
+ * Every key has its own bucket in a circular array of buckets, so pushing a state and removing the state
+ * with the smallest key takes amortised constant time. The bucket which is currently being emptied is sorted
+ * alphabetically by the state names, so states with equal keys are removed in the same order as from
+ * a {@link StateHeap}
+ * @author Vito Sabalic
+ *
+ */
+public class BucketQueue implements Frontier {
+
+	private Graph graph;
+	private long[] keys;
+	private boolean[] contained;
+	private int size;
+	private int[][] buckets;
+	private int[] bucketSizes;
+	private int mask;
+	private long minKey;
+	private long maxKey;
+	private boolean sorted;
+	private int cursor;
+	private int[] buffer;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph whose states are stored in the queue
+	 */
+	public BucketQueue(Graph graph) {
+		this.graph = graph;
+		this.keys = new long[graph.getStateCount()];
+		this.contained = new boolean[graph.getStateCount()];
+		this.size = 0;
+		this.buckets = new int[16][];
+		this.bucketSizes = new int[16];
+		this.mask = 15;
+		this.sorted = false;
+		this.cursor = 0;
+		this.buffer = new int[16];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(int state) {
+		return contained[state];
+	}
+
+	@Override
+	public void push(int state, double key) {
+
+		long k = (long) key;
+
+		if (contained[state] && k >= keys[state]) {
+			return;
+		}
+
+		if (size == 0) {
+			discardCurrentBucket();
+			minKey = k;
+			maxKey = k;
+		} else if (k < minKey) {
+			discardCurrentBucket();
+			minKey = k;
+		}
+
+		maxKey = Math.max(maxKey, k);
+		if (maxKey - minKey > mask) {
+			grow(maxKey - minKey + 1);
+		}
+
+		keys[state] = k;
+		if (!contained[state]) {
+			contained[state] = true;
+			size++;
+		}
+
+		int bucket = (int) (k & mask);
+		if (k == minKey && sorted) {
+			insertSorted(bucket, state);
+		} else {
+			append(bucket, state);
+		}
+	}
+
+	@Override
+	public int poll() {
+
+		while (true) {
+			int bucket = (int) (minKey & mask);
+
+			if (!sorted) {
+				sortByName(buckets[bucket], bucketSizes[bucket]);
+				sorted = true;
+				cursor = 0;
+			}
+
+			while (cursor < bucketSizes[bucket]) {
+				int state = buckets[bucket][cursor++];
+
+				if (contained[state] && keys[state] == minKey) {
+					contained[state] = false;
+					size--;
+					return state;
+				}
+			}
+
+			bucketSizes[bucket] = 0;
+			sorted = false;
+			minKey++;
+		}
+	}
+
+	@Override
+	public double peekKey() {
+
+		while (true) {
+			int bucket = (int) (minKey & mask);
+
+			if (!sorted) {
+				sortByName(buckets[bucket], bucketSizes[bucket]);
+				sorted = true;
+				cursor = 0;
+			}
+
+			for (; cursor < bucketSizes[bucket]; cursor++) {
+				int state = buckets[bucket][cursor];
+
+				if (contained[state] && keys[state] == minKey) {
+					return minKey;
+				}
+			}
+
+			bucketSizes[bucket] = 0;
+			sorted = false;
+			minKey++;
+		}
+	}
+
+	@Override
+	public void clear() {
+
+		for (int i = 0; i < bucketSizes.length; i++) {
+			for (int j = 0; j < bucketSizes[i]; j++) {
+				contained[buckets[i][j]] = false;
+			}
+			bucketSizes[i] = 0;
+		}
+
+		size = 0;
+		sorted = false;
+		cursor = 0;
+	}
+
+	/**
+	 * Removes the already polled entries of the bucket which is currently being emptied,
+	 * so that the bucket can be used as an ordinary unsorted bucket again
+	 */
+	private void discardCurrentBucket() {
+
+		if (!sorted) {
+			return;
+		}
+
+		int bucket = (int) (minKey & mask);
+		int remaining = bucketSizes[bucket] - cursor;
+		System.arraycopy(buckets[bucket], cursor, buckets[bucket], 0, remaining);
+		bucketSizes[bucket] = remaining;
+		sorted = false;
+		cursor = 0;
+	}
+
+	/**
+	 * Appends the state to the end of the bucket
+	 * @param bucket The bucket index
+	 * @param state The state id
+	 */
+	private void append(int bucket, int state) {
+
+		if (buckets[bucket] == null) {
+			buckets[bucket] = new int[4];
+		} else if (bucketSizes[bucket] == buckets[bucket].length) {
+			buckets[bucket] = Arrays.copyOf(buckets[bucket], bucketSizes[bucket] * 2);
+		}
+
+		buckets[bucket][bucketSizes[bucket]++] = state;
+	}
+
+	/**
+	 * Inserts the state into the not yet polled part of the sorted bucket, keeping it sorted
+	 * @param bucket The bucket index
+	 * @param state The state id
+	 */
+	private void insertSorted(int bucket, int state) {
+
+		append(bucket, state);
+
+		int[] states = buckets[bucket];
+		int rank = graph.getRank(state);
+		int i = bucketSizes[bucket] - 1;
+
+		while (i > cursor && graph.getRank(states[i - 1]) > rank) {
+			states[i] = states[i - 1];
+			i--;
+		}
+
+		states[i] = state;
+	}
+
+	/**
+	 * Increases the number of buckets so that the provided range of keys fits into the circular array
+	 * @param span The range of keys
+	 */
+	private void grow(long span) {
+
+		int capacity = buckets.length;
+		while (capacity < span) {
+			capacity *= 2;
+		}
+
+		int[][] oldBuckets = buckets;
+		int[] oldSizes = bucketSizes;
+		int oldMask = mask;
+		int current = (int) (minKey & oldMask);
+		int oldCursor = sorted ? cursor : 0;
+
+		buckets = new int[capacity][];
+		bucketSizes = new int[capacity];
+		mask = capacity - 1;
+		sorted = false;
+		cursor = 0;
+
+		for (int i = 0; i < oldBuckets.length; i++) {
+			for (int j = i == current ? oldCursor : 0; j < oldSizes[i]; j++) {
+				int state = oldBuckets[i][j];
+
+				if (contained[state] && (keys[state] & oldMask) == i) {
+					append((int) (keys[state] & mask), state);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sorts the first <code>count</code> states of the provided array by their names, through their ranks
+	 * @param states The states
+	 * @param count The number of states to sort
+	 */
+	private void sortByName(int[] states, int count) {
+
+		if (count < 2) {
+			return;
+		}
+
+		if (buffer.length < count) {
+			buffer = new int[Math.max(count, buffer.length * 2)];
+		}
+
+		for (int width = 1; width < count; width *= 2) {
+			for (int from = 0; from < count - width; from += 2 * width) {
+				merge(states, from, from + width, Math.min(from + 2 * width, count));
+			}
+		}
+	}
+
+	/**
+	 * Merges two neighbouring sorted ranges of the provided array
+	 * @param states The states
+	 * @param from The start of the first range
+	 * @param middle The end of the first range and the start of the second range
+	 * @param to The end of the second range
+	 */
+	private void merge(int[] states, int from, int middle, int to) {
+
+		System.arraycopy(states, from, buffer, from, to - from);
+
+		int i = from;
+		int j = middle;
+		int k = from;
+
+		while (i < middle && j < to) {
+			if (graph.getRank(buffer[j]) < graph.getRank(buffer[i])) {
+				states[k++] = buffer[j++];
+			} else {
+				states[k++] = buffer[i++];
+			}
+		}
+
+		while (i < middle) {
+			states[k++] = buffer[i++];
+		}
+
+		while (j < to) {
+			states[k++] = buffer[j++];
+		}
+	}
+
+}
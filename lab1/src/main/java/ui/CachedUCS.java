@@ -0,0 +1,173 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of the UCS search algorithm which keeps the shortest path tree of every starter state in
+ * a {@link PathTreeCache}. A query whose destination state was already closed by the cached tree is answered
+ * by walking the previous states of the tree, a query whose destination states were not reached yet resumes
+ * the cached search from its open states, and the grown tree replaces the cached one. The output is the same
+ * as the one of the {@link UCS} algorithm, followed by the statistics of the cache. The metrics attached to the
+ * context count only the work of the query itself, so a query answered by the cached tree alone expands no states
+ * @author Vito Sabalic
+ *
+ */
+public class CachedUCS implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private PathTreeCache cache;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param cache
+	 */
+	public CachedUCS(Graph graph, int[] solutions, int starterNode, PathTreeCache cache) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.cache = cache;
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		GoalSet goals = context.getGoals(solutions);
+		ShortestPathTree tree = cache.get(starterNode);
+
+		if (tree != null) {
+			int position = tree.find(goals);
+
+			if (position != -1) {
+				context.reset();
+				cache.recordHit();
+				return addStatistics(new SearchResult(graph, "# UCS", true, position + 1, tree.calculatePath(position),
+						tree.getDistance(position)), "hit");
+			}
+
+			if (tree.isComplete()) {
+				context.reset();
+				cache.recordHit();
+				return addStatistics(SearchResult.notFound(graph, "# UCS", tree.getClosedCount()), "hit");
+			}
+		}
+
+		Frontier unvisited = context.getFrontier(false);
+		int[] closed;
+		int closedCount;
+		int[] reached;
+		int reachedCount;
+
+		if (tree == null) {
+			cache.recordMiss();
+			context.reset();
+			context.set(starterNode, 0, -1);
+			unvisited.push(starterNode, 0);
+
+			closed = new int[16];
+			closedCount = 0;
+			reached = new int[16];
+			reached[0] = starterNode;
+			reachedCount = 1;
+		} else {
+			cache.recordResume();
+			tree.restore(context, unvisited);
+
+			closed = tree.getStates();
+			closedCount = tree.getClosedCount();
+			reached = Arrays.copyOfRange(closed, closedCount, Math.max(closed.length, closedCount + 16));
+			reachedCount = closed.length - closedCount;
+		}
+
+		SearchResult result = null;
+
+		SearchMetrics metrics = context.getMetrics();
+		if (metrics != null) {
+			metrics.pushed(false, unvisited.size());
+		}
+
+		while (!unvisited.isEmpty()) {
+
+			int currentNode = unvisited.poll();
+
+			if (metrics != null) {
+				metrics.polled();
+			}
+
+			if (goals.contains(currentNode)) {
+				result = new SearchResult(graph, "# UCS", true, context.getClosedCount() + 1,
+						context.calculatePath(currentNode), context.getDistance(currentNode));
+				break;
+			}
+
+			if (metrics != null) {
+				metrics.expanded(graph.getLastTransition(currentNode) - graph.getFirstTransition(currentNode));
+			}
+
+			for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+				int adjacent = graph.getTarget(i);
+
+				if (!context.isClosed(adjacent)) {
+					boolean first = context.getDistance(adjacent) == Double.MAX_VALUE;
+
+					if (context.relax(adjacent, graph.getCost(i), currentNode)) {
+						boolean duplicate = metrics != null && unvisited.contains(adjacent);
+						unvisited.push(adjacent, context.getDistance(adjacent));
+
+						if (metrics != null) {
+							metrics.pushed(duplicate, unvisited.size());
+						}
+
+						if (first) {
+							if (reachedCount == reached.length) {
+								reached = Arrays.copyOf(reached, reachedCount * 2);
+							}
+							reached[reachedCount++] = adjacent;
+						}
+					}
+				}
+			}
+
+			context.close(currentNode);
+			if (closedCount == closed.length) {
+				closed = Arrays.copyOf(closed, closedCount * 2);
+			}
+			closed[closedCount++] = currentNode;
+		}
+
+		cache.put(ShortestPathTree.record(context, starterNode, closed, closedCount, reached, reachedCount));
+
+		if (result == null) {
+			result = SearchResult.notFound(graph, "# UCS", context.getClosedCount());
+		}
+
+		return addStatistics(result, tree == null ? "miss" : "resumed");
+	}
+
+	/**
+	 * Adds the statistics of the cache to the result
+	 * @param result The result
+	 * @param outcome The way the query used the cache
+	 * @return Returns the result
+	 */
+	private SearchResult addStatistics(SearchResult result, String outcome) {
+
+		return result.addStatistic("TREE_CACHE", outcome)
+				.addStatistic("TREE_CACHE_HIT_RATE", String.format("%.2f%%", cache.getHitRate() * 100))
+				.addStatistic("TREE_CACHE_MEMORY", String.format("%d trees, %.2f MB", cache.size(),
+						cache.getBytes() / (1024.0 * 1024.0)));
+	}
+
+}
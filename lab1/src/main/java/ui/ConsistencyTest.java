@@ -1,31 +1,84 @@
 package ui;
 
-import java.util.HashSet;
-import java.util.List;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /**
- * An implementation which checks whether the provided heuristic is consistent
+ * An implementation which checks whether the provided heuristic is consistent.
+ * The transitions are checked in chunks of states, which are formatted concurrently into their own buffers
+ * and written in the order of the states by their names, so the output does not depend on the number of threads.
+ * The transitions of every state are written in the order in which the original implementation iterated
+ * over them, the iteration order of a {@link HashMap} keyed by the target states, which hashed their names,
+ * with the transitions added in the order in which they were listed. A state listed more than once
+ * as a target is written once, with the cost of its last transition
  * @author Vito Sabalic
  *
  */
 public class ConsistencyTest {
 
-	private List<Node> nodes;
+	/**
+	 * The minimal number of transitions checked by a single chunk
+	 */
+	private static final int CHUNK_TRANSITIONS = 1 << 12;
+
+	/**
+	 * The number of chunks which are checked ahead of the chunk being written, per thread
+	 */
+	private static final int CHUNKS_AHEAD = 4;
+
+	/**
+	 * The initial capacity of a {@link HashMap}
+	 */
+	private static final int MAP_CAPACITY = 16;
+
+	/**
+	 * The load factor of a {@link HashMap}, in quarters
+	 */
+	private static final int MAP_LOAD_QUARTERS = 3;
+
+	/**
+	 * The largest number of entries of a single bucket of a {@link HashMap} which keeps them in a list
+	 */
+	private static final int MAP_LIST_ENTRIES = 8;
+
+	private Graph graph;
 	private String path;
-	private Set<Node> visited;
+	private int threads;
+	private boolean violationsOnly;
 	private boolean consistent;
 
 	/**
 	 * A simple constructor
-	 * @param nodes
+	 * @param graph
 	 * @param path
 	 */
-	public ConsistencyTest(List<Node> nodes, String path) {
-		this.nodes = nodes;
+	public ConsistencyTest(Graph graph, String path) {
+		this(graph, path, 1, false);
+	}
+
+	/**
+	 * A complex constructor
+	 * @param graph The graph
+	 * @param path The path of the heuristic file, used in the output
+	 * @param threads The number of threads which check the transitions
+	 * @param violationsOnly true if only the violated conditions and the summary counts should be printed,
+	 * false if every condition should be printed
+	 */
+	public ConsistencyTest(Graph graph, String path, int threads, boolean violationsOnly) {
+		this.graph = graph;
 		this.path = path;
-		this.visited = new HashSet<>();
+		this.threads = Math.max(1, threads);
+		this.violationsOnly = violationsOnly;
 		this.consistent = true;
 	}
 
@@ -34,34 +87,274 @@ public class ConsistencyTest {
 	 */
 	public void start() {
 
-		System.out.println("# HEURISTIC-CONSISTENT " + path);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+		ForkJoinPool pool = threads == 1 ? null : new ForkJoinPool(threads);
+
+		try {
+			writer.write("# HEURISTIC-CONSISTENT " + path);
+			writer.write(System.lineSeparator());
+
+			int[] states = graph.getStatesByName();
+			Deque<ForkJoinTask<Chunk>> pending = new ArrayDeque<>();
+			long checked = 0;
+			long violations = 0;
+			int next = 0;
+
+			while (next < states.length || !pending.isEmpty()) {
+
+				while (next < states.length && pending.size() < threads * CHUNKS_AHEAD) {
+					int end = next;
+					int transitions = 0;
+					while (end < states.length && transitions < CHUNK_TRANSITIONS) {
+						transitions += graph.getLastTransition(states[end]) - graph.getFirstTransition(states[end]);
+						end++;
+					}
+
+					Chunk chunk = new Chunk(states, next, end);
+					if (pool == null) {
+						chunk.invoke();
+						pending.add(chunk);
+					} else {
+						pending.add(pool.submit(chunk));
+					}
+					next = end;
+				}
+
+				Chunk chunk = pending.poll().join();
+				checked += chunk.checked;
+				violations += chunk.violations;
+				writer.append(chunk.output);
+			}
+
+			consistent = violations == 0;
+
+			if (violationsOnly) {
+				writer.write("[CHECKED]: " + checked);
+				writer.write(System.lineSeparator());
+				writer.write("[VIOLATIONS]: " + violations);
+				writer.write(System.lineSeparator());
+			}
+
+			writer.write("[CONCLUSION]: " + (consistent ? "Heuristic is consistent." : "Heuristic is not consistent."));
+			writer.write(System.lineSeparator());
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * A task which checks the transitions of a range of states and formats the conditions into its own buffer
+	 * @author Vito Sabalic
+	 *
+	 */
+	private class Chunk extends RecursiveTask<Chunk> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] states;
+		private final int from;
+		private final int to;
+		private final StringBuilder output;
+		private long checked;
+		private long violations;
+		private int[] listed;
+		private int[] ordered;
+		private int[] lastTransitions;
+		private long[] keys;
+		private int[] buckets;
+
+		/**
+		 * A simple constructor
+		 * @param states The states ordered by their names
+		 * @param from The index of the first state of the chunk
+		 * @param to The index after the last state of the chunk
+		 */
+		Chunk(int[] states, int from, int to) {
+			this.states = states;
+			this.from = from;
+			this.to = to;
+			this.output = new StringBuilder();
+			this.listed = new int[16];
+			this.ordered = new int[16];
+			this.lastTransitions = new int[16];
+			this.keys = new long[16];
+			this.buckets = new int[MAP_CAPACITY];
+		}
+
+		@Override
+		protected Chunk compute() {
+
+			for (int s = from; s < to; s++) {
+				int currentNode = states[s];
+				double heuristic = graph.getHeuristic(currentNode);
+				int count = order(currentNode);
 
-		for (Node currentNode : nodes) {
+				for (int o = 0; o < count; o++) {
+					int i = ordered[o];
+					int adjacent = graph.getTarget(i);
+					boolean ok = heuristic <= graph.getHeuristic(adjacent) + graph.getCost(i);
 
-			Map<Node, Double> adjacents = currentNode.getAdjacentNodes();
+					checked++;
+					if (!ok) {
+						violations++;
+					} else if (violationsOnly) {
+						continue;
+					}
 
-			for (Map.Entry<Node, Double> entry : adjacents.entrySet()) {
+					output.append("[CONDITION]: ").append(ok ? "[OK]" : "[ERR]")
+							.append(" h(").append(graph.getName(currentNode))
+							.append(") <= h(").append(graph.getName(adjacent))
+							.append(") + c: ").append(heuristic)
+							.append(" <= ").append(graph.getHeuristic(adjacent))
+							.append(" + ").append(graph.getCost(i))
+							.append(System.lineSeparator());
+				}
+			}
+
+			return this;
+		}
+
+		/**
+		 * Orders the transitions of the state the way the original implementation iterated over them
+		 * @param state The state
+		 * @return Returns the number of ordered transitions, which are stored in <code>ordered</code>
+		 */
+		private int order(int state) {
+
+			int first = graph.getFirstTransition(state);
+			int count = graph.getLastTransition(state) - first;
+
+			if (listed.length < count) {
+				listed = new int[Math.max(count, listed.length * 2)];
+				ordered = new int[listed.length];
+				lastTransitions = new int[listed.length];
+				keys = new long[listed.length];
+			}
+
+			for (int i = first; i < first + count; i++) {
+				listed[graph.getListedPosition(state, i)] = i;
+				keys[i - first] = (long) graph.getTarget(i) << 32 | graph.getListedPosition(state, i);
+			}
+
+			Arrays.sort(keys, 0, count);
 
-				if (visited.contains(entry.getKey())) {
+			int entries = 0;
+			for (int k = 0; k < count; k++) {
+				if (k > 0 && keys[k] >>> 32 == keys[k - 1] >>> 32) {
 					continue;
 				}
 
-				if (currentNode.getHeuristic() <= entry.getKey().getHeuristic() + entry.getValue()) {
-					System.out.println("[CONDITION]: [OK] h(" + currentNode.getName() + ") <= h("
-							+ entry.getKey().getName() + ") + c: " + currentNode.getHeuristic() + " <= "
-							+ entry.getKey().getHeuristic() + " + " + entry.getValue());
-				} else {
-					consistent = false;
-					System.out.println("[CONDITION]: [ERR] h(" + currentNode.getName() + ") <= h("
-							+ entry.getKey().getName() + ") + c: " + currentNode.getHeuristic() + " <= "
-							+ entry.getKey().getHeuristic() + " + " + entry.getValue());
+				int last = k;
+				while (last + 1 < count && keys[last + 1] >>> 32 == keys[k] >>> 32) {
+					last++;
+				}
+
+				int position = (int) keys[k];
+				lastTransitions[position] = listed[(int) keys[last]];
+				ordered[entries++] = position;
+			}
+
+			int capacity = MAP_CAPACITY;
+			while (entries > capacity / 4 * MAP_LOAD_QUARTERS) {
+				capacity <<= 1;
+			}
+
+			Arrays.fill(buckets, 0);
+			for (int e = 0; e < entries; e++) {
+				int hash = hash(graph.getTarget(lastTransitions[ordered[e]]));
+				keys[e] = (long) (hash & capacity - 1) << 32 | ordered[e];
 
+				if (++buckets[hash & MAP_CAPACITY - 1] > MAP_LIST_ENTRIES) {
+					return orderThroughMap(state, count);
 				}
 			}
 
+			Arrays.sort(keys, 0, entries);
+			for (int e = 0; e < entries; e++) {
+				ordered[e] = lastTransitions[(int) keys[e]];
+			}
+
+			return entries;
+		}
+
+		/**
+		 * Orders the transitions of the state through an actual {@link HashMap}, which is needed once
+		 * a bucket of the map could hold more entries than a list does
+		 * @param state The state
+		 * @param count The number of transitions of the state, which are stored in <code>listed</code>
+		 * by their listed positions
+		 * @return Returns the number of ordered transitions, which are stored in <code>ordered</code>
+		 */
+		private int orderThroughMap(int state, int count) {
+
+			Map<NameKey, Integer> map = new HashMap<>();
+			for (int p = 0; p < count; p++) {
+				map.put(new NameKey(graph.getName(graph.getTarget(listed[p]))), listed[p]);
+			}
+
+			int entries = 0;
+			for (int transition : map.values()) {
+				ordered[entries++] = transition;
+			}
+
+			return entries;
+		}
+
+		/**
+		 * Calculates the hash of the state in a {@link HashMap} keyed by the state names,
+		 * see {@link NameKey#hashCode()}
+		 * @param state The state
+		 * @return Returns the hash
+		 */
+		private int hash(int state) {
+
+			int hash = NameKey.hashCode(graph.getName(state));
+			return hash ^ hash >>> 16;
+		}
+
+	}
+
+	/**
+	 * A key of a {@link HashMap} which hashes a state name the way the states of the original implementation did
+	 * @author Vito Sabalic
+	 *
+	 */
+	private static final class NameKey {
+
+		private final String name;
+
+		/**
+		 * A simple constructor
+		 * @param name The name of the state
+		 */
+		NameKey(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Calculates the hash code of the state name
+		 * @param name The name of the state
+		 * @return Returns the hash code
+		 */
+		static int hashCode(String name) {
+			return 31 + name.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode(name);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof NameKey && name.equals(((NameKey) obj).name);
 		}
 
-		System.out.println("[CONCLUSION]: " + (consistent ? "Heuristic is consistent." : "Heuristic is not consistent."));
 	}
 
 }
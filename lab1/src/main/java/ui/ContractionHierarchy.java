@@ -0,0 +1,757 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A contraction hierarchy of a graph. The states are contracted one by one, in the order of twice the number
+ * of shortcuts their contraction adds, minus the number of their edges, plus the number of their contracted
+ * neighbours. A shortcut is added between two neighbours of a contracted state whenever a local witness search
+ * finds no path between them which is as cheap as the one through the contracted state. Every transition and shortcut is a numbered edge, and
+ * a shortcut remembers the two edges it replaces, so any path of the hierarchy can be unpacked to a path of
+ * the graph. Once the cheapest state to contract would need too many shortcuts, the remaining states form
+ * the core of the hierarchy, which is searched as an ordinary graph.
+ * <p>
+ * The edges are stored in two graphs over the same states: the upward graph holds the edges to states of
+ * a higher rank, and the downward graph holds the edges from states of a higher rank, reversed. Edges between
+ * two core states are stored in both of them.
+ * <p>
+ * The file starts with a header of the magic number, the format version, the number of states, the number
+ * of transitions, the rank of the first core state, the number of edges and the number of edges which are
+ * still in use. It is followed by the ranks of the states, the sources, targets, first and second replaced
+ * edges and costs of all edges, and the ids of the edges which are still in use
+ * @author Vito Sabalic
+ *
+ */
+public class ContractionHierarchy {
+
+	private static final int MAGIC = 0x55494348;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+	/**
+	 * The largest number of states settled by a single witness search
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 128;
+
+	/**
+	 * The largest number of shortcuts added by the contraction of a single state, the remaining states
+	 * form the core once the cheapest one needs more
+	 */
+	private static final int CORE_SHORTCUTS = 64;
+
+	private Graph graph;
+	private int[] ranks;
+	private int coreStart;
+	private int[] edgeSources;
+	private int[] edgeTargets;
+	private int[] firstEdges;
+	private int[] secondEdges;
+	private double[] edgeCosts;
+	private int[] usedEdges;
+	private Graph upward;
+	private int[] upwardEdges;
+	private Graph downward;
+	private int[] downwardEdges;
+
+	/**
+	 * A complex constructor, which builds the upward and the downward graph
+	 * @param graph The graph of the hierarchy
+	 * @param ranks The ranks of the states, the order in which they were contracted
+	 * @param coreStart The rank of the first core state
+	 * @param edgeSources The source states of all edges
+	 * @param edgeTargets The target states of all edges
+	 * @param firstEdges The first edge replaced by every shortcut, or -1 for transitions of the graph
+	 * @param secondEdges The second edge replaced by every shortcut, or -1 for transitions of the graph
+	 * @param edgeCosts The costs of all edges
+	 * @param usedEdges The ids of the edges which are still in use, the other ones are only replaced by shortcuts
+	 */
+	public ContractionHierarchy(Graph graph, int[] ranks, int coreStart, int[] edgeSources, int[] edgeTargets,
+			int[] firstEdges, int[] secondEdges, double[] edgeCosts, int[] usedEdges) {
+
+		this.graph = graph;
+		this.ranks = ranks;
+		this.coreStart = coreStart;
+		this.edgeSources = edgeSources;
+		this.edgeTargets = edgeTargets;
+		this.firstEdges = firstEdges;
+		this.secondEdges = secondEdges;
+		this.edgeCosts = edgeCosts;
+		this.usedEdges = usedEdges;
+
+		int stateCount = graph.getStateCount();
+		int[] upwardOffsets = new int[stateCount + 1];
+		int[] downwardOffsets = new int[stateCount + 1];
+
+		for (int edge : usedEdges) {
+			if (isAbove(edgeTargets[edge], edgeSources[edge])) {
+				upwardOffsets[edgeSources[edge] + 1]++;
+			}
+			if (isAbove(edgeSources[edge], edgeTargets[edge])) {
+				downwardOffsets[edgeTargets[edge] + 1]++;
+			}
+		}
+
+		for (int i = 0; i < stateCount; i++) {
+			upwardOffsets[i + 1] += upwardOffsets[i];
+			downwardOffsets[i + 1] += downwardOffsets[i];
+		}
+
+		int[] upwardNext = Arrays.copyOf(upwardOffsets, stateCount);
+		int[] downwardNext = Arrays.copyOf(downwardOffsets, stateCount);
+		int[] upwardTargets = new int[upwardOffsets[stateCount]];
+		double[] upwardCosts = new double[upwardOffsets[stateCount]];
+		int[] downwardTargets = new int[downwardOffsets[stateCount]];
+		double[] downwardCosts = new double[downwardOffsets[stateCount]];
+		this.upwardEdges = new int[upwardOffsets[stateCount]];
+		this.downwardEdges = new int[downwardOffsets[stateCount]];
+
+		for (int edge : usedEdges) {
+			if (isAbove(edgeTargets[edge], edgeSources[edge])) {
+				int position = upwardNext[edgeSources[edge]]++;
+				upwardTargets[position] = edgeTargets[edge];
+				upwardCosts[position] = edgeCosts[edge];
+				upwardEdges[position] = edge;
+			}
+			if (isAbove(edgeSources[edge], edgeTargets[edge])) {
+				int position = downwardNext[edgeTargets[edge]]++;
+				downwardTargets[position] = edgeSources[edge];
+				downwardCosts[position] = edgeCosts[edge];
+				downwardEdges[position] = edge;
+			}
+		}
+
+		this.upward = graph.withTransitions(upwardOffsets, upwardTargets, upwardCosts);
+		this.downward = graph.withTransitions(downwardOffsets, downwardTargets, downwardCosts);
+	}
+
+	/**
+	 * A getter for the upward graph, whose transitions lead to states of a higher rank or between core states
+	 * @return Returns the upward graph
+	 */
+	public Graph getUpward() {
+		return upward;
+	}
+
+	/**
+	 * A getter for the downward graph, whose transitions are the reversed edges from states of a higher rank
+	 * or between core states
+	 * @return Returns the downward graph
+	 */
+	public Graph getDownward() {
+		return downward;
+	}
+
+	/**
+	 * A getter for the number of core states
+	 * @return Returns the number of core states
+	 */
+	public int getCoreSize() {
+		return ranks.length - coreStart;
+	}
+
+	/**
+	 * Checks whether the state belongs to the core of the hierarchy
+	 * @param state The state id
+	 * @return Returns true if it does, false otherwise
+	 */
+	public boolean isCore(int state) {
+		return ranks[state] >= coreStart;
+	}
+
+	/**
+	 * Counts the shortcuts which are still in use
+	 * @return Returns the number of shortcuts
+	 */
+	public int getShortcutCount() {
+
+		int count = 0;
+		for (int edge : usedEdges) {
+			if (firstEdges[edge] != -1) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Unpacks a path of the hierarchy, whose consecutive states are connected by edges in use, to a path
+	 * of the graph
+	 * @param path The path of the hierarchy
+	 * @return Returns the path of the graph
+	 */
+	public int[] unpack(int[] path) {
+
+		int[] unpacked = new int[Math.max(16, path.length)];
+		int[] stack = new int[16];
+		int length = 0;
+
+		unpacked[length++] = path[0];
+
+		for (int i = 1; i < path.length; i++) {
+			int size = 0;
+			stack[size++] = findEdge(path[i - 1], path[i]);
+
+			while (size > 0) {
+				int edge = stack[--size];
+
+				if (firstEdges[edge] == -1) {
+					if (length == unpacked.length) {
+						unpacked = Arrays.copyOf(unpacked, length * 2);
+					}
+					unpacked[length++] = edgeTargets[edge];
+				} else {
+					if (size + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					stack[size++] = secondEdges[edge];
+					stack[size++] = firstEdges[edge];
+				}
+			}
+		}
+
+		return Arrays.copyOf(unpacked, length);
+	}
+
+	/**
+	 * Finds the edge in use between the two provided states
+	 * @param from The state the edge starts in
+	 * @param to The state the edge ends in
+	 * @return Returns the edge id
+	 */
+	private int findEdge(int from, int to) {
+
+		for (int i = upward.getFirstTransition(from); i < upward.getLastTransition(from); i++) {
+			if (upward.getTarget(i) == to) {
+				return upwardEdges[i];
+			}
+		}
+
+		for (int i = downward.getFirstTransition(to); i < downward.getLastTransition(to); i++) {
+			if (downward.getTarget(i) == from) {
+				return downwardEdges[i];
+			}
+		}
+
+		throw new IllegalArgumentException("No edge between " + graph.getName(from) + " and " + graph.getName(to));
+	}
+
+	/**
+	 * Checks whether the first state is above the second one in the hierarchy, which is true for any two core states
+	 * @param state The first state id
+	 * @param other The second state id
+	 * @return Returns true if it is above, false otherwise
+	 */
+	private boolean isAbove(int state, int other) {
+		return ranks[state] > ranks[other] || ranks[state] >= coreStart && ranks[other] >= coreStart;
+	}
+
+	/**
+	 * Contracts the states of the graph into a hierarchy
+	 * @param graph The graph
+	 * @return Returns the created hierarchy
+	 */
+	public static ContractionHierarchy compute(Graph graph) {
+		return new Contraction(graph).run();
+	}
+
+	/**
+	 * Writes the hierarchy to the file on the provided path
+	 * @param path The path of the file
+	 * @throws IOException If the file cannot be written
+	 */
+	public void write(String path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(GraphSnapshot.CHUNK_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(ranks.length).putInt(graph.getTransitionCount())
+					.putInt(coreStart).putInt(edgeSources.length).putInt(usedEdges.length);
+
+			GraphSnapshot.writeInts(channel, buffer, ranks);
+			GraphSnapshot.writeInts(channel, buffer, edgeSources);
+			GraphSnapshot.writeInts(channel, buffer, edgeTargets);
+			GraphSnapshot.writeInts(channel, buffer, firstEdges);
+			GraphSnapshot.writeInts(channel, buffer, secondEdges);
+			GraphSnapshot.writeDoubles(channel, buffer, edgeCosts);
+			GraphSnapshot.writeInts(channel, buffer, usedEdges);
+			GraphSnapshot.flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Reads the hierarchy from the file on the provided path
+	 * @param path The path of the file
+	 * @param graph The graph of the hierarchy
+	 * @return Returns the read hierarchy
+	 * @throws IOException If the file cannot be read, is not a hierarchy file of a supported version or was created
+	 * for a different graph
+	 */
+	public static ContractionHierarchy read(String path, Graph graph) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException(path + ": not a hierarchy file");
+			}
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(path + ": not a hierarchy file");
+			}
+
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(path + ": unsupported hierarchy file version " + version);
+			}
+
+			int stateCount = header.getInt();
+			int transitionCount = header.getInt();
+			int coreStart = header.getInt();
+			int edgeCount = header.getInt();
+			int usedCount = header.getInt();
+
+			if (stateCount != graph.getStateCount() || transitionCount != graph.getTransitionCount()) {
+				throw new IOException(path + ": hierarchy of a different state space");
+			}
+
+			long expectedSize = HEADER_SIZE + (long) Integer.BYTES * (stateCount + 4L * edgeCount + usedCount)
+					+ (long) Double.BYTES * edgeCount;
+			if (edgeCount < 0 || usedCount < 0 || expectedSize != channel.size()) {
+				throw new IOException(path + ": corrupted hierarchy file");
+			}
+
+			int[] ranks = new int[stateCount];
+			long position = GraphSnapshot.readInts(channel, HEADER_SIZE, ranks);
+			int[] edgeSources = new int[edgeCount];
+			position = GraphSnapshot.readInts(channel, position, edgeSources);
+			int[] edgeTargets = new int[edgeCount];
+			position = GraphSnapshot.readInts(channel, position, edgeTargets);
+			int[] firstEdges = new int[edgeCount];
+			position = GraphSnapshot.readInts(channel, position, firstEdges);
+			int[] secondEdges = new int[edgeCount];
+			position = GraphSnapshot.readInts(channel, position, secondEdges);
+			double[] edgeCosts = new double[edgeCount];
+			position = GraphSnapshot.readDoubles(channel, position, edgeCosts);
+			int[] usedEdges = new int[usedCount];
+			GraphSnapshot.readInts(channel, position, usedEdges);
+
+			return new ContractionHierarchy(graph, ranks, coreStart, edgeSources, edgeTargets, firstEdges, secondEdges,
+					edgeCosts, usedEdges);
+		}
+	}
+
+	/**
+	 * The mutable state of the contraction of a graph. The edges of every state which is not yet contracted
+	 * are kept in growable lists of edge ids, and an edge which is replaced by a cheaper shortcut between
+	 * the same states is removed from the lists
+	 * @author Vito Sabalic
+	 *
+	 */
+	private static class Contraction {
+
+		private final Graph graph;
+		private int[] sources;
+		private int[] targets;
+		private int[] firstEdges;
+		private int[] secondEdges;
+		private double[] costs;
+		private boolean[] removed;
+		private int edgeCount;
+		private final int[][] outEdges;
+		private final int[] outCounts;
+		private final int[][] inEdges;
+		private final int[] inCounts;
+		private final boolean[] contracted;
+		private final int[] contractedNeighbours;
+		private final double[] witnessDistances;
+		private final int[] witnessStamps;
+		private int witnessGeneration;
+		private int[] heapStates;
+		private double[] heapKeys;
+		private int heapSize;
+		private int[] pending;
+		private double[] pendingCosts;
+		private int pendingCount;
+
+		/**
+		 * A simple constructor
+		 * @param graph The graph which is contracted
+		 */
+		Contraction(Graph graph) {
+
+			int stateCount = graph.getStateCount();
+			this.graph = graph;
+			this.sources = new int[Math.max(16, graph.getTransitionCount())];
+			this.targets = new int[sources.length];
+			this.firstEdges = new int[sources.length];
+			this.secondEdges = new int[sources.length];
+			this.costs = new double[sources.length];
+			this.removed = new boolean[sources.length];
+			this.outEdges = new int[stateCount][];
+			this.outCounts = new int[stateCount];
+			this.inEdges = new int[stateCount][];
+			this.inCounts = new int[stateCount];
+			this.contracted = new boolean[stateCount];
+			this.contractedNeighbours = new int[stateCount];
+			this.witnessDistances = new double[stateCount];
+			this.witnessStamps = new int[stateCount];
+			this.heapStates = new int[64];
+			this.heapKeys = new double[64];
+			this.pending = new int[64];
+			this.pendingCosts = new double[32];
+		}
+
+		/**
+		 * Contracts the states in the order of their priorities, which are updated lazily: a state is contracted
+		 * only if its priority is still not larger than the smallest stored priority once it is recomputed
+		 * @return Returns the created hierarchy
+		 */
+		ContractionHierarchy run() {
+
+			int stateCount = graph.getStateCount();
+
+			for (int state = 0; state < stateCount; state++) {
+				outEdges[state] = new int[Math.max(1, graph.getLastTransition(state) - graph.getFirstTransition(state))];
+				inEdges[state] = new int[2];
+			}
+
+			for (int state = 0; state < stateCount; state++) {
+				for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+					if (graph.getTarget(i) != state) {
+						addEdge(state, graph.getTarget(i), graph.getCost(i), -1, -1);
+					}
+				}
+			}
+
+			PriorityQueue<Long> queue = new PriorityQueue<>(Math.max(1, stateCount));
+			for (int state = 0; state < stateCount; state++) {
+				queue.add(key(calculatePriority(state), state));
+			}
+
+			int[] ranks = new int[stateCount];
+			int rank = 0;
+
+			while (!queue.isEmpty()) {
+				int state = (int) (queue.poll() & 0xFFFFFFFFL);
+				int priority = calculatePriority(state);
+
+				if (!queue.isEmpty() && priority > (int) (queue.peek() >> 32)) {
+					queue.add(key(priority, state));
+					continue;
+				}
+
+				if (pendingCount > CORE_SHORTCUTS) {
+					break;
+				}
+
+				contract(state);
+				ranks[state] = rank++;
+			}
+
+			int coreStart = rank;
+			for (int state = 0; state < stateCount; state++) {
+				if (!contracted[state]) {
+					ranks[state] = rank++;
+				}
+			}
+
+			int usedCount = 0;
+			int[] usedEdges = new int[edgeCount];
+			for (int edge = 0; edge < edgeCount; edge++) {
+				if (!removed[edge]) {
+					usedEdges[usedCount++] = edge;
+				}
+			}
+
+			return new ContractionHierarchy(graph, ranks, coreStart, Arrays.copyOf(sources, edgeCount),
+					Arrays.copyOf(targets, edgeCount), Arrays.copyOf(firstEdges, edgeCount),
+					Arrays.copyOf(secondEdges, edgeCount), Arrays.copyOf(costs, edgeCount),
+					Arrays.copyOf(usedEdges, usedCount));
+		}
+
+		/**
+		 * Creates the key of the state in the queue of the contraction, ordered by the priority and then
+		 * by the state id
+		 * @param priority The priority of the state
+		 * @param state The state id
+		 * @return Returns the key
+		 */
+		private static long key(int priority, int state) {
+			return (long) priority << 32 | state;
+		}
+
+		/**
+		 * Calculates the priority of the state, twice the number of shortcuts its contraction adds, minus the number
+		 * of its edges, plus the number of its contracted neighbours. The needed shortcuts are left pending
+		 * @param state The state id
+		 * @return Returns the priority
+		 */
+		private int calculatePriority(int state) {
+
+			findShortcuts(state);
+
+			int edges = 0;
+			for (int i = 0; i < outCounts[state]; i++) {
+				if (!contracted[targets[outEdges[state][i]]]) {
+					edges++;
+				}
+			}
+			for (int i = 0; i < inCounts[state]; i++) {
+				if (!contracted[sources[inEdges[state][i]]]) {
+					edges++;
+				}
+			}
+
+			return 2 * pendingCount - edges + contractedNeighbours[state];
+		}
+
+		/**
+		 * Contracts the state, adding the pending shortcuts found for it
+		 * @param state The state id
+		 */
+		private void contract(int state) {
+
+			for (int i = 0; i < pendingCount; i++) {
+				int first = pending[2 * i];
+				int second = pending[2 * i + 1];
+				addEdge(sources[first], targets[second], pendingCosts[i], first, second);
+			}
+
+			contracted[state] = true;
+
+			for (int i = 0; i < outCounts[state]; i++) {
+				contractedNeighbours[targets[outEdges[state][i]]]++;
+			}
+			for (int i = 0; i < inCounts[state]; i++) {
+				contractedNeighbours[sources[inEdges[state][i]]]++;
+			}
+		}
+
+		/**
+		 * Finds the shortcuts needed to contract the state: one for every pair of an incoming and an outgoing edge
+		 * between states which are not yet contracted, unless the witness search finds a path between them
+		 * which is not more expensive. The found pairs of edges are left pending
+		 * @param state The state id
+		 */
+		private void findShortcuts(int state) {
+
+			pendingCount = 0;
+
+			for (int i = 0; i < inCounts[state]; i++) {
+				int in = inEdges[state][i];
+				int source = sources[in];
+
+				if (contracted[source]) {
+					continue;
+				}
+
+				double limit = -1;
+				for (int j = 0; j < outCounts[state]; j++) {
+					int out = outEdges[state][j];
+					if (!contracted[targets[out]] && targets[out] != source) {
+						limit = Math.max(limit, costs[in] + costs[out]);
+					}
+				}
+
+				if (limit < 0) {
+					continue;
+				}
+
+				searchWitnesses(source, state, limit);
+
+				for (int j = 0; j < outCounts[state]; j++) {
+					int out = outEdges[state][j];
+					int target = targets[out];
+
+					if (!contracted[target] && target != source && getWitnessDistance(target) > costs[in] + costs[out]) {
+						if (2 * pendingCount + 2 > pending.length) {
+							pending = Arrays.copyOf(pending, pending.length * 2);
+							pendingCosts = Arrays.copyOf(pendingCosts, pendingCosts.length * 2);
+						}
+						pending[2 * pendingCount] = in;
+						pending[2 * pendingCount + 1] = out;
+						pendingCosts[pendingCount++] = costs[in] + costs[out];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Executes a Dijkstra search from the source over the states which are not yet contracted, avoiding
+		 * the excluded state, until the cost exceeds the limit or enough states are settled
+		 * @param source The source state id
+		 * @param excluded The state id which is being contracted
+		 * @param limit The largest cost of a path which is searched for
+		 */
+		private void searchWitnesses(int source, int excluded, double limit) {
+
+			witnessGeneration++;
+			heapSize = 0;
+			int settled = 0;
+
+			witnessStamps[source] = witnessGeneration;
+			witnessDistances[source] = 0;
+			push(source, 0);
+
+			while (heapSize > 0 && settled < WITNESS_SETTLE_LIMIT) {
+				double key = heapKeys[0];
+				int state = poll();
+
+				if (key > witnessDistances[state]) {
+					continue;
+				}
+				if (key > limit) {
+					break;
+				}
+
+				settled++;
+
+				for (int i = 0; i < outCounts[state]; i++) {
+					int edge = outEdges[state][i];
+					int target = targets[edge];
+					double distance = key + costs[edge];
+
+					if (target != excluded && !contracted[target] && distance < getWitnessDistance(target)) {
+						witnessStamps[target] = witnessGeneration;
+						witnessDistances[target] = distance;
+						push(target, distance);
+					}
+				}
+			}
+		}
+
+		/**
+		 * A getter for the cost of the cheapest path found by the last witness search
+		 * @param state The state id
+		 * @return Returns the cost, or {@link Double#MAX_VALUE} if the state was not reached
+		 */
+		private double getWitnessDistance(int state) {
+			return witnessStamps[state] == witnessGeneration ? witnessDistances[state] : Double.MAX_VALUE;
+		}
+
+		/**
+		 * Adds an edge, unless an edge between the same states which is not more expensive already exists,
+		 * in which case it is removed instead
+		 * @param source The state the edge starts in
+		 * @param target The state the edge ends in
+		 * @param cost The cost of the edge
+		 * @param first The first edge replaced by the shortcut, or -1 for a transition of the graph
+		 * @param second The second edge replaced by the shortcut, or -1 for a transition of the graph
+		 */
+		private void addEdge(int source, int target, double cost, int first, int second) {
+
+			for (int i = 0; i < outCounts[source]; i++) {
+				int edge = outEdges[source][i];
+
+				if (targets[edge] == target) {
+					if (costs[edge] <= cost) {
+						return;
+					}
+
+					removed[edge] = true;
+					outEdges[source][i] = outEdges[source][--outCounts[source]];
+					for (int j = 0; j < inCounts[target]; j++) {
+						if (inEdges[target][j] == edge) {
+							inEdges[target][j] = inEdges[target][--inCounts[target]];
+							break;
+						}
+					}
+					break;
+				}
+			}
+
+			if (edgeCount == sources.length) {
+				int capacity = edgeCount * 2;
+				sources = Arrays.copyOf(sources, capacity);
+				targets = Arrays.copyOf(targets, capacity);
+				firstEdges = Arrays.copyOf(firstEdges, capacity);
+				secondEdges = Arrays.copyOf(secondEdges, capacity);
+				costs = Arrays.copyOf(costs, capacity);
+				removed = Arrays.copyOf(removed, capacity);
+			}
+
+			int edge = edgeCount++;
+			sources[edge] = source;
+			targets[edge] = target;
+			firstEdges[edge] = first;
+			secondEdges[edge] = second;
+			costs[edge] = cost;
+
+			if (outCounts[source] == outEdges[source].length) {
+				outEdges[source] = Arrays.copyOf(outEdges[source], outCounts[source] * 2);
+			}
+			outEdges[source][outCounts[source]++] = edge;
+
+			if (inCounts[target] == inEdges[target].length) {
+				inEdges[target] = Arrays.copyOf(inEdges[target], inCounts[target] * 2);
+			}
+			inEdges[target][inCounts[target]++] = edge;
+		}
+
+		/**
+		 * Pushes the state to the heap of the witness search, which can contain the same state more than once
+		 * @param state The state id
+		 * @param key The key
+		 */
+		private void push(int state, double key) {
+
+			if (heapSize == heapStates.length) {
+				heapStates = Arrays.copyOf(heapStates, heapSize * 2);
+				heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			}
+
+			int i = heapSize++;
+			while (i > 0 && heapKeys[(i - 1) / 2] > key) {
+				heapStates[i] = heapStates[(i - 1) / 2];
+				heapKeys[i] = heapKeys[(i - 1) / 2];
+				i = (i - 1) / 2;
+			}
+
+			heapStates[i] = state;
+			heapKeys[i] = key;
+		}
+
+		/**
+		 * Removes the entry with the smallest key from the heap of the witness search
+		 * @return Returns the state id of the removed entry
+		 */
+		private int poll() {
+
+			int first = heapStates[0];
+			heapSize--;
+
+			int state = heapStates[heapSize];
+			double key = heapKeys[heapSize];
+			int i = 0;
+
+			while (2 * i + 1 < heapSize) {
+				int child = 2 * i + 1;
+				if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+					child++;
+				}
+				if (heapKeys[child] >= key) {
+					break;
+				}
+				heapStates[i] = heapStates[child];
+				heapKeys[i] = heapKeys[child];
+				i = child;
+			}
+
+			heapStates[i] = state;
+			heapKeys[i] = key;
+
+			return first;
+		}
+
+	}
+
+}
@@ -0,0 +1,353 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A parallel single-source shortest path engine which implements the delta-stepping algorithm over the arrays
+ * of a {@link Graph}. The states are kept in buckets of width delta by their costs, in a circular array which
+ * covers the largest transition cost. The buckets are emptied in order: the light transitions, whose cost
+ * is not larger than delta, of the states of the current bucket are followed by all threads at once, repeatedly,
+ * because they can add states back into the current bucket, and once the bucket stays empty, the heavy
+ * transitions of all its states are followed once. The costs are lowered through a compare-and-set of their bits,
+ * which keep the order of non-negative costs, so the costs are exact regardless of the order of the threads
+ * @author Vito Sabalic
+ *
+ */
+public class DeltaStepping {
+
+	/**
+	 * The smallest number of states followed by a single task
+	 */
+	private static final int CHUNK_STATES = 1 << 10;
+
+	private Graph graph;
+	private int threads;
+	private double delta;
+	private AtomicLongArray distances;
+	private AtomicLong relaxations;
+	private int[][] buckets;
+	private int[] bucketSizes;
+	private int[] roundStamps;
+	private int[] bucketStamps;
+	private int settledCount;
+	private int bucketCount;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph
+	 * @param threads The number of threads
+	 */
+	public DeltaStepping(Graph graph, int threads) {
+
+		this.graph = graph;
+		this.threads = Math.max(1, threads);
+
+		double averageDegree = (double) graph.getTransitionCount() / Math.max(1, graph.getStateCount());
+		this.delta = graph.getMaxCost() / Math.max(1, averageDegree);
+		if (delta <= 0) {
+			delta = 1;
+		}
+	}
+
+	/**
+	 * A getter for the width of the buckets
+	 * @return Returns the width
+	 */
+	public double getDelta() {
+		return delta;
+	}
+
+	/**
+	 * A getter for the number of transitions followed by the last calculation
+	 * @return Returns the number of transitions
+	 */
+	public long getRelaxations() {
+		return relaxations.get();
+	}
+
+	/**
+	 * A getter for the number of states whose transitions were followed by the last calculation, counting
+	 * a state once per bucket
+	 * @return Returns the number of states
+	 */
+	public int getSettledCount() {
+		return settledCount;
+	}
+
+	/**
+	 * A getter for the number of emptied buckets of the last calculation
+	 * @return Returns the number of buckets
+	 */
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	/**
+	 * Calculates the costs of the cheapest paths from the nearest source state to the states
+	 * @param sources The source states
+	 * @param targets The states whose costs are needed, or null if the costs of all states are needed. The
+	 * calculation stops once the cost of one of them is final, and the costs of the states which are more
+	 * expensive than it may then be too large
+	 * @return Returns the costs indexed by state id, {@link Double#MAX_VALUE} for states which cannot be reached
+	 */
+	public double[] calculateDistances(int[] sources, int[] targets) {
+
+		int stateCount = graph.getStateCount();
+		int window = (int) Math.min(1 << 20, (long) (graph.getMaxCost() / delta) + 2);
+
+		distances = new AtomicLongArray(stateCount);
+		relaxations = new AtomicLong();
+		buckets = new int[window][16];
+		bucketSizes = new int[window];
+		roundStamps = new int[stateCount];
+		bucketStamps = new int[stateCount];
+		settledCount = 0;
+		bucketCount = 0;
+
+		long infinity = Double.doubleToLongBits(Double.MAX_VALUE);
+		for (int i = 0; i < stateCount; i++) {
+			distances.set(i, infinity);
+		}
+
+		for (int source : sources) {
+			distances.set(source, Double.doubleToLongBits(0));
+			insert(source);
+		}
+
+		ForkJoinPool pool = threads == 1 ? null : new ForkJoinPool(threads);
+		int round = 0;
+		int[] settled = new int[16];
+
+		try {
+			long current = 0;
+
+			while (true) {
+				int skipped = 0;
+				while (skipped < window && bucketSizes[(int) ((current + skipped) % window)] == 0) {
+					skipped++;
+				}
+
+				if (skipped == window) {
+					break;
+				}
+
+				current += skipped;
+				bucketCount++;
+				int slot = (int) (current % window);
+				int settledSize = 0;
+
+				while (bucketSizes[slot] > 0) {
+					round++;
+					int[] frontier = new int[bucketSizes[slot]];
+					int size = 0;
+
+					for (int i = 0; i < bucketSizes[slot]; i++) {
+						int state = buckets[slot][i];
+
+						if (roundStamps[state] != round && getBucket(state) == current) {
+							roundStamps[state] = round;
+							frontier[size++] = state;
+
+							if (bucketStamps[state] != bucketCount) {
+								bucketStamps[state] = bucketCount;
+								if (settledSize == settled.length) {
+									settled = Arrays.copyOf(settled, settledSize * 2);
+								}
+								settled[settledSize++] = state;
+							}
+						}
+					}
+
+					bucketSizes[slot] = 0;
+					insertAll(relaxAll(pool, frontier, size, true));
+				}
+
+				insertAll(relaxAll(pool, settled, settledSize, false));
+				settledCount += settledSize;
+
+				if (targets != null && isFinal(targets, (current + 1) * delta)) {
+					break;
+				}
+
+				current++;
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+
+		double[] result = new double[stateCount];
+		for (int i = 0; i < stateCount; i++) {
+			result[i] = Double.longBitsToDouble(distances.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks whether the cost of any of the target states is cheaper than the provided bound, which all
+	 * further costs reach
+	 * @param targets The target states
+	 * @param bound The bound
+	 * @return Returns true if it is, false otherwise
+	 */
+	private boolean isFinal(int[] targets, double bound) {
+		for (int target : targets) {
+			if (getDistance(target) < bound) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Follows the light or the heavy transitions of the states, split into chunks which are followed in parallel
+	 * @param pool The pool, or null if the chunks should be followed by the calling thread
+	 * @param states The states
+	 * @param size The number of states
+	 * @param light true if the light transitions are followed, false if the heavy ones are
+	 * @return Returns the states whose costs were lowered, for every chunk
+	 */
+	private List<int[]> relaxAll(ForkJoinPool pool, int[] states, int size, boolean light) {
+
+		int chunkCount = Math.max(1, Math.min(threads * 4, (size + CHUNK_STATES - 1) / CHUNK_STATES));
+		int chunkSize = (size + chunkCount - 1) / chunkCount;
+		List<int[]> results = new ArrayList<>(chunkCount);
+
+		if (pool == null || chunkCount == 1) {
+			for (int chunk = 0; chunk < chunkCount; chunk++) {
+				results.add(relax(states, chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize), light));
+			}
+			return results;
+		}
+
+		List<ForkJoinTask<int[]>> tasks = new ArrayList<>(chunkCount);
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			int from = chunk * chunkSize;
+			int to = Math.min(size, (chunk + 1) * chunkSize);
+			tasks.add(pool.submit(() -> relax(states, from, to, light)));
+		}
+
+		for (ForkJoinTask<int[]> task : tasks) {
+			results.add(task.join());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Follows the light or the heavy transitions of a range of the states
+	 * @param states The states
+	 * @param from The index of the first state of the range
+	 * @param to The index after the last state of the range
+	 * @param light true if the light transitions are followed, false if the heavy ones are
+	 * @return Returns the states whose costs were lowered
+	 */
+	private int[] relax(int[] states, int from, int to, boolean light) {
+
+		int[] lowered = new int[16];
+		int size = 0;
+		long followed = 0;
+
+		for (int p = from; p < to; p++) {
+			int state = states[p];
+			double distance = getDistance(state);
+
+			for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+				double cost = graph.getCost(i);
+				if ((cost <= delta) != light) {
+					continue;
+				}
+
+				followed++;
+				int adjacent = graph.getTarget(i);
+
+				if (lower(adjacent, distance + cost)) {
+					if (size == lowered.length) {
+						lowered = Arrays.copyOf(lowered, size * 2);
+					}
+					lowered[size++] = adjacent;
+				}
+			}
+		}
+
+		relaxations.addAndGet(followed);
+
+		return Arrays.copyOf(lowered, size);
+	}
+
+	/**
+	 * Lowers the cost of the state if the provided cost is cheaper
+	 * @param state The state id
+	 * @param distance The cost
+	 * @return Returns true if the cost was lowered, false otherwise
+	 */
+	private boolean lower(int state, double distance) {
+
+		long bits = Double.doubleToLongBits(distance);
+		long current = distances.get(state);
+
+		while (bits < current) {
+			if (distances.compareAndSet(state, current, bits)) {
+				return true;
+			}
+			current = distances.get(state);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Inserts the states of every chunk into the buckets of their current costs
+	 * @param parts The states of every chunk
+	 */
+	private void insertAll(List<int[]> parts) {
+		for (int[] part : parts) {
+			for (int state : part) {
+				insert(state);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the state into the bucket of its current cost
+	 * @param state The state id
+	 */
+	private void insert(int state) {
+
+		int slot = (int) (getBucket(state) % buckets.length);
+
+		if (bucketSizes[slot] == buckets[slot].length) {
+			buckets[slot] = Arrays.copyOf(buckets[slot], bucketSizes[slot] * 2);
+		}
+
+		buckets[slot][bucketSizes[slot]++] = state;
+	}
+
+	/**
+	 * A getter for the index of the bucket of the current cost of the state
+	 * @param state The state id
+	 * @return Returns the index of the bucket
+	 */
+	private long getBucket(int state) {
+		return (long) (getDistance(state) / delta);
+	}
+
+	/**
+	 * A getter for the current cost of the state
+	 * @param state The state id
+	 * @return Returns the cost
+	 */
+	private double getDistance(int state) {
+		return Double.longBitsToDouble(distances.get(state));
+	}
+
+}
@@ -0,0 +1,681 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An implementation of a class which can execute the BFS and UCS search algorithms over a {@link StateSpace}
+ * within a fixed memory budget, spilling the frontier and the closed states to sorted {@link RunFile}s on the disk.
+ * <p>
+ * The frontier is a heap of records of the key, which is the depth for the BFS algorithm and the cost for the UCS
+ * algorithm, two fields which break the ties between equal keys, the state and its previous state. When the heap
+ * is full, it is written to the disk as a run sorted by the records, and when there are too many runs, they are
+ * merged into a single one. The next record is always the smallest one among the top of the heap and the cursors
+ * of the runs, so every run is read sequentially. The UCS algorithm breaks the ties by
+ * {@link StateSpace#getOrder(long)} and then by the order in which the previous states were closed, so it closes
+ * the states in the same order as the {@link UCS} algorithm and finds the same path. The BFS algorithm breaks them
+ * in the opposite order, so it closes the states in the same order as the {@link BFS} algorithm, but it keeps
+ * the first state which reached a state as its previous state, so it finds a path with the fewest transitions.
+ * <p>
+ * The closed states are kept with their previous states in an open addressing hash table, and when it is full,
+ * they are written to the disk as a run sorted by the states. When there are too many runs, they are merged
+ * into a single one. Every state taken out of the frontier is looked up in the table and in the runs, which reads
+ * at most one page of every run. The path is found by looking up the previous states from the final state back
+ * to the starter state.
+ * <p>
+ * A quarter of the memory budget is shared by the pages of all runs which can be open at the same time, which
+ * also limits the number of open files, and the rest is split evenly between the heap and the table
+ * @author Vito Sabalic
+ *
+ */
+public class ExternalSearch {
+
+	/**
+	 * The largest number of runs of the closed states before they are merged
+	 */
+	private static final int MAX_CLOSED_RUNS = 8;
+
+	/**
+	 * The largest number of runs of the frontier before they are merged
+	 */
+	private static final int MAX_FRONTIER_RUNS = 16;
+
+	/**
+	 * The largest number of runs open at the same time, which are the runs of the frontier and of the closed states,
+	 * one more run of each which is written before they are merged, and the runs they are merged into
+	 */
+	private static final int MAX_OPEN_RUNS = MAX_FRONTIER_RUNS + MAX_CLOSED_RUNS + 4;
+
+	/**
+	 * The smallest number of records in a page of a run
+	 */
+	private static final int MIN_PAGE_RECORDS = 1 << 4;
+
+	/**
+	 * The largest number of records in a page of a run
+	 */
+	private static final int MAX_PAGE_RECORDS = 1 << 12;
+
+	/**
+	 * The number of fields of a frontier record, which are the key, the two fields which break the ties,
+	 * the state and the previous state
+	 */
+	private static final int FRONTIER_WIDTH = 5;
+
+	/**
+	 * The number of fields of a closed record, which are the state and the previous state
+	 */
+	private static final int CLOSED_WIDTH = 2;
+
+	private StateSpace space;
+	private String algorithm;
+	private long memoryBudget;
+	private Path spillDirectory;
+
+	private long[] heap;
+	private int heapSize;
+	private int heapCapacity;
+	private long[] sifted;
+	private List<RunFile> frontierRuns;
+
+	private long[] tableStates;
+	private long[] tableParents;
+	private boolean[] occupied;
+	private int tableSize;
+	private int mask;
+	private List<RunFile> closedRuns;
+
+	private long[] record;
+	private long[] entry;
+	private int pageRecords;
+	private int spilledRuns;
+	private long spilledBytes;
+	private int fileCount;
+
+	/**
+	 * A simple constructor
+	 * @param space The state space
+	 * @param algorithm The name of the algorithm, <code>bfs</code> or <code>ucs</code>
+	 * @param memoryBudget The number of bytes of the frontier and the closed states kept in the memory
+	 * @param spillDirectory The directory of the run files, created if it does not exist, or an empty string for
+	 * the temporary directory
+	 */
+	public ExternalSearch(StateSpace space, String algorithm, long memoryBudget, String spillDirectory) {
+
+		this.space = space;
+		this.algorithm = algorithm;
+		this.memoryBudget = memoryBudget;
+		this.spillDirectory = Paths.get(spillDirectory.isEmpty() ? System.getProperty("java.io.tmpdir") : spillDirectory);
+	}
+
+	/**
+	 * Checks whether the algorithm with the provided name can search within a memory budget
+	 * @param algorithm The name of the algorithm
+	 * @return Returns true if it can, false otherwise
+	 */
+	public static boolean supports(String algorithm) {
+		return algorithm.equals("bfs") || algorithm.equals("ucs");
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		try {
+			System.out.println(search());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Searches for the path from the starter state to any of the destination states
+	 * @return Returns the result of the search
+	 * @throws IOException If a run cannot be written or read
+	 */
+	public SearchResult search() throws IOException {
+
+		boolean breadthFirst = algorithm.equals("bfs");
+		String header = breadthFirst ? "# BFS-EXTERNAL" : "# UCS-EXTERNAL";
+
+		pageRecords = (int) Math.max(MIN_PAGE_RECORDS, Math.min(MAX_PAGE_RECORDS,
+				memoryBudget / 4 / MAX_OPEN_RUNS / RunFile.calculatePageBytes(FRONTIER_WIDTH, 1)));
+		long searchBudget = memoryBudget - memoryBudget / 4;
+
+		heapCapacity = (int) Math.max(1 << 6, Math.min(Integer.MAX_VALUE / FRONTIER_WIDTH, searchBudget / 2 / (FRONTIER_WIDTH * Long.BYTES)));
+		heap = new long[heapCapacity * FRONTIER_WIDTH];
+		heapSize = 0;
+		sifted = new long[FRONTIER_WIDTH];
+		frontierRuns = new ArrayList<>();
+
+		int tableCapacity = Integer.highestOneBit((int) Math.max(1 << 7, Math.min(1 << 30, searchBudget / 2 / (2 * Long.BYTES + 1))));
+		tableStates = new long[tableCapacity];
+		tableParents = new long[tableCapacity];
+		occupied = new boolean[tableCapacity];
+		tableSize = 0;
+		mask = tableCapacity - 1;
+		closedRuns = new ArrayList<>();
+
+		record = new long[FRONTIER_WIDTH];
+		entry = new long[FRONTIER_WIDTH];
+		spilledRuns = 0;
+		spilledBytes = 0;
+
+		Files.createDirectories(spillDirectory);
+		Path directory = Files.createTempDirectory(spillDirectory, "search-");
+		long starter = space.getStarter();
+		long closedCount = 0;
+		long layerKey = -1;
+		int layers = 0;
+
+		try {
+			push(0, 0, 0, starter, starter, directory);
+
+			while (poll()) {
+
+				long key = record[0];
+				long state = record[3];
+				long parent = record[4];
+
+				if (key != layerKey) {
+					layerKey = key;
+					layers++;
+				}
+
+				if (isClosed(state)) {
+					continue;
+				}
+
+				if (space.isGoal(state)) {
+					close(state, parent, directory);
+					String[] path = calculatePath(state);
+					double cost = breadthFirst ? calculateCost(path.length, state) : Double.longBitsToDouble(key);
+
+					return new SearchResult(header, true, (int) Math.min(closedCount + 1, Integer.MAX_VALUE), path, cost)
+							.addStatistic("LAYERS", layers)
+							.addStatistic("MEMORY_BUDGET", formatBytes(memoryBudget))
+							.addStatistic("SPILLED_RUNS", spilledRuns)
+							.addStatistic("SPILLED_BYTES", formatBytes(spilledBytes));
+				}
+
+				close(state, parent, directory);
+				long sequence = closedCount++;
+
+				double distance = breadthFirst ? 0 : Double.longBitsToDouble(key);
+				IOException[] failure = new IOException[1];
+
+				space.expand(state, (successor, cost) -> {
+					if (failure[0] != null || find(successor) != -1) {
+						return;
+					}
+
+					try {
+						long order = space.getOrder(successor) ^ Long.MIN_VALUE;
+
+						if (breadthFirst) {
+							push(key + 1, sequence, order, successor, state, directory);
+						} else {
+							push(Double.doubleToLongBits(distance + cost), order, sequence, successor, state, directory);
+						}
+					} catch (IOException e) {
+						failure[0] = e;
+					}
+				});
+
+				if (failure[0] != null) {
+					throw failure[0];
+				}
+			}
+
+			return new SearchResult(header, false, (int) Math.min(closedCount, Integer.MAX_VALUE), new String[0], 0)
+					.addStatistic("LAYERS", layers)
+					.addStatistic("MEMORY_BUDGET", formatBytes(memoryBudget))
+					.addStatistic("SPILLED_RUNS", spilledRuns)
+					.addStatistic("SPILLED_BYTES", formatBytes(spilledBytes));
+		} finally {
+			for (RunFile run : frontierRuns) {
+				run.close();
+			}
+			for (RunFile run : closedRuns) {
+				run.close();
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * Adds a record to the frontier, and writes the whole heap to a run first if it is full
+	 * @param key The key of the record
+	 * @param tie The field which breaks the ties between equal keys
+	 * @param nextTie The field which breaks the ties between equal keys and ties
+	 * @param state The encoding of the state
+	 * @param parent The encoding of the previous state
+	 * @param directory The directory of the runs
+	 * @throws IOException If the run cannot be written
+	 */
+	private void push(long key, long tie, long nextTie, long state, long parent, Path directory) throws IOException {
+
+		if (heapSize == heapCapacity) {
+			RunFile run = createRun(directory, FRONTIER_WIDTH);
+
+			while (heapSize > 0) {
+				run.append(heap, 0);
+				removeTop();
+			}
+
+			finishRun(run);
+			frontierRuns.add(run);
+
+			if (frontierRuns.size() > MAX_FRONTIER_RUNS) {
+				RunFile merged = merge(frontierRuns, FRONTIER_WIDTH, directory);
+				frontierRuns.clear();
+				frontierRuns.add(merged);
+			}
+		}
+
+		entry[0] = key;
+		entry[1] = tie;
+		entry[2] = nextTie;
+		entry[3] = state;
+		entry[4] = parent;
+
+		int i = heapSize++;
+		while (i > 0) {
+			int parentIndex = (i - 1) >>> 1;
+			if (compare(entry, 0, parentIndex) >= 0) {
+				break;
+			}
+
+			System.arraycopy(heap, parentIndex * FRONTIER_WIDTH, heap, i * FRONTIER_WIDTH, FRONTIER_WIDTH);
+			i = parentIndex;
+		}
+
+		System.arraycopy(entry, 0, heap, i * FRONTIER_WIDTH, FRONTIER_WIDTH);
+	}
+
+	/**
+	 * Takes the smallest record out of the heap and the runs of the frontier into the current record
+	 * @return Returns true if there was a record, false if the frontier is empty
+	 * @throws IOException If a run cannot be read
+	 */
+	private boolean poll() throws IOException {
+
+		RunFile smallest = null;
+
+		for (int i = frontierRuns.size() - 1; i >= 0; i--) {
+			RunFile run = frontierRuns.get(i);
+
+			if (!run.hasNext()) {
+				run.close();
+				frontierRuns.remove(i);
+			} else if (smallest == null || compareRuns(run, smallest, FRONTIER_WIDTH) < 0) {
+				smallest = run;
+			}
+		}
+
+		if (smallest != null) {
+			for (int field = 0; field < FRONTIER_WIDTH; field++) {
+				record[field] = smallest.peek(field);
+			}
+
+			if (heapSize == 0 || compare(record, 0, 0) < 0) {
+				smallest.advance();
+				return true;
+			}
+		}
+
+		if (heapSize == 0) {
+			return false;
+		}
+
+		System.arraycopy(heap, 0, record, 0, FRONTIER_WIDTH);
+		removeTop();
+
+		return true;
+	}
+
+	/**
+	 * Removes the smallest record of the heap
+	 */
+	private void removeTop() {
+
+		heapSize--;
+		if (heapSize == 0) {
+			return;
+		}
+
+		System.arraycopy(heap, heapSize * FRONTIER_WIDTH, sifted, 0, FRONTIER_WIDTH);
+		int i = 0;
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+
+			if (child + 1 < heapSize && compare(heap, (child + 1) * FRONTIER_WIDTH, child) < 0) {
+				child++;
+			}
+
+			if (compare(sifted, 0, child) <= 0) {
+				break;
+			}
+
+			System.arraycopy(heap, child * FRONTIER_WIDTH, heap, i * FRONTIER_WIDTH, FRONTIER_WIDTH);
+			i = child;
+		}
+
+		System.arraycopy(sifted, 0, heap, i * FRONTIER_WIDTH, FRONTIER_WIDTH);
+	}
+
+	/**
+	 * Compares a record with the record at the provided position of the heap
+	 * @param records The array which contains the record
+	 * @param offset The index of the first field of the record in the array
+	 * @param position The position in the heap
+	 * @return Returns a negative number, zero or a positive number if the record is smaller, equal to or larger
+	 * than the one in the heap
+	 */
+	private int compare(long[] records, int offset, int position) {
+
+		int heapOffset = position * FRONTIER_WIDTH;
+
+		for (int field = 0; field < FRONTIER_WIDTH; field++) {
+			int compared = Long.compare(records[offset + field], heap[heapOffset + field]);
+			if (compared != 0) {
+				return compared;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Compares the records at the cursors of two runs
+	 * @param run1 The first run
+	 * @param run2 The second run
+	 * @param width The number of fields of every record
+	 * @return Returns a negative number, zero or a positive number if the first record is smaller, equal to or larger
+	 * than the second one
+	 * @throws IOException If a run cannot be read
+	 */
+	private static int compareRuns(RunFile run1, RunFile run2, int width) throws IOException {
+
+		for (int field = 0; field < width; field++) {
+			int compared = Long.compare(run1.peek(field), run2.peek(field));
+			if (compared != 0) {
+				return compared;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Checks whether the state is closed, in the table or in any of the runs
+	 * @param state The encoding of the state
+	 * @return Returns true if it is closed, false otherwise
+	 * @throws IOException If a run cannot be read
+	 */
+	private boolean isClosed(long state) throws IOException {
+
+		if (find(state) != -1) {
+			return true;
+		}
+
+		for (RunFile run : closedRuns) {
+			if (run.find(state) != -1) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds the closed state to the table, and writes the whole table to a run first if it is full
+	 * @param state The encoding of the state
+	 * @param parent The encoding of the previous state
+	 * @param directory The directory of the runs
+	 * @throws IOException If the run cannot be written
+	 */
+	private void close(long state, long parent, Path directory) throws IOException {
+
+		if (2 * (tableSize + 1) > tableStates.length) {
+			spillTable(directory);
+		}
+
+		int slot = hash(state) & mask;
+		while (occupied[slot]) {
+			slot = (slot + 1) & mask;
+		}
+
+		occupied[slot] = true;
+		tableStates[slot] = state;
+		tableParents[slot] = parent;
+		tableSize++;
+	}
+
+	/**
+	 * Finds the slot of the state in the table
+	 * @param state The encoding of the state
+	 * @return Returns the slot, or -1 if the state is not in the table
+	 */
+	private int find(long state) {
+
+		for (int slot = hash(state) & mask; occupied[slot]; slot = (slot + 1) & mask) {
+			if (tableStates[slot] == state) {
+				return slot;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Writes all states of the table to a run sorted by the states and empties the table, then merges
+	 * all runs of the closed states if there are too many of them
+	 * @param directory The directory of the runs
+	 * @throws IOException If a run cannot be written or read
+	 */
+	private void spillTable(Path directory) throws IOException {
+
+		long[] states = new long[tableSize];
+		int count = 0;
+		for (int slot = 0; slot < tableStates.length; slot++) {
+			if (occupied[slot]) {
+				states[count++] = tableStates[slot];
+			}
+		}
+
+		Arrays.sort(states);
+
+		RunFile run = createRun(directory, CLOSED_WIDTH);
+		long[] closed = new long[CLOSED_WIDTH];
+		for (long state : states) {
+			closed[0] = state;
+			closed[1] = tableParents[find(state)];
+			run.append(closed, 0);
+		}
+		finishRun(run);
+		closedRuns.add(run);
+
+		Arrays.fill(occupied, false);
+		tableSize = 0;
+
+		if (closedRuns.size() > MAX_CLOSED_RUNS) {
+			RunFile merged = merge(closedRuns, CLOSED_WIDTH, directory);
+			closedRuns.clear();
+			closedRuns.add(merged);
+		}
+	}
+
+	/**
+	 * Merges the rest of the records of the runs, from their cursors on, into a new run, and closes them
+	 * @param runs The runs
+	 * @param width The number of fields of every record
+	 * @param directory The directory of the runs
+	 * @return Returns the merged run
+	 * @throws IOException If a run cannot be written or read
+	 */
+	private RunFile merge(List<RunFile> runs, int width, Path directory) throws IOException {
+
+		RunFile merged = createRun(directory, width);
+		long[] merging = new long[width];
+
+		while (true) {
+			RunFile smallest = null;
+			for (RunFile run : runs) {
+				if (run.hasNext() && (smallest == null || compareRuns(run, smallest, width) < 0)) {
+					smallest = run;
+				}
+			}
+
+			if (smallest == null) {
+				break;
+			}
+
+			for (int field = 0; field < width; field++) {
+				merging[field] = smallest.peek(field);
+			}
+			merged.append(merging, 0);
+			smallest.advance();
+		}
+
+		finishRun(merged);
+		for (RunFile run : runs) {
+			run.close();
+		}
+
+		return merged;
+	}
+
+	/**
+	 * Finds the previous state of the closed state, in the table or in the runs
+	 * @param state The encoding of the state
+	 * @return Returns the encoding of the previous state
+	 * @throws IOException If a run cannot be read
+	 */
+	private long findParent(long state) throws IOException {
+
+		int slot = find(state);
+		if (slot != -1) {
+			return tableParents[slot];
+		}
+
+		for (RunFile run : closedRuns) {
+			long index = run.find(state);
+			if (index != -1) {
+				return run.get(index, 1);
+			}
+		}
+
+		throw new IOException("The closed state " + space.getName(state) + " was not found");
+	}
+
+	/**
+	 * Calculates the path from the starter state to the final state, by looking up the previous states
+	 * @param finalState The encoding of the final state
+	 * @return Returns the names of the states of the path
+	 * @throws IOException If a run cannot be read
+	 */
+	private String[] calculatePath(long finalState) throws IOException {
+
+		List<String> names = new ArrayList<>();
+		long state = finalState;
+
+		while (true) {
+			names.add(space.getName(state));
+			long parent = findParent(state);
+			if (parent == state) {
+				break;
+			}
+			state = parent;
+		}
+
+		String[] path = new String[names.size()];
+		for (int i = 0; i < path.length; i++) {
+			path[i] = names.get(path.length - 1 - i);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Calculates the cost of the path to the final state found by the BFS algorithm, using the cheapest transition
+	 * between every two consecutive states of the path
+	 * @param length The number of states of the path
+	 * @param finalState The encoding of the final state
+	 * @return Returns the cost
+	 * @throws IOException If a run cannot be read
+	 */
+	private double calculateCost(int length, long finalState) throws IOException {
+
+		double total = 0;
+		long state = finalState;
+
+		for (int i = 1; i < length; i++) {
+			long parent = findParent(state);
+			long target = state;
+			double[] cheapest = { Double.MAX_VALUE };
+
+			space.expand(parent, (successor, cost) -> {
+				if (successor == target) {
+					cheapest[0] = Math.min(cheapest[0], cost);
+				}
+			});
+
+			total += cheapest[0];
+			state = parent;
+		}
+
+		return total;
+	}
+
+	/**
+	 * Creates an empty run in a new file of the directory
+	 * @param directory The directory
+	 * @param width The number of fields of every record
+	 * @return Returns the run
+	 * @throws IOException If the file cannot be created
+	 */
+	private RunFile createRun(Path directory, int width) throws IOException {
+		return new RunFile(directory.resolve("run-" + fileCount++), width, pageRecords);
+	}
+
+	/**
+	 * Writes the rest of the run and counts it as spilled
+	 * @param run The run
+	 * @throws IOException If the run cannot be written
+	 */
+	private void finishRun(RunFile run) throws IOException {
+		run.flush();
+		spilledRuns++;
+		spilledBytes += run.getBytes();
+	}
+
+	/**
+	 * Formats the number of bytes in megabytes
+	 * @param bytes The number of bytes
+	 * @return Returns the formatted number
+	 */
+	private static String formatBytes(long bytes) {
+		return String.format("%.2f MB", bytes / (1024.0 * 1024.0));
+	}
+
+	/**
+	 * Spreads the bits of the state encoding over the whole hash
+	 * @param state The encoding of the state
+	 * @return Returns the hash
+	 */
+	private static int hash(long state) {
+		long mixed = state * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32));
+	}
+
+}
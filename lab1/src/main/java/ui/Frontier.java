@@ -0,0 +1,78 @@
+package ui;
+
+/**
+ * An interface of a priority queue of state ids used as the frontier of the UCS and A* search algorithms.
+ * Every state is contained in the frontier at most once, and states with equal keys are ordered
+ * alphabetically by their names
+ * @author Vito Sabalic
+ *
+ */
+public interface Frontier {
+
+	/**
+	 * The largest transition cost or heuristic for which the {@link BucketQueue} is used
+	 */
+	static final double MAX_BUCKET_KEY_SPAN = 1 << 16;
+
+	/**
+	 * Checks whether the frontier is empty
+	 * @return Returns true if it is empty, false otherwise
+	 */
+	boolean isEmpty();
+
+	/**
+	 * A getter for the number of states in the frontier
+	 * @return Returns the number of states
+	 */
+	int size();
+
+	/**
+	 * Checks whether the frontier contains the state
+	 * @param state The state id
+	 * @return Returns true if it is contained, false otherwise
+	 */
+	boolean contains(int state);
+
+	/**
+	 * Adds the state with the provided key to the frontier. If the state is already contained in
+	 * the frontier, its key is decreased to the provided key instead
+	 * @param state The state id
+	 * @param key The key
+	 */
+	void push(int state, double key);
+
+	/**
+	 * Removes the state with the smallest key from the frontier
+	 * @return Returns the removed state id
+	 */
+	int poll();
+
+	/**
+	 * A getter for the smallest key of the frontier, which must not be empty
+	 * @return Returns the smallest key
+	 */
+	double peekKey();
+
+	/**
+	 * Removes all states from the frontier
+	 */
+	void clear();
+
+	/**
+	 * Creates the fastest frontier for the provided graph. A {@link BucketQueue} is used if all
+	 * keys are guaranteed to be non-negative integers of a limited range, and a {@link StateHeap} otherwise
+	 * @param graph The graph whose states are stored in the frontier
+	 * @param heuristic true if the keys include the heuristic of the state, false otherwise
+	 * @return Returns the created frontier
+	 */
+	static Frontier create(Graph graph, boolean heuristic) {
+
+		boolean integerKeys = graph.hasIntegerCosts() && graph.getMaxCost() <= MAX_BUCKET_KEY_SPAN;
+		if (heuristic) {
+			integerKeys &= graph.hasIntegerHeuristics() && graph.getMaxHeuristic() <= MAX_BUCKET_KEY_SPAN;
+		}
+
+		return integerKeys ? new BucketQueue(graph) : new StateHeap(graph);
+	}
+
+}
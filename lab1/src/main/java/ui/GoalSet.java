@@ -0,0 +1,46 @@
+package ui;
+
+/**
+ * An immutable set of destination states, kept as a bitset over the state ids, so that checking whether
+ * a state is a destination state takes constant time regardless of the number of destination states.
+ * It is safe to share between threads
+ * @author Vito Sabalic
+ *
+ */
+public class GoalSet {
+
+	private final int[] states;
+	private final long[] bits;
+
+	/**
+	 * A simple constructor
+	 * @param stateCount The number of states of the graph
+	 * @param states The destination state ids
+	 */
+	public GoalSet(int stateCount, int[] states) {
+		this.states = states;
+		this.bits = new long[(stateCount + 63) >>> 6];
+
+		for (int state : states) {
+			bits[state >>> 6] |= 1L << state;
+		}
+	}
+
+	/**
+	 * Checks whether the state is a destination state
+	 * @param state The state id
+	 * @return Returns true if it is, false otherwise
+	 */
+	public boolean contains(int state) {
+		return (bits[state >>> 6] & 1L << state) != 0;
+	}
+
+	/**
+	 * A getter for the destination states the set was created from, the returned array must not be modified
+	 * @return Returns the destination state ids
+	 */
+	public int[] getStates() {
+		return states;
+	}
+
+}
@@ -0,0 +1,509 @@
+package ui;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A compact representation of a state space graph. Every state is identified
+ * by a dense int id, and the transitions are stored in the compressed sparse
+ * row format: the transitions of the state <code>s</code> occupy the indices
+ * from <code>getFirstTransition(s)</code> (inclusive) to
+ * <code>getLastTransition(s)</code> (exclusive) of the target and cost arrays.
+ * A graph is immutable once it is built, so any number of searches can share it concurrently,
+ * each keeping its own state in a {@link SearchContext}. Every state also has a rank, its position
+ * in the alphabetical order of the state names, which the searches compare instead of the names
+ * to break ties between equally good states
+ *
+ * @author Vito Sabalic
+ *
+ */
+public class Graph {
+
+	private final String[] names;
+	private final byte[] namePool;
+	private final int[] nameOffsets;
+	private final int[] ranks;
+	private Map<String, Integer> ids;
+	private Graph reverse;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] costs;
+	private final int[] listedPositions;
+	private final double[] heuristics;
+	private final boolean integerCosts;
+	private final boolean integerHeuristics;
+	private final double maxCost;
+	private final double maxHeuristic;
+
+	/**
+	 * A complex constructor, graphs are created through the {@link GraphBuilder}
+	 * @param names The names of the states, indexed by state id
+	 * @param ids The state ids, mapped by state name
+	 * @param offsets The offsets of the first transition of each state, with one extra trailing entry
+	 * @param targets The target states of all transitions
+	 * @param costs The costs of all transitions
+	 * @param heuristics The heuristics of the states, indexed by state id
+	 * @param ranks The ranks of the states, indexed by state id
+	 * @param listedPositions The positions of the transitions among the transitions of their states in the order
+	 * in which they were listed, or null if they are stored in that order
+	 */
+	Graph(String[] names, Map<String, Integer> ids, int[] offsets, int[] targets, double[] costs,
+			double[] heuristics, int[] ranks, int[] listedPositions) {
+		this(names, null, null, ranks, ids, offsets, targets, costs, listedPositions, heuristics);
+	}
+
+	/**
+	 * A complex constructor used by the {@link GraphSnapshot}, the state names are kept
+	 * encoded and decoded only when they are needed
+	 * @param namePool The UTF-8 encoded names of all states
+	 * @param nameOffsets The offsets of the name of each state in the name pool, with one extra trailing entry
+	 * @param offsets The offsets of the first transition of each state, with one extra trailing entry
+	 * @param targets The target states of all transitions
+	 * @param costs The costs of all transitions
+	 * @param heuristics The heuristics of the states, indexed by state id
+	 * @param ranks The ranks of the states, indexed by state id, or null if they should be calculated
+	 * @param listedPositions The positions of the transitions among the transitions of their states in the order
+	 * in which they were listed, or null if they are stored in that order
+	 */
+	Graph(byte[] namePool, int[] nameOffsets, int[] offsets, int[] targets, double[] costs, double[] heuristics,
+			int[] ranks, int[] listedPositions) {
+		this(new String[nameOffsets.length - 1], namePool, nameOffsets, ranks, null, offsets, targets, costs,
+				listedPositions, heuristics);
+	}
+
+	/**
+	 * The constructor which all other constructors delegate to
+	 * @param names The names of the states, indexed by state id, or an array of nulls if they are kept encoded
+	 * @param namePool The UTF-8 encoded names of all states, or null if they are not kept encoded
+	 * @param nameOffsets The offsets of the name of each state in the name pool, or null
+	 * @param ranks The ranks of the states, indexed by state id, or null if they should be calculated
+	 * @param ids The state ids, mapped by state name, or null if they should be created when first needed
+	 * @param offsets The offsets of the first transition of each state, with one extra trailing entry
+	 * @param targets The target states of all transitions
+	 * @param costs The costs of all transitions
+	 * @param listedPositions The positions of the transitions among the transitions of their states in the order
+	 * in which they were listed, or null if they are stored in that order
+	 * @param heuristics The heuristics of the states, indexed by state id
+	 */
+	private Graph(String[] names, byte[] namePool, int[] nameOffsets, int[] ranks, Map<String, Integer> ids,
+			int[] offsets, int[] targets, double[] costs, int[] listedPositions, double[] heuristics) {
+		this.names = names;
+		this.namePool = namePool;
+		this.nameOffsets = nameOffsets;
+		this.ranks = ranks != null ? ranks : calculateRanks(names.length, this::getName);
+		this.ids = ids;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.costs = costs;
+		this.listedPositions = listedPositions;
+		this.heuristics = heuristics;
+		this.integerCosts = isNonNegativeIntegers(costs);
+		this.integerHeuristics = isNonNegativeIntegers(heuristics);
+		this.maxCost = max(costs);
+		this.maxHeuristic = max(heuristics);
+	}
+
+	/**
+	 * Creates a graph with the same states and transitions, but different heuristics
+	 * @param heuristics The heuristics of the states, indexed by state id
+	 * @return Returns the created graph
+	 */
+	public Graph withHeuristics(double[] heuristics) {
+
+		return new Graph(names, namePool, nameOffsets, ranks, ids, offsets, targets, costs, listedPositions,
+				heuristics);
+	}
+
+	/**
+	 * Creates a graph with the same states and heuristics, but different transitions. The listed positions
+	 * of the transitions are kept only if the offsets and the targets are the same arrays
+	 * @param offsets The offsets of the first transition of each state, with one extra trailing entry
+	 * @param targets The target states of all transitions
+	 * @param costs The costs of all transitions
+	 * @return Returns the created graph
+	 */
+	Graph withTransitions(int[] offsets, int[] targets, double[] costs) {
+
+		boolean sameTargets = offsets == this.offsets && targets == this.targets;
+
+		return new Graph(names, namePool, nameOffsets, ranks, ids, offsets, targets, costs,
+				sameTargets ? listedPositions : null, heuristics);
+	}
+
+	/**
+	 * Checks whether all provided values are non-negative integers
+	 * @param values The values
+	 * @return Returns true if all values are non-negative integers, false otherwise
+	 */
+	private static boolean isNonNegativeIntegers(double[] values) {
+		for (double value : values) {
+			if (value < 0 || value != Math.rint(value)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finds the largest of the provided values
+	 * @param values The values
+	 * @return Returns the largest value, or 0 if there are no values
+	 */
+	private static double max(double[] values) {
+		double max = 0;
+		for (double value : values) {
+			max = Math.max(max, value);
+		}
+
+		return max;
+	}
+
+	/**
+	 * A getter for the number of states
+	 * @return Returns the number of states
+	 */
+	public int getStateCount() {
+		return names.length;
+	}
+
+	/**
+	 * A getter for the number of transitions
+	 * @return Returns the number of transitions
+	 */
+	public int getTransitionCount() {
+		return targets.length;
+	}
+
+	/**
+	 * A getter for the name of the state
+	 * @param state The state id
+	 * @return Returns the name
+	 */
+	public String getName(int state) {
+		String name = names[state];
+
+		if (name == null) {
+			name = new String(namePool, nameOffsets[state], nameOffsets[state + 1] - nameOffsets[state],
+					StandardCharsets.UTF_8);
+			names[state] = name;
+		}
+
+		return name;
+	}
+
+	/**
+	 * A getter for the id of the state with the provided name
+	 * @param name The name of the state
+	 * @return Returns the state id, or -1 if no such state exists
+	 */
+	public int getId(String name) {
+		Integer id = getIds().get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * A getter for the state ids mapped by state name, which are created when they are first needed
+	 * @return Returns the map of state ids
+	 */
+	private synchronized Map<String, Integer> getIds() {
+
+		if (ids == null) {
+			ids = new HashMap<>();
+			for (int i = 0; i < names.length; i++) {
+				ids.put(getName(i), i);
+			}
+		}
+
+		return ids;
+	}
+
+	/**
+	 * A getter for the index of the first transition of the state
+	 * @param state The state id
+	 * @return Returns the index of the first transition
+	 */
+	public int getFirstTransition(int state) {
+		return offsets[state];
+	}
+
+	/**
+	 * A getter for the index after the last transition of the state
+	 * @param state The state id
+	 * @return Returns the index after the last transition
+	 */
+	public int getLastTransition(int state) {
+		return offsets[state + 1];
+	}
+
+	/**
+	 * A getter for the target state of the transition
+	 * @param transition The transition index
+	 * @return Returns the target state id
+	 */
+	public int getTarget(int transition) {
+		return targets[transition];
+	}
+
+	/**
+	 * A getter for the cost of the transition
+	 * @param transition The transition index
+	 * @return Returns the cost
+	 */
+	public double getCost(int transition) {
+		return costs[transition];
+	}
+
+	/**
+	 * A getter for the position of the transition among the transitions of its state in the order in which
+	 * they were listed in the state space, which can differ from the order in which they are stored
+	 * @param state The state id
+	 * @param transition The transition index
+	 * @return Returns the position
+	 */
+	public int getListedPosition(int state, int transition) {
+		return listedPositions == null ? transition - offsets[state] : listedPositions[transition];
+	}
+
+	/**
+	 * A getter for the heuristic of the state
+	 * @param state The state id
+	 * @return Returns the heuristic
+	 */
+	public double getHeuristic(int state) {
+		return heuristics[state];
+	}
+
+	/**
+	 * Checks whether all transition costs are non-negative integers
+	 * @return Returns true if they are, false otherwise
+	 */
+	public boolean hasIntegerCosts() {
+		return integerCosts;
+	}
+
+	/**
+	 * Checks whether all heuristics are non-negative integers
+	 * @return Returns true if they are, false otherwise
+	 */
+	public boolean hasIntegerHeuristics() {
+		return integerHeuristics;
+	}
+
+	/**
+	 * A getter for the largest transition cost
+	 * @return Returns the largest transition cost
+	 */
+	public double getMaxCost() {
+		return maxCost;
+	}
+
+	/**
+	 * A getter for the largest heuristic
+	 * @return Returns the largest heuristic
+	 */
+	public double getMaxHeuristic() {
+		return maxHeuristic;
+	}
+
+	/**
+	 * Finds the cost of the transition between the two provided states
+	 * @param from The state the transition starts in
+	 * @param to The state the transition ends in
+	 * @return Returns the cost, or {@link Double#NaN} if no such transition exists
+	 */
+	public double findCost(int from, int to) {
+		for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+			if (targets[i] == to) {
+				return costs[i];
+			}
+		}
+
+		return Double.NaN;
+	}
+
+	/**
+	 * Calculates the total cost of the path, adding the costs of the transitions from the first state on
+	 * @param path The path of states
+	 * @return Returns the total cost
+	 */
+	public double calculateCost(int[] path) {
+
+		double cost = 0;
+
+		for (int i = 1; i < path.length; i++) {
+			cost += findCost(path[i - 1], path[i]);
+		}
+
+		return cost;
+	}
+
+	/**
+	 * Calculates the total cost of the path, adding the costs of the transitions from the last state on,
+	 * which is the order the BFS search algorithms sum them in
+	 * @param path The path of states
+	 * @return Returns the total cost
+	 */
+	public double calculateCostBackwards(int[] path) {
+
+		double cost = 0;
+
+		for (int i = path.length - 1; i > 0; i--) {
+			cost += findCost(path[i - 1], path[i]);
+		}
+
+		return cost;
+	}
+
+	/**
+	 * A getter for the reverse graph, which has the same states and heuristics, but every transition
+	 * goes in the opposite direction. It is created when it is first needed
+	 * @return Returns the reverse graph
+	 */
+	public synchronized Graph getReverse() {
+
+		if (reverse == null) {
+			int stateCount = getStateCount();
+			int[] reverseOffsets = new int[stateCount + 1];
+
+			for (int target : targets) {
+				reverseOffsets[target + 1]++;
+			}
+
+			for (int i = 0; i < stateCount; i++) {
+				reverseOffsets[i + 1] += reverseOffsets[i];
+			}
+
+			int[] next = Arrays.copyOf(reverseOffsets, stateCount);
+			int[] reverseTargets = new int[targets.length];
+			double[] reverseCosts = new double[targets.length];
+
+			for (int state = 0; state < stateCount; state++) {
+				for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+					int position = next[targets[i]]++;
+					reverseTargets[position] = state;
+					reverseCosts[position] = costs[i];
+				}
+			}
+
+			reverse = new Graph(names, namePool, nameOffsets, ranks, ids, reverseOffsets, reverseTargets,
+					reverseCosts, null, heuristics);
+			reverse.reverse = this;
+		}
+
+		return reverse;
+	}
+
+	/**
+	 * A getter for the rank of the state, its position in the alphabetical order of the state names
+	 * @param state The state id
+	 * @return Returns the rank
+	 */
+	public int getRank(int state) {
+		return ranks[state];
+	}
+
+	/**
+	 * Creates an array of all state ids sorted by the state names
+	 * @return Returns the sorted state ids
+	 */
+	public int[] getStatesByName() {
+
+		int[] sorted = new int[ranks.length];
+		for (int i = 0; i < ranks.length; i++) {
+			sorted[ranks[i]] = i;
+		}
+
+		return sorted;
+	}
+
+	/**
+	 * Calculates the ranks of the states by sorting them by their names once
+	 * @param stateCount The number of states
+	 * @param names The function which returns the name of a state
+	 * @return Returns the ranks, indexed by state id
+	 */
+	static int[] calculateRanks(int stateCount, IntFunction<String> names) {
+
+		Integer[] states = new Integer[stateCount];
+		for (int i = 0; i < stateCount; i++) {
+			states[i] = i;
+		}
+
+		Arrays.parallelSort(states, (o1, o2) -> names.apply(o1).compareTo(names.apply(o2)));
+
+		int[] ranks = new int[stateCount];
+		for (int i = 0; i < stateCount; i++) {
+			ranks[states[i]] = i;
+		}
+
+		return ranks;
+	}
+
+	/**
+	 * A getter for the UTF-8 encoded name of the state
+	 * @param state The state id
+	 * @return Returns the encoded name
+	 */
+	byte[] getEncodedName(int state) {
+
+		if (namePool == null) {
+			return names[state].getBytes(StandardCharsets.UTF_8);
+		}
+
+		return Arrays.copyOfRange(namePool, nameOffsets[state], nameOffsets[state + 1]);
+	}
+
+	/**
+	 * A getter for the transition offsets of all states, the returned array must not be modified
+	 * @return Returns the transition offsets
+	 */
+	int[] getOffsets() {
+		return offsets;
+	}
+
+	/**
+	 * A getter for the target states of all transitions, the returned array must not be modified
+	 * @return Returns the target states
+	 */
+	int[] getTargets() {
+		return targets;
+	}
+
+	/**
+	 * A getter for the costs of all transitions, the returned array must not be modified
+	 * @return Returns the costs
+	 */
+	double[] getCosts() {
+		return costs;
+	}
+
+	/**
+	 * A getter for the ranks of all states, the returned array must not be modified
+	 * @return Returns the ranks
+	 */
+	int[] getRanks() {
+		return ranks;
+	}
+
+	/**
+	 * A getter for the listed positions of all transitions, the returned array must not be modified
+	 * @return Returns the listed positions, or null if the transitions are stored in the order in which they
+	 * were listed
+	 */
+	int[] getListedPositions() {
+		return listedPositions;
+	}
+
+	/**
+	 * A getter for the heuristics of all states, the returned array must not be modified
+	 * @return Returns the heuristics
+	 */
+	double[] getHeuristics() {
+		return heuristics;
+	}
+
+}
@@ -0,0 +1,189 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class which collects states, transitions and heuristics and builds a {@link Graph} out of them
+ * @author Vito Sabalic
+ *
+ */
+public class GraphBuilder {
+
+	private Map<String, Integer> ids;
+	private List<String> names;
+	private int[] sources;
+	private int[] targets;
+	private double[] costs;
+	private int transitionCount;
+	private double[] heuristics;
+
+	/**
+	 * A simple constructor
+	 */
+	public GraphBuilder() {
+		this.ids = new HashMap<>();
+		this.names = new ArrayList<>();
+		this.sources = new int[16];
+		this.targets = new int[16];
+		this.costs = new double[16];
+		this.transitionCount = 0;
+		this.heuristics = new double[16];
+	}
+
+	/**
+	 * Returns the id of the state with the provided name, creating a new state if it does not exist yet
+	 * @param name The name of the state
+	 * @return Returns the state id
+	 */
+	public int intern(String name) {
+		Integer id = ids.get(name);
+
+		if (id == null) {
+			id = names.size();
+			ids.put(name, id);
+			names.add(name);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Adds a transition between the two provided states
+	 * @param source The state the transition starts in
+	 * @param target The state the transition ends in
+	 * @param cost The cost of the transition
+	 */
+	public void addTransition(int source, int target, double cost) {
+
+		if (transitionCount == sources.length) {
+			sources = Arrays.copyOf(sources, transitionCount * 2);
+			targets = Arrays.copyOf(targets, transitionCount * 2);
+			costs = Arrays.copyOf(costs, transitionCount * 2);
+		}
+
+		sources[transitionCount] = source;
+		targets[transitionCount] = target;
+		costs[transitionCount] = cost;
+		transitionCount++;
+	}
+
+	/**
+	 * Sets the heuristic of the provided state
+	 * @param state The state id
+	 * @param heuristic The heuristic
+	 */
+	public void setHeuristic(int state, double heuristic) {
+
+		if (state >= heuristics.length) {
+			heuristics = Arrays.copyOf(heuristics, Math.max(state + 1, heuristics.length * 2));
+		}
+
+		heuristics[state] = heuristic;
+	}
+
+	/**
+	 * Builds the graph and ranks its states by their names. The transitions of every state are sorted
+	 * by the ranks of their target states, while the transitions to the same state keep the order in which
+	 * they were added, and the graph keeps the positions in which they were added
+	 * @return Returns the built graph
+	 */
+	public Graph build() {
+
+		int stateCount = names.size();
+		int[] offsets = new int[stateCount + 1];
+
+		for (int i = 0; i < transitionCount; i++) {
+			offsets[sources[i] + 1]++;
+		}
+
+		for (int i = 0; i < stateCount; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+
+		int[] next = Arrays.copyOf(offsets, stateCount);
+		int[] sortedTargets = new int[transitionCount];
+		double[] sortedCosts = new double[transitionCount];
+
+		for (int i = 0; i < transitionCount; i++) {
+			int position = next[sources[i]]++;
+			sortedTargets[position] = targets[i];
+			sortedCosts[position] = costs[i];
+		}
+
+		int[] ranks = Graph.calculateRanks(stateCount, names::get);
+		int[] listedPositions = sortByRank(offsets, sortedTargets, sortedCosts, ranks);
+
+		return new Graph(names.toArray(new String[stateCount]), ids, offsets, sortedTargets, sortedCosts,
+				Arrays.copyOf(heuristics, stateCount), ranks, listedPositions);
+	}
+
+	/**
+	 * Sorts the transitions of every state by the ranks of their target states. Every transition is sorted
+	 * as a single key which packs the rank of its target above its position, so the sort is stable
+	 * @param offsets The offsets of the first transition of each state, with one extra trailing entry
+	 * @param targets The target states of all transitions
+	 * @param costs The costs of all transitions
+	 * @param ranks The ranks of the states
+	 * @return Returns the positions of the sorted transitions among the transitions of their states before
+	 * they were sorted, or null if all transitions were already sorted
+	 */
+	private static int[] sortByRank(int[] offsets, int[] targets, double[] costs, int[] ranks) {
+
+		int[] listedPositions = null;
+		long[] keys = new long[16];
+		int[] sortedTargets = new int[16];
+		double[] sortedCosts = new double[16];
+
+		for (int state = 0; state < offsets.length - 1; state++) {
+			int first = offsets[state];
+			int count = offsets[state + 1] - first;
+
+			if (count < 2) {
+				continue;
+			}
+
+			if (keys.length < count) {
+				keys = new long[Math.max(count, keys.length * 2)];
+				sortedTargets = new int[keys.length];
+				sortedCosts = new double[keys.length];
+			}
+
+			boolean sorted = true;
+			for (int i = 0; i < count; i++) {
+				keys[i] = (long) ranks[targets[first + i]] << 32 | i;
+				sorted &= i == 0 || keys[i - 1] < keys[i];
+			}
+
+			if (sorted) {
+				continue;
+			}
+
+			if (listedPositions == null) {
+				listedPositions = new int[targets.length];
+				for (int s = 0; s < offsets.length - 1; s++) {
+					for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+						listedPositions[i] = i - offsets[s];
+					}
+				}
+			}
+
+			Arrays.sort(keys, 0, count);
+			for (int i = 0; i < count; i++) {
+				int position = (int) keys[i];
+				sortedTargets[i] = targets[first + position];
+				sortedCosts[i] = costs[first + position];
+				listedPositions[first + i] = position;
+			}
+
+			System.arraycopy(sortedTargets, 0, targets, first, count);
+			System.arraycopy(sortedCosts, 0, costs, first, count);
+		}
+
+		return listedPositions;
+	}
+
+}
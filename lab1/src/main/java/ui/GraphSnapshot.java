@@ -0,0 +1,368 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary snapshot of a loaded state space: the graph with its heuristics, the starter state and the
+ * destination states. All arrays of the graph are stored as they are kept in memory, so loading a snapshot
+ * only copies them out of the memory-mapped file, without parsing anything per state.
+ * <p>
+ * The file starts with a header of the magic number, the format version, the number of states,
+ * the number of transitions, the starter state, the number of destination states, a reserved field
+ * and the size of the name pool. It is followed by the destination states, the name offsets, the name
+ * pool, the transition offsets, the transition targets, the transition costs, the heuristics, since
+ * the second version, the ranks of the states and, since the third version, the positions of the transitions
+ * in the order in which they were listed. The ranks of a first version snapshot are calculated when it is read,
+ * and the transitions of a first or a second version snapshot are taken as listed in the order they are stored in
+ * @author Vito Sabalic
+ *
+ */
+public class GraphSnapshot {
+
+	private static final int MAGIC = 0x55495353;
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 7 * Integer.BYTES + Long.BYTES;
+	static final int CHUNK_SIZE = 1 << 26;
+
+	private Graph graph;
+	private int starter;
+	private int[] goals;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph
+	 * @param starter The starter state id
+	 * @param goals The destination state ids
+	 */
+	public GraphSnapshot(Graph graph, int starter, int[] goals) {
+		this.graph = graph;
+		this.starter = starter;
+		this.goals = goals;
+	}
+
+	/**
+	 * A getter for the graph
+	 * @return Returns the graph
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * A getter for the starter state
+	 * @return Returns the starter state id
+	 */
+	public int getStarter() {
+		return starter;
+	}
+
+	/**
+	 * A getter for the destination states
+	 * @return Returns the destination state ids
+	 */
+	public int[] getGoals() {
+		return goals;
+	}
+
+	/**
+	 * Checks whether the file on the provided path is a snapshot
+	 * @param path The path of the file
+	 * @return Returns true if the file starts with the snapshot magic number, false otherwise
+	 * @throws IOException If the file cannot be read
+	 */
+	public static boolean isSnapshot(String path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+			}
+
+			return !buffer.hasRemaining() && buffer.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Writes the snapshot to the file on the provided path
+	 * @param path The path of the file
+	 * @throws IOException If the file cannot be written
+	 */
+	public void write(String path) throws IOException {
+
+		int stateCount = graph.getStateCount();
+		byte[][] names = new byte[stateCount][];
+		int[] nameOffsets = new int[stateCount + 1];
+
+		for (int i = 0; i < stateCount; i++) {
+			names[i] = graph.getEncodedName(i);
+			nameOffsets[i + 1] = nameOffsets[i] + names[i].length;
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(stateCount).putInt(graph.getTransitionCount())
+					.putInt(starter).putInt(goals.length).putInt(0).putLong(nameOffsets[stateCount]);
+
+			writeInts(channel, buffer, goals);
+			writeInts(channel, buffer, nameOffsets);
+			for (byte[] name : names) {
+				if (buffer.remaining() < name.length) {
+					flush(channel, buffer);
+				}
+				buffer.put(name);
+			}
+			writeInts(channel, buffer, graph.getOffsets());
+			writeInts(channel, buffer, graph.getTargets());
+			writeDoubles(channel, buffer, graph.getCosts());
+			writeDoubles(channel, buffer, graph.getHeuristics());
+			writeInts(channel, buffer, graph.getRanks());
+			writeInts(channel, buffer, getListedPositions(graph));
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Reads the snapshot from the file on the provided path
+	 * @param path The path of the file
+	 * @return Returns the read snapshot
+	 * @throws IOException If the file cannot be read or is not a snapshot of a supported version
+	 */
+	public static GraphSnapshot read(String path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(path + ": not a graph snapshot");
+			}
+
+			int version = header.getInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException(path + ": unsupported snapshot version " + version);
+			}
+
+			int stateCount = header.getInt();
+			int transitionCount = header.getInt();
+			int starter = header.getInt();
+			int goalCount = header.getInt();
+			header.getInt();
+			long namePoolSize = header.getLong();
+
+			if (namePoolSize > Integer.MAX_VALUE) {
+				throw new IOException(path + ": name pool too large");
+			}
+
+			long expectedSize = HEADER_SIZE + (long) Integer.BYTES * (goalCount + 2L * (stateCount + 1) + transitionCount)
+					+ namePoolSize + (long) Double.BYTES * (transitionCount + stateCount)
+					+ (version == 1 ? 0 : (long) Integer.BYTES * stateCount)
+					+ (version < 3 ? 0 : (long) Integer.BYTES * transitionCount);
+			if (stateCount < 0 || transitionCount < 0 || goalCount < 0 || expectedSize != channel.size()) {
+				throw new IOException(path + ": corrupted snapshot");
+			}
+
+			long position = HEADER_SIZE;
+			int[] goals = new int[goalCount];
+			position = readInts(channel, position, goals);
+			int[] nameOffsets = new int[stateCount + 1];
+			position = readInts(channel, position, nameOffsets);
+			byte[] namePool = new byte[(int) namePoolSize];
+			position = readBytes(channel, position, namePool);
+			int[] offsets = new int[stateCount + 1];
+			position = readInts(channel, position, offsets);
+			int[] targets = new int[transitionCount];
+			position = readInts(channel, position, targets);
+			double[] costs = new double[transitionCount];
+			position = readDoubles(channel, position, costs);
+			double[] heuristics = new double[stateCount];
+			position = readDoubles(channel, position, heuristics);
+			int[] ranks = null;
+			if (version != 1) {
+				ranks = new int[stateCount];
+				position = readInts(channel, position, ranks);
+			}
+			int[] listedPositions = null;
+			if (version >= 3) {
+				listedPositions = new int[transitionCount];
+				readInts(channel, position, listedPositions);
+				if (isStoredOrder(offsets, listedPositions)) {
+					listedPositions = null;
+				}
+			}
+
+			return new GraphSnapshot(new Graph(namePool, nameOffsets, offsets, targets, costs, heuristics, ranks,
+					listedPositions), starter, goals);
+		}
+	}
+
+	/**
+	 * Collects the listed positions of all transitions of the graph
+	 * @param graph The graph
+	 * @return Returns the listed positions
+	 */
+	private static int[] getListedPositions(Graph graph) {
+
+		int[] listedPositions = graph.getListedPositions();
+		if (listedPositions != null) {
+			return listedPositions;
+		}
+
+		listedPositions = new int[graph.getTransitionCount()];
+		for (int state = 0; state < graph.getStateCount(); state++) {
+			for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+				listedPositions[i] = i - graph.getFirstTransition(state);
+			}
+		}
+
+		return listedPositions;
+	}
+
+	/**
+	 * Checks whether the transitions are stored in the order in which they were listed
+	 * @param offsets The transition offsets of all states
+	 * @param listedPositions The listed positions of all transitions
+	 * @return Returns true if they are, false otherwise
+	 */
+	private static boolean isStoredOrder(int[] offsets, int[] listedPositions) {
+
+		for (int state = 0; state < offsets.length - 1; state++) {
+			for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+				if (listedPositions[i] != i - offsets[state]) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel and clears the buffer
+	 * @param channel The channel
+	 * @param buffer The buffer
+	 * @throws IOException If the bytes cannot be written
+	 */
+	static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the array through the buffer
+	 * @param channel The channel
+	 * @param buffer The buffer
+	 * @param values The array
+	 * @throws IOException If the array cannot be written
+	 */
+	static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+
+		int written = 0;
+		while (written < values.length) {
+			if (buffer.remaining() < Integer.BYTES) {
+				flush(channel, buffer);
+			}
+
+			int count = Math.min(values.length - written, buffer.remaining() / Integer.BYTES);
+			buffer.asIntBuffer().put(values, written, count);
+			buffer.position(buffer.position() + count * Integer.BYTES);
+			written += count;
+		}
+	}
+
+	/**
+	 * Writes the array through the buffer
+	 * @param channel The channel
+	 * @param buffer The buffer
+	 * @param values The array
+	 * @throws IOException If the array cannot be written
+	 */
+	static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+
+		int written = 0;
+		while (written < values.length) {
+			if (buffer.remaining() < Double.BYTES) {
+				flush(channel, buffer);
+			}
+
+			int count = Math.min(values.length - written, buffer.remaining() / Double.BYTES);
+			buffer.asDoubleBuffer().put(values, written, count);
+			buffer.position(buffer.position() + count * Double.BYTES);
+			written += count;
+		}
+	}
+
+	/**
+	 * Reads the array from the memory-mapped file, chunk by chunk
+	 * @param channel The channel
+	 * @param position The position of the array in the file
+	 * @param values The array to read into
+	 * @return Returns the position after the array
+	 * @throws IOException If the array cannot be read
+	 */
+	static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+
+		int read = 0;
+		while (read < values.length) {
+			int count = Math.min(values.length - read, CHUNK_SIZE / Integer.BYTES);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES).asIntBuffer()
+					.get(values, read, count);
+			position += (long) count * Integer.BYTES;
+			read += count;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Reads the array from the memory-mapped file, chunk by chunk
+	 * @param channel The channel
+	 * @param position The position of the array in the file
+	 * @param values The array to read into
+	 * @return Returns the position after the array
+	 * @throws IOException If the array cannot be read
+	 */
+	static long readDoubles(FileChannel channel, long position, double[] values) throws IOException {
+
+		int read = 0;
+		while (read < values.length) {
+			int count = Math.min(values.length - read, CHUNK_SIZE / Double.BYTES);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Double.BYTES).asDoubleBuffer()
+					.get(values, read, count);
+			position += (long) count * Double.BYTES;
+			read += count;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Reads the array from the memory-mapped file, chunk by chunk
+	 * @param channel The channel
+	 * @param position The position of the array in the file
+	 * @param values The array to read into
+	 * @return Returns the position after the array
+	 * @throws IOException If the array cannot be read
+	 */
+	private static long readBytes(FileChannel channel, long position, byte[] values) throws IOException {
+
+		int read = 0;
+		while (read < values.length) {
+			int count = Math.min(values.length - read, CHUNK_SIZE);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, count).get(values, read, count);
+			position += count;
+			read += count;
+		}
+
+		return position;
+	}
+
+}
@@ -0,0 +1,65 @@
+package ui;
+
+/**
+ * An adapter which generates the states of a loaded {@link Graph} as a {@link StateSpace}, encoding every state
+ * by its id
+ * @author Vito Sabalic
+ *
+ */
+public class GraphStateSpace implements StateSpace {
+
+	private final Graph graph;
+	private final int starterNode;
+	private final boolean[] goals;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph
+	 * @param solutions The destination state ids
+	 * @param starterNode The starter state id
+	 */
+	public GraphStateSpace(Graph graph, int[] solutions, int starterNode) {
+		this.graph = graph;
+		this.starterNode = starterNode;
+		this.goals = new boolean[graph.getStateCount()];
+
+		for (int solution : solutions) {
+			goals[solution] = true;
+		}
+	}
+
+	@Override
+	public long getStarter() {
+		return starterNode;
+	}
+
+	@Override
+	public boolean isGoal(long state) {
+		return goals[(int) state];
+	}
+
+	@Override
+	public void expand(long state, Successors successors) {
+
+		int node = (int) state;
+		for (int i = graph.getFirstTransition(node); i < graph.getLastTransition(node); i++) {
+			successors.accept(graph.getTarget(i), graph.getCost(i));
+		}
+	}
+
+	@Override
+	public double getHeuristic(long state) {
+		return graph.getHeuristic((int) state);
+	}
+
+	@Override
+	public String getName(long state) {
+		return graph.getName((int) state);
+	}
+
+	@Override
+	public long getOrder(long state) {
+		return graph.getRank((int) state);
+	}
+
+}
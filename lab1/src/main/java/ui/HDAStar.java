@@ -0,0 +1,515 @@
+package ui;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An implementation of a class which can execute a hash distributed parallel A* search algorithm.
+ * Every worker thread owns the states whose hash falls into its partition, and only the owner of a state
+ * stores its cost, pushes it to its own frontier and expands it. Reached states owned by other workers are sent
+ * to their owners in batches through lock-free queues. Goal states are not expanded, but only offered as the
+ * best known solution, and states whose estimated total cost is not smaller than the cost of the best known
+ * solution are discarded. The search ends when no worker has any work left and no batch is on its way,
+ * which is detected by a single counter of the working workers and the batches on their way. With an admissible
+ * heuristic the cost of the found path is the same as the cost of the path found by {@link AStar}
+ * @author Vito Sabalic
+ *
+ */
+public class HDAStar implements Search {
+
+	/**
+	 * The number of states sent in a single batch
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	/**
+	 * The number of expansions after which the not yet full batches are sent
+	 */
+	private static final int FLUSH_INTERVAL = 64;
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+	private int threads;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 * @param threads
+	 */
+	public HDAStar(Graph graph, int[] solutions, int starterNode, String heuristicsPath, int threads) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	/**
+	 * Measures the time of the sequential {@link AStar} and of this algorithm with an increasing number of threads,
+	 * up to the number of threads provided in the constructor, and prints the speedups
+	 * @param out The output the measurements are printed to
+	 * @param repetitions The number of measured searches of every configuration, the median of which is printed
+	 */
+	public void benchmark(PrintStream out, int repetitions) {
+
+		SearchContext context = new SearchContext(graph);
+		AStar sequential = new AStar(graph, solutions, starterNode, heuristicsPath);
+		double sequentialTime = measure(sequential, context, repetitions);
+
+		out.println(String.format("[SPEEDUP]: astar time=%.3f ms", sequentialTime));
+
+		for (int t = 1; t <= threads; t = t < threads && t * 2 > threads ? threads : t * 2) {
+			double time = measure(new HDAStar(graph, solutions, starterNode, heuristicsPath, t), context, repetitions);
+			out.println(String.format("[SPEEDUP]: threads=%d time=%.3f ms speedup=%.2f", t, time, sequentialTime / time));
+
+			if (t == threads) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Measures the median time of a search, after a single search which is not measured
+	 * @param search The search
+	 * @param context The context of the search
+	 * @param repetitions The number of measured searches
+	 * @return Returns the median time in milliseconds
+	 */
+	private double measure(Search search, SearchContext context, int repetitions) {
+
+		search.search(context, starterNode, solutions);
+
+		double[] times = new double[Math.max(1, repetitions)];
+		for (int i = 0; i < times.length; i++) {
+			long startTime = System.nanoTime();
+			search.search(context, starterNode, solutions);
+			times[i] = (System.nanoTime() - startTime) / 1e6;
+		}
+
+		Arrays.sort(times);
+		return times[times.length / 2];
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		context.reset();
+
+		String header = "# HDA-STAR " + heuristicsPath;
+		Run run = new Run(context, context.getGoals(solutions));
+
+		Worker[] workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker(run, workers, i);
+		}
+
+		workers[owner(starterNode)].relax(starterNode, 0, -1);
+
+		Thread[] workerThreads = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workerThreads[i] = new Thread(workers[i], "hdastar-worker-" + i);
+			workerThreads[i].start();
+		}
+
+		for (Thread workerThread : workerThreads) {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					workerThread.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		long expanded = 0;
+		long sent = 0;
+		for (Worker worker : workers) {
+			expanded += worker.expanded;
+			sent += worker.sent;
+		}
+
+		if (run.solution == -1) {
+			return SearchResult.notFound(graph, header, (int) Math.min(expanded, Integer.MAX_VALUE))
+					.addStatistic("THREADS", threads)
+					.addStatistic("STATES_SENT", sent);
+		}
+
+		return new SearchResult(graph, header, true, (int) Math.min(expanded + 1, Integer.MAX_VALUE),
+				context.calculatePath(run.solution), run.cost)
+				.addStatistic("THREADS", threads)
+				.addStatistic("STATES_SENT", sent);
+	}
+
+	/**
+	 * Calculates the worker which owns the state
+	 * @param state The state id
+	 * @return Returns the index of the worker
+	 */
+	private int owner(int state) {
+		return (int) (((state * 0x9E3779B97F4A7C15L) >>> 32) % threads);
+	}
+
+	/**
+	 * The state of a single search shared by all workers
+	 * @author Vito Sabalic
+	 *
+	 */
+	private static class Run {
+
+		private final SearchContext context;
+		private final GoalSet goals;
+		private final AtomicInteger active;
+		private volatile boolean done;
+		private volatile double cost;
+		private int solution;
+
+		/**
+		 * A simple constructor
+		 * @param context The context of the search, whose every state is written only by its owner
+		 * @param goals The destination states
+		 */
+		Run(SearchContext context, GoalSet goals) {
+			this.context = context;
+			this.goals = goals;
+			this.active = new AtomicInteger();
+			this.cost = Double.MAX_VALUE;
+			this.solution = -1;
+		}
+
+		/**
+		 * Offers the path to the destination state as the solution, which is accepted if it is cheaper than
+		 * the best known solution
+		 * @param state The destination state id
+		 * @param pathCost The cost of the path
+		 */
+		synchronized void offer(int state, double pathCost) {
+
+			if (pathCost < cost) {
+				cost = pathCost;
+				solution = state;
+			}
+		}
+
+	}
+
+	/**
+	 * A batch of reached states sent to their owner
+	 * @author Vito Sabalic
+	 *
+	 */
+	private static class Batch {
+
+		private final int[] states = new int[BATCH_SIZE];
+		private final int[] parents = new int[BATCH_SIZE];
+		private final double[] costs = new double[BATCH_SIZE];
+		private int size;
+
+	}
+
+	/**
+	 * A worker which owns a partition of the states
+	 * @author Vito Sabalic
+	 *
+	 */
+	private class Worker implements Runnable {
+
+		private final Run run;
+		private final Worker[] workers;
+		private final int index;
+		private final ConcurrentLinkedQueue<Batch> inbox;
+		private final Batch[] outgoing;
+		private int[] heapStates;
+		private double[] heapKeys;
+		private double[] heapCosts;
+		private int heapSize;
+		private long expanded;
+		private long sent;
+
+		/**
+		 * A simple constructor
+		 * @param run The state of the search
+		 * @param workers All workers of the search
+		 * @param index The index of this worker
+		 */
+		Worker(Run run, Worker[] workers, int index) {
+			this.run = run;
+			this.workers = workers;
+			this.index = index;
+			this.inbox = new ConcurrentLinkedQueue<>();
+			this.outgoing = new Batch[workers.length];
+			this.heapStates = new int[64];
+			this.heapKeys = new double[64];
+			this.heapCosts = new double[64];
+
+			run.active.incrementAndGet();
+		}
+
+		@Override
+		public void run() {
+
+			SearchContext context = run.context;
+			int sinceFlush = 0;
+
+			while (!run.done) {
+
+				receive();
+
+				if (heapSize == 0) {
+					flush();
+					if (!waitForWork()) {
+						return;
+					}
+					continue;
+				}
+
+				double key = heapKeys[0];
+				double cost = heapCosts[0];
+				int currentNode = poll();
+
+				if (cost > context.getDistance(currentNode)) {
+					continue;
+				}
+
+				if (key >= run.cost) {
+					heapSize = 0;
+					continue;
+				}
+
+				if (run.goals.contains(currentNode)) {
+					run.offer(currentNode, cost);
+					continue;
+				}
+
+				expanded++;
+
+				for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+					int adjacent = graph.getTarget(i);
+					double adjacentCost = cost + graph.getCost(i);
+
+					if (adjacentCost + graph.getHeuristic(adjacent) >= run.cost) {
+						continue;
+					}
+
+					int owner = owner(adjacent);
+					if (owner == index) {
+						relax(adjacent, adjacentCost, currentNode);
+					} else {
+						send(owner, adjacent, adjacentCost, currentNode);
+					}
+				}
+
+				if (++sinceFlush == FLUSH_INTERVAL) {
+					flush();
+					sinceFlush = 0;
+				}
+			}
+		}
+
+		/**
+		 * Stores the cost of the path to the owned state and pushes it to the frontier, if the path is cheaper
+		 * than the best known path to the state
+		 * @param state The state id
+		 * @param cost The cost of the path
+		 * @param parent The previous state id, or -1 if there is none
+		 */
+		void relax(int state, double cost, int parent) {
+
+			if (cost >= run.context.getDistance(state)) {
+				return;
+			}
+
+			run.context.set(state, cost, parent);
+			push(state, cost + graph.getHeuristic(state), cost);
+		}
+
+		/**
+		 * Relaxes the states of all received batches
+		 */
+		private void receive() {
+
+			Batch batch;
+			while ((batch = inbox.poll()) != null) {
+				for (int i = 0; i < batch.size; i++) {
+					if (batch.costs[i] + graph.getHeuristic(batch.states[i]) < run.cost) {
+						relax(batch.states[i], batch.costs[i], batch.parents[i]);
+					}
+				}
+
+				run.active.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Adds the reached state to the batch of its owner, and sends the batch if it is full
+		 * @param owner The index of the owner
+		 * @param state The state id
+		 * @param cost The cost of the path
+		 * @param parent The previous state id
+		 */
+		private void send(int owner, int state, double cost, int parent) {
+
+			Batch batch = outgoing[owner];
+			if (batch == null) {
+				batch = outgoing[owner] = new Batch();
+			}
+
+			batch.states[batch.size] = state;
+			batch.costs[batch.size] = cost;
+			batch.parents[batch.size] = parent;
+			sent++;
+
+			if (++batch.size == BATCH_SIZE) {
+				deliver(owner);
+			}
+		}
+
+		/**
+		 * Sends all batches which are not empty
+		 */
+		private void flush() {
+
+			for (int i = 0; i < outgoing.length; i++) {
+				if (outgoing[i] != null && outgoing[i].size > 0) {
+					deliver(i);
+				}
+			}
+		}
+
+		/**
+		 * Sends the batch to its owner. The batch is counted before it is added to the queue,
+		 * so the counter cannot drop to zero while the batch is on its way
+		 * @param owner The index of the owner
+		 */
+		private void deliver(int owner) {
+
+			run.active.incrementAndGet();
+			workers[owner].inbox.add(outgoing[owner]);
+			outgoing[owner] = null;
+		}
+
+		/**
+		 * Waits until a batch is received or the search ends
+		 * @return Returns true if a batch is received, false if the search ended
+		 */
+		private boolean waitForWork() {
+
+			if (run.active.decrementAndGet() == 0) {
+				run.done = true;
+				return false;
+			}
+
+			for (int spins = 0; !run.done; spins++) {
+				if (!inbox.isEmpty()) {
+					run.active.incrementAndGet();
+					return true;
+				}
+
+				if (run.active.get() == 0) {
+					run.done = true;
+					return false;
+				}
+
+				if (spins < 64) {
+					Thread.onSpinWait();
+				} else {
+					LockSupport.parkNanos(20_000);
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Pushes the state to the frontier of this worker, which can contain the same state more than once
+		 * @param state The state id
+		 * @param key The estimated total cost
+		 * @param cost The cost of the path
+		 */
+		private void push(int state, double key, double cost) {
+
+			if (heapSize == heapStates.length) {
+				heapStates = Arrays.copyOf(heapStates, heapSize * 2);
+				heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+				heapCosts = Arrays.copyOf(heapCosts, heapSize * 2);
+			}
+
+			int i = heapSize++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (heapKeys[parent] <= key) {
+					break;
+				}
+				heapStates[i] = heapStates[parent];
+				heapKeys[i] = heapKeys[parent];
+				heapCosts[i] = heapCosts[parent];
+				i = parent;
+			}
+
+			heapStates[i] = state;
+			heapKeys[i] = key;
+			heapCosts[i] = cost;
+		}
+
+		/**
+		 * Removes the entry with the smallest key from the frontier of this worker
+		 * @return Returns the state id of the removed entry
+		 */
+		private int poll() {
+
+			int first = heapStates[0];
+			heapSize--;
+
+			int state = heapStates[heapSize];
+			double key = heapKeys[heapSize];
+			double cost = heapCosts[heapSize];
+			int i = 0;
+
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= heapSize) {
+					break;
+				}
+				if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+					child++;
+				}
+				if (key <= heapKeys[child]) {
+					break;
+				}
+				heapStates[i] = heapStates[child];
+				heapKeys[i] = heapKeys[child];
+				heapCosts[i] = heapCosts[child];
+				i = child;
+			}
+
+			heapStates[i] = state;
+			heapKeys[i] = key;
+			heapCosts[i] = cost;
+
+			return first;
+		}
+
+	}
+
+}
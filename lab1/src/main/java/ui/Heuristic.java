@@ -0,0 +1,17 @@
+package ui;
+
+/**
+ * An interface of a heuristic, which estimates the cost of the cheapest path from a state to the destination states
+ * @author Vito Sabalic
+ *
+ */
+public interface Heuristic {
+
+	/**
+	 * Estimates the cost of the cheapest path from the state to the destination states
+	 * @param state The state id
+	 * @return Returns the estimated cost
+	 */
+	double estimate(int state);
+
+}
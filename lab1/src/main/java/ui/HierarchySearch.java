@@ -0,0 +1,359 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute a bidirectional search over a {@link ContractionHierarchy}.
+ * The forward search from the starter state follows only the upward graph and the backward search from the
+ * destination states follows only the downward graph, and the path through the cheapest meeting state
+ * is unpacked to a path of the graph. A state whose cost can be lowered through an already reached state
+ * of a higher rank is not expanded further.
+ * <p>
+ * The UCS algorithm chooses, among the cheapest paths, the one whose every state is reached from the cheapest
+ * previous state, and from the alphabetically first one among equally cheap ones, and it stops at the
+ * alphabetically first of the equally close destination states. The unpacked path is therefore walked backwards
+ * and checked against this rule. The forward search is continued until it has reached every state above the
+ * starter state, after which the exact cost of the path to any state is the cheaper of the cost found by the
+ * forward search and the cheapest cost through the states above it in the downward graph, which is calculated
+ * from the highest states down and remembered in the context of the backward search. Only the states above
+ * the previous states which would be preferred to the ones on the path are calculated, and they are mostly
+ * shared by the neighbouring states of the path. The found path is the one found by the UCS algorithm whenever
+ * all transitions have a positive cost
+ * @author Vito Sabalic
+ *
+ */
+public class HierarchySearch implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private ContractionHierarchy hierarchy;
+	private int visitedCount;
+	private double bestDistance;
+	private int[] stack;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param hierarchy
+	 */
+	public HierarchySearch(Graph graph, int[] solutions, int starterNode, ContractionHierarchy hierarchy) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.hierarchy = hierarchy;
+		this.stack = new int[16];
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		this.starterNode = starterNode;
+		visitedCount = 0;
+
+		context.reset();
+		context.set(starterNode, 0, -1);
+		context.getHeap().push(starterNode, 0);
+
+		SearchContext reverse = context.getReverse();
+		reverse.reset();
+		for (int solution : solutions) {
+			reverse.set(solution, 0, -1);
+			reverse.getHeap().push(solution, 0);
+		}
+
+		int meetingState = meet(context, reverse);
+		if (meetingState == -1) {
+			return SearchResult.notFound(graph, "# CH", visitedCount);
+		}
+
+		int[] path = hierarchy.unpack(context.calculatePath(meetingState, reverse));
+		int queryCount = visitedCount;
+		double distance = bestDistance;
+
+		while (!context.getHeap().isEmpty()) {
+			expand(context, context.getHeap(), hierarchy.getUpward(), hierarchy.getDownward());
+		}
+
+		reverse.reset();
+		int finalState = path[path.length - 1];
+
+		for (int solution : solutions) {
+			if (graph.getRank(solution) < graph.getRank(finalState)
+					&& calculateDistance(context, reverse, solution) <= distance + tolerance(distance)) {
+				finalState = solution;
+			}
+		}
+
+		int[] chosenPath = choosePredecessors(context, reverse, finalState,
+				finalState == path[path.length - 1] ? path : null);
+
+		if (chosenPath != null) {
+			path = chosenPath;
+		}
+
+		return new SearchResult(graph, "# CH", true, visitedCount, path, graph.calculateCost(path))
+				.addStatistic("STATES_VISITED_BY_QUERY", queryCount);
+	}
+
+	/**
+	 * Executes the forward and the backward search, alternating between the frontier with the smaller key,
+	 * until neither can find a cheaper path. The cost of the cheapest found path is stored
+	 * @param context The context of the forward search
+	 * @param reverse The context of the backward search
+	 * @return Returns the meeting state of the cheapest found path, or -1 if none was found
+	 */
+	private int meet(SearchContext context, SearchContext reverse) {
+
+		Graph upward = hierarchy.getUpward();
+		Graph downward = hierarchy.getDownward();
+		Frontier forward = context.getHeap();
+		Frontier backward = reverse.getHeap();
+
+		bestDistance = Double.MAX_VALUE;
+		int meetingState = -1;
+
+		while (true) {
+			double forwardKey = forward.isEmpty() ? Double.MAX_VALUE : forward.peekKey();
+			double backwardKey = backward.isEmpty() ? Double.MAX_VALUE : backward.peekKey();
+
+			if (forwardKey >= bestDistance && backwardKey >= bestDistance) {
+				return meetingState;
+			}
+
+			boolean forwardStep = forwardKey <= backwardKey;
+			SearchContext own = forwardStep ? context : reverse;
+			SearchContext other = forwardStep ? reverse : context;
+
+			int currentNode = forwardStep ? expand(context, forward, upward, downward)
+					: expand(reverse, backward, downward, upward);
+
+			if (other.isClosed(currentNode)) {
+				double distance = own.getDistance(currentNode) + other.getDistance(currentNode);
+				if (distance < bestDistance) {
+					bestDistance = distance;
+					meetingState = currentNode;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes the state with the smallest key of the frontier and follows its transitions, unless its cost
+	 * can be lowered through an already reached state of a higher rank
+	 * @param own The context of the search
+	 * @param frontier The frontier of the search
+	 * @param direction The graph which is searched
+	 * @param opposite The graph of the other direction, whose transitions lead to the states of a higher rank
+	 * from which the state can be reached
+	 * @return Returns the closed state id
+	 */
+	private int expand(SearchContext own, Frontier frontier, Graph direction, Graph opposite) {
+
+		int currentNode = frontier.poll();
+		own.close(currentNode);
+		visitedCount++;
+
+		for (int i = opposite.getFirstTransition(currentNode); i < opposite.getLastTransition(currentNode); i++) {
+			if (own.getDistance(opposite.getTarget(i)) + opposite.getCost(i) < own.getDistance(currentNode)) {
+				return currentNode;
+			}
+		}
+
+		for (int i = direction.getFirstTransition(currentNode); i < direction.getLastTransition(currentNode); i++) {
+			int adjacent = direction.getTarget(i);
+
+			if (!own.isClosed(adjacent) && own.relax(adjacent, direction.getCost(i), currentNode)) {
+				frontier.push(adjacent, own.getDistance(adjacent));
+			}
+		}
+
+		return currentNode;
+	}
+
+	/**
+	 * Calculates the exact cost of the cheapest path from the starter state to the state, once the forward
+	 * search has reached every state above the starter state. The costs of the states above the state
+	 * in the downward graph are calculated first, and all calculated costs are remembered
+	 * @param context The context of the finished forward search
+	 * @param memo The context in which the calculated costs are remembered as closed states
+	 * @param state The state id
+	 * @return Returns the cost, or {@link Double#MAX_VALUE} if the state cannot be reached
+	 */
+	private double calculateDistance(SearchContext context, SearchContext memo, int state) {
+
+		Graph downward = hierarchy.getDownward();
+		int size = 0;
+		stack[size++] = state;
+
+		while (size > 0) {
+			int current = stack[size - 1];
+
+			if (memo.isClosed(current)) {
+				size--;
+				continue;
+			}
+
+			boolean ready = true;
+			if (!hierarchy.isCore(current)) {
+				for (int i = downward.getFirstTransition(current); i < downward.getLastTransition(current); i++) {
+					if (!memo.isClosed(downward.getTarget(i))) {
+						if (size == stack.length) {
+							stack = Arrays.copyOf(stack, size * 2);
+						}
+						stack[size++] = downward.getTarget(i);
+						ready = false;
+					}
+				}
+			}
+
+			if (!ready) {
+				continue;
+			}
+
+			size--;
+			double distance = context.getDistance(current);
+
+			if (!hierarchy.isCore(current)) {
+				for (int i = downward.getFirstTransition(current); i < downward.getLastTransition(current); i++) {
+					double above = memo.getDistance(downward.getTarget(i));
+					if (above != Double.MAX_VALUE) {
+						distance = Math.min(distance, above + downward.getCost(i));
+					}
+				}
+			}
+
+			memo.set(current, distance, -1);
+			memo.close(current);
+			visitedCount++;
+		}
+
+		return memo.getDistance(state);
+	}
+
+	/**
+	 * Walks backwards from the final state, each time to the previous state from which the UCS algorithm would
+	 * reach the current state: the cheapest one on a cheapest path, and the alphabetically first one among
+	 * equally cheap ones. While the walk follows the provided path, only the previous states which would be
+	 * preferred to the one on the path are calculated
+	 * @param context The context of the finished forward search
+	 * @param memo The context in which the calculated costs are remembered
+	 * @param finalState The final state id
+	 * @param path The cheapest path to the final state found by the hierarchy, or null if there is none
+	 * @return Returns the path found by the UCS algorithm, or null if it cannot be walked because of transitions
+	 * without a cost
+	 */
+	private int[] choosePredecessors(SearchContext context, SearchContext memo, int finalState, int[] path) {
+
+		Graph reverseGraph = graph.getReverse();
+		int[] walked = new int[16];
+		int walkedCount = 0;
+		int index = path == null ? -1 : path.length - 1;
+		int currentNode = finalState;
+		double distance = calculateDistance(context, memo, currentNode);
+
+		while (true) {
+			if (walkedCount == walked.length) {
+				walked = Arrays.copyOf(walked, walkedCount * 2);
+			}
+			walked[walkedCount++] = currentNode;
+
+			if (currentNode == starterNode) {
+				break;
+			}
+
+			int previous = index > 0 ? path[index - 1] : -1;
+			double previousDistance = previous == -1 ? 0 : distance - graph.findCost(previous, currentNode);
+			int best = -1;
+			double bestDistance = Double.MAX_VALUE;
+
+			for (int i = reverseGraph.getFirstTransition(currentNode); i < reverseGraph.getLastTransition(currentNode); i++) {
+				int candidate = reverseGraph.getTarget(i);
+				double cost = graph.findCost(candidate, currentNode);
+
+				if (contains(walked, walkedCount, candidate) || previous != -1 && candidate != previous
+						&& !isPreferred(candidate, distance - cost, previous, previousDistance)) {
+					continue;
+				}
+
+				double candidateDistance = calculateDistance(context, memo, candidate);
+
+				if (Math.abs(candidateDistance + cost - distance) <= tolerance(distance)
+						&& (best == -1 || isPreferred(candidate, candidateDistance, best, bestDistance))) {
+					best = candidate;
+					bestDistance = candidateDistance;
+				}
+			}
+
+			if (best == -1) {
+				return null;
+			}
+
+			index = best == previous ? index - 1 : -1;
+			currentNode = best;
+			distance = bestDistance;
+		}
+
+		int[] result = new int[walkedCount];
+		for (int i = 0; i < walkedCount; i++) {
+			result[i] = walked[walkedCount - 1 - i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks whether the UCS algorithm would reach a state from the candidate rather than from the other state,
+	 * if both were on a cheapest path
+	 * @param candidate The candidate state id
+	 * @param distance The cost of the path to the candidate
+	 * @param other The other state id
+	 * @param otherDistance The cost of the path to the other state
+	 * @return Returns true if the candidate is preferred, false otherwise
+	 */
+	private boolean isPreferred(int candidate, double distance, int other, double otherDistance) {
+
+		if (Math.abs(distance - otherDistance) <= tolerance(otherDistance)) {
+			return graph.getRank(candidate) < graph.getRank(other);
+		}
+
+		return distance < otherDistance;
+	}
+
+	/**
+	 * Calculates the largest difference between two costs which is still considered a rounding error
+	 * @param cost The cost
+	 * @return Returns the difference
+	 */
+	private static double tolerance(double cost) {
+		return 1e-9 * Math.max(1, Math.abs(cost));
+	}
+
+	/**
+	 * Checks whether the first <code>count</code> states of the provided array contain the state
+	 * @param states The array of states
+	 * @param count The number of states
+	 * @param state The state
+	 * @return Returns true if the state is contained, false otherwise
+	 */
+	private static boolean contains(int[] states, int count, int state) {
+		for (int i = 0; i < count; i++) {
+			if (states[i] == state) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
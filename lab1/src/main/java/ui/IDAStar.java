@@ -0,0 +1,155 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute an iterative deepening A* search algorithm.
+ * Every iteration is a depth-first search which does not expand states whose estimated total cost exceeds
+ * the bound of the iteration, and the next bound is the smallest estimated total cost which exceeded it.
+ * Only the current path is stored, so the memory used by the search is linear in the depth of the solution,
+ * while states are expanded again in every iteration. A successor which is already on the current path is found
+ * by scanning the path, which takes time linear in its depth instead of memory linear in the number of states,
+ * and the context of the search is only used for its destination states. For the same reason the re-expansions
+ * are counted per path instead of per state: an expansion is a re-expansion if the previous iteration already
+ * expanded the same path, which it did if the estimated total costs of the path and all of its prefixes are
+ * within the bound of the previous iteration
+ * @author Vito Sabalic
+ *
+ */
+public class IDAStar implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 */
+	public IDAStar(Graph graph, int[] solutions, int starterNode, String heuristicsPath) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		GoalSet goals = context.getGoals(solutions);
+
+		String header = "# IDA-STAR " + heuristicsPath;
+		int[] path = new int[16];
+		double[] costs = new double[16];
+		int[] transitions = new int[16];
+		boolean[] repeated = new boolean[16];
+		double bound = graph.getHeuristic(starterNode);
+		double previousBound = Double.NEGATIVE_INFINITY;
+		long expanded = 0;
+		long reexpanded = 0;
+		int iterations = 0;
+
+		while (true) {
+
+			iterations++;
+			double nextBound = Double.MAX_VALUE;
+			int depth = 0;
+			path[0] = starterNode;
+			costs[0] = 0;
+			transitions[0] = -1;
+
+			while (depth >= 0) {
+
+				int currentNode = path[depth];
+
+				if (transitions[depth] == -1) {
+					double estimate = costs[depth] + graph.getHeuristic(currentNode);
+
+					if (estimate > bound) {
+						nextBound = Math.min(nextBound, estimate);
+						depth--;
+						continue;
+					}
+
+					if (goals.contains(currentNode)) {
+						return new SearchResult(graph, header, true, (int) Math.min(expanded + 1, Integer.MAX_VALUE),
+								Arrays.copyOf(path, depth + 1), costs[depth])
+								.addStatistic("REEXPANSIONS", reexpanded)
+								.addStatistic("ITERATIONS", iterations);
+					}
+
+					expanded++;
+					repeated[depth] = estimate <= previousBound && (depth == 0 || repeated[depth - 1]);
+					if (repeated[depth]) {
+						reexpanded++;
+					}
+
+					transitions[depth] = graph.getFirstTransition(currentNode);
+				}
+
+				if (transitions[depth] == graph.getLastTransition(currentNode)) {
+					depth--;
+					continue;
+				}
+
+				int i = transitions[depth]++;
+				int adjacent = graph.getTarget(i);
+
+				if (isOnPath(path, depth, adjacent)) {
+					continue;
+				}
+
+				if (++depth == path.length) {
+					path = Arrays.copyOf(path, depth * 2);
+					costs = Arrays.copyOf(costs, depth * 2);
+					transitions = Arrays.copyOf(transitions, depth * 2);
+					repeated = Arrays.copyOf(repeated, depth * 2);
+				}
+
+				path[depth] = adjacent;
+				costs[depth] = costs[depth - 1] + graph.getCost(i);
+				transitions[depth] = -1;
+			}
+
+			if (nextBound == Double.MAX_VALUE) {
+				return SearchResult.notFound(graph, header, (int) Math.min(expanded, Integer.MAX_VALUE))
+						.addStatistic("REEXPANSIONS", reexpanded)
+						.addStatistic("ITERATIONS", iterations);
+			}
+
+			previousBound = bound;
+			bound = nextBound;
+		}
+	}
+
+	/**
+	 * Checks whether the state is on the current path
+	 * @param path The states of the current path
+	 * @param depth The depth of the last state of the path
+	 * @param state The state id
+	 * @return Returns true if it is, false otherwise
+	 */
+	private static boolean isOnPath(int[] path, int depth, int state) {
+
+		for (int i = depth; i >= 0; i--) {
+			if (path[i] == state) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,597 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute an incremental A* search algorithm (Lifelong Planning A*).
+ * Every state keeps its cost g and its one-step lookahead cost rhs, the cheapest cost of a previous state
+ * plus the cost of the transition, between searches. When the cost of a transition changes, only the
+ * rhs of its target is recalculated, and the following search expands only the states whose costs
+ * are no longer consistent, in the order of their keys, instead of the whole search tree.
+ * <p>
+ * The keys are pairs of the smaller of both costs plus the heuristic, and the smaller of both costs,
+ * compared in that order and then alphabetically by state names. The found cost is the one found by
+ * the A* algorithm if the heuristic is consistent
+ * @author Vito Sabalic
+ *
+ */
+public class IncrementalAStar {
+
+	private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+	private Graph graph;
+	private Graph reverse;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+
+	private double[] costs;
+	private int[] reverseTransitions;
+	private double[] distances;
+	private double[] lookaheads;
+	private boolean[] destinations;
+	private int finalState;
+	private boolean finalStateChanged;
+	private int visitedCount;
+
+	private int[] heap;
+	private int[] positions;
+	private double[] primaryKeys;
+	private double[] secondaryKeys;
+	private int size;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 */
+	public IncrementalAStar(Graph graph, int[] solutions, int starterNode, String heuristicsPath) {
+
+		int stateCount = graph.getStateCount();
+
+		this.graph = graph;
+		this.reverse = graph.getReverse();
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+		this.costs = graph.getCosts().clone();
+		this.reverseTransitions = new int[graph.getTransitionCount()];
+		this.distances = new double[stateCount];
+		this.lookaheads = new double[stateCount];
+		this.destinations = new boolean[stateCount];
+		this.heap = new int[stateCount];
+		this.positions = new int[stateCount];
+		this.primaryKeys = new double[stateCount];
+		this.secondaryKeys = new double[stateCount];
+
+		int[] next = new int[stateCount];
+		for (int state = 0; state < stateCount; state++) {
+			next[state] = reverse.getFirstTransition(state);
+		}
+
+		for (int state = 0; state < stateCount; state++) {
+			for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+				reverseTransitions[next[graph.getTarget(i)]++] = i;
+			}
+		}
+
+		for (int solution : solutions) {
+			destinations[solution] = true;
+		}
+
+		Arrays.fill(distances, INFINITY);
+		Arrays.fill(lookaheads, INFINITY);
+		Arrays.fill(positions, -1);
+
+		lookaheads[starterNode] = 0;
+		insert(starterNode);
+		finalState = -1;
+		finalStateChanged = true;
+	}
+
+	/**
+	 * Executes the algorithm, then applies every batch of transition cost changes from the provided file
+	 * and searches again after each one, comparing the search with a new A* search of the changed graph
+	 * @param changesPath The path of the file with the batches, "-" for the standard input, or an empty
+	 * string if the search should be executed only once
+	 */
+	public void start(String changesPath) {
+
+		System.out.println(replan());
+
+		if (changesPath.isEmpty()) {
+			return;
+		}
+
+		try (BufferedReader reader = changesPath.equals("-")
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+				: Files.newBufferedReader(Paths.get(changesPath), StandardCharsets.UTF_8)) {
+
+			int batch = 0;
+			int changed = 0;
+			long replanTime = 0;
+			long recomputeTime = 0;
+			int lineNumber = 0;
+			String line;
+
+			do {
+				line = reader.readLine();
+				lineNumber++;
+
+				if (line != null && !line.trim().isEmpty()) {
+					if (!line.startsWith("#")) {
+						changed += applyChanges(line, lineNumber);
+					}
+					continue;
+				}
+
+				if (changed == 0) {
+					continue;
+				}
+
+				batch++;
+				long startTime = System.nanoTime();
+				SearchResult result = replan();
+				long replanLatency = System.nanoTime() - startTime;
+
+				Graph current = getGraph();
+				startTime = System.nanoTime();
+				SearchResult recomputed = new AStar(current, solutions, starterNode, heuristicsPath)
+						.search(new SearchContext(current), starterNode, solutions);
+				long recomputeLatency = System.nanoTime() - startTime;
+
+				replanTime += replanLatency;
+				recomputeTime += recomputeLatency;
+
+				System.out.println(result
+						.addStatistic("BATCH", batch)
+						.addStatistic("CHANGED_TRANSITIONS", changed)
+						.addStatistic("REPLAN_LATENCY", String.format("%.3f ms", replanLatency / 1e6))
+						.addStatistic("RECOMPUTE_LATENCY", String.format("%.3f ms", recomputeLatency / 1e6))
+						.addStatistic("RECOMPUTE_STATES_VISITED", recomputed.getVisitedCount())
+						.addStatistic("MATCHES_RECOMPUTE", matches(result, recomputed) ? "yes" : "no"));
+				changed = 0;
+			} while (line != null);
+
+			System.out.printf("[REPLANNING]: %d batches, %.3f ms replanning, %.3f ms recomputing, %.2fx speedup%n", batch,
+					replanTime / 1e6, recomputeTime / 1e6, replanTime == 0 ? 1 : (double) recomputeTime / replanTime);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Changes the costs of the transitions listed on a line of the changes file, in the format of the state
+	 * space file: the name of the source state, a colon, and the target states with their new costs
+	 * @param line The line
+	 * @param lineNumber The number of the line, used in the error message
+	 * @return Returns the number of listed transitions
+	 * @throws IOException If the line is malformed or names an unknown state or transition
+	 */
+	private int applyChanges(String line, int lineNumber) throws IOException {
+
+		int colon = line.indexOf(':');
+		if (colon == -1) {
+			throw new IOException("Missing colon on line " + lineNumber);
+		}
+
+		int from = graph.getId(line.substring(0, colon).trim());
+		if (from == -1) {
+			throw new IOException("Unknown state on line " + lineNumber);
+		}
+
+		int changed = 0;
+		for (String transition : line.substring(colon + 1).trim().split("\\s+")) {
+			if (transition.isEmpty()) {
+				continue;
+			}
+
+			int comma = transition.indexOf(',');
+			int to = comma == -1 ? -1 : graph.getId(transition.substring(0, comma));
+
+			try {
+				if (to == -1 || !updateCost(from, to, Double.parseDouble(transition.substring(comma + 1)))) {
+					throw new IOException("Unknown transition " + transition + " on line " + lineNumber);
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Malformed cost " + transition + " on line " + lineNumber, e);
+			}
+
+			changed++;
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Changes the cost of every transition between the two states. Only the rhs of the target state
+	 * is recalculated, the costs are repaired by the next search
+	 * @param from The source state id
+	 * @param to The target state id
+	 * @param cost The new cost
+	 * @return Returns true if there is a transition between the states, false otherwise
+	 */
+	public boolean updateCost(int from, int to, double cost) {
+
+		boolean found = false;
+
+		for (int i = graph.getFirstTransition(from); i < graph.getLastTransition(from); i++) {
+			if (graph.getTarget(i) == to) {
+				found = true;
+				costs[i] = cost;
+			}
+		}
+
+		if (found) {
+			updateState(to);
+		}
+
+		return found;
+	}
+
+	/**
+	 * Creates a graph with the current costs of the transitions
+	 * @return Returns the created graph
+	 */
+	public Graph getGraph() {
+		return graph.withTransitions(graph.getOffsets(), graph.getTargets(), costs.clone());
+	}
+
+	/**
+	 * Repairs the costs of the inconsistent states until the cheapest destination state is consistent and its key
+	 * is not larger than any other key
+	 * @return Returns the result of the search, with the states expanded by this search as the visited states
+	 */
+	public SearchResult replan() {
+
+		visitedCount = 0;
+
+		while (size > 0) {
+			int goal = getFinalState();
+
+			if (goal != -1 && distances[goal] == lookaheads[goal] && compareKeys(heap[0], goal) >= 0) {
+				break;
+			}
+
+			int currentNode = poll();
+			visitedCount++;
+
+			if (distances[currentNode] > lookaheads[currentNode]) {
+				distances[currentNode] = lookaheads[currentNode];
+				finalStateChanged |= destinations[currentNode];
+
+				for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+					int adjacent = graph.getTarget(i);
+					if (distances[currentNode] + costs[i] < lookaheads[adjacent]) {
+						lookaheads[adjacent] = distances[currentNode] + costs[i];
+						finalStateChanged |= destinations[adjacent];
+						update(adjacent);
+					}
+				}
+			} else {
+				double previous = distances[currentNode];
+				distances[currentNode] = INFINITY;
+				finalStateChanged |= destinations[currentNode];
+				updateState(currentNode);
+
+				for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+					if (previous + costs[i] == lookaheads[graph.getTarget(i)]) {
+						updateState(graph.getTarget(i));
+					}
+				}
+			}
+		}
+
+		String header = "# LPA-STAR " + heuristicsPath;
+		int goal = getFinalState();
+
+		if (goal == -1 || distances[goal] == INFINITY) {
+			return SearchResult.notFound(graph, header, visitedCount);
+		}
+
+		int[] path = calculatePath(goal);
+		if (path == null) {
+			Graph current = getGraph();
+			path = new AStar(current, solutions, starterNode, heuristicsPath)
+					.search(new SearchContext(current), starterNode, solutions).getPath();
+		}
+
+		return new SearchResult(graph, header, true, visitedCount, path, distances[goal]);
+	}
+
+	/**
+	 * Recalculates the rhs of the state from its previous states and moves it into or out of the queue
+	 * depending on whether it is consistent
+	 * @param state The state id
+	 */
+	private void updateState(int state) {
+
+		if (state != starterNode) {
+			double lookahead = INFINITY;
+
+			for (int i = reverse.getFirstTransition(state); i < reverse.getLastTransition(state); i++) {
+				lookahead = Math.min(lookahead, distances[reverse.getTarget(i)] + costs[reverseTransitions[i]]);
+			}
+
+			lookaheads[state] = lookahead;
+			finalStateChanged |= destinations[state];
+		}
+
+		update(state);
+	}
+
+	/**
+	 * Moves the state into the queue with its current key if it is inconsistent, and out of the queue otherwise
+	 * @param state The state id
+	 */
+	private void update(int state) {
+
+		if (positions[state] != -1) {
+			remove(state);
+		}
+
+		if (distances[state] != lookaheads[state]) {
+			insert(state);
+		}
+	}
+
+	/**
+	 * Finds the destination state with the smallest key, which is only searched for again after the cost
+	 * of a destination state has changed
+	 * @return Returns the destination state id, or -1 if no destination state has been reached
+	 */
+	private int getFinalState() {
+
+		if (finalStateChanged) {
+			finalState = -1;
+
+			for (int solution : solutions) {
+				if (Math.min(distances[solution], lookaheads[solution]) != INFINITY
+						&& (finalState == -1 || compareKeys(solution, finalState) < 0)) {
+					finalState = solution;
+				}
+			}
+
+			finalStateChanged = false;
+		}
+
+		return finalState;
+	}
+
+	/**
+	 * Walks backwards from the destination state, each time to the previous state on a cheapest path which
+	 * the A* algorithm would close first: the one with the smallest cost plus heuristic, and the alphabetically
+	 * first one among equal ones
+	 * @param goal The destination state id
+	 * @return Returns the path, or null if the walk is stuck in a cycle of transitions without a cost,
+	 * in which case the path of a new A* search is used
+	 */
+	private int[] calculatePath(int goal) {
+
+		int[] walked = new int[16];
+		int walkedCount = 0;
+		int currentNode = goal;
+
+		while (true) {
+			if (walkedCount == walked.length) {
+				walked = Arrays.copyOf(walked, walkedCount * 2);
+			}
+			walked[walkedCount++] = currentNode;
+
+			if (currentNode == starterNode) {
+				break;
+			}
+
+			int best = -1;
+			for (int i = reverse.getFirstTransition(currentNode); i < reverse.getLastTransition(currentNode); i++) {
+				int candidate = reverse.getTarget(i);
+
+				if (distances[candidate] + costs[reverseTransitions[i]] == distances[currentNode]
+						&& !contains(walked, walkedCount, candidate) && (best == -1 || isPreferred(candidate, best))) {
+					best = candidate;
+				}
+			}
+
+			if (best == -1) {
+				return null;
+			}
+
+			currentNode = best;
+		}
+
+		int[] path = new int[walkedCount];
+		for (int i = 0; i < walkedCount; i++) {
+			path[i] = walked[walkedCount - 1 - i];
+		}
+
+		return path;
+	}
+
+	/**
+	 * Checks whether the A* algorithm would close the candidate state before the other state
+	 * @param candidate The candidate state id
+	 * @param other The other state id
+	 * @return Returns true if the candidate is preferred, false otherwise
+	 */
+	private boolean isPreferred(int candidate, int other) {
+
+		int compared = Double.compare(distances[candidate] + graph.getHeuristic(candidate),
+				distances[other] + graph.getHeuristic(other));
+
+		return compared != 0 ? compared < 0 : graph.getRank(candidate) < graph.getRank(other);
+	}
+
+	/**
+	 * Checks whether both searches found a solution of the same cost
+	 * @param result The result of the incremental search
+	 * @param recomputed The result of the new search
+	 * @return Returns true if the results match, false otherwise
+	 */
+	private static boolean matches(SearchResult result, SearchResult recomputed) {
+
+		if (result.isFound() != recomputed.isFound()) {
+			return false;
+		}
+
+		return !result.isFound()
+				|| Math.abs(result.getCost() - recomputed.getCost()) <= 1e-9 * Math.max(1, recomputed.getCost());
+	}
+
+	/**
+	 * Compares the keys of two states
+	 * @param state1 The first state id
+	 * @param state2 The second state id
+	 * @return Returns a negative number, zero or a positive number if the first key is smaller, equal to or larger
+	 * than the second one
+	 */
+	private int compareKeys(int state1, int state2) {
+
+		double cost1 = Math.min(distances[state1], lookaheads[state1]);
+		double cost2 = Math.min(distances[state2], lookaheads[state2]);
+
+		int compared = Double.compare(cost1 + graph.getHeuristic(state1), cost2 + graph.getHeuristic(state2));
+		if (compared == 0) {
+			compared = Double.compare(cost1, cost2);
+		}
+
+		return compared != 0 ? compared : Integer.compare(graph.getRank(state1), graph.getRank(state2));
+	}
+
+	/**
+	 * Inserts the state into the queue with its current key
+	 * @param state The state id
+	 */
+	private void insert(int state) {
+
+		double cost = Math.min(distances[state], lookaheads[state]);
+		primaryKeys[state] = cost + graph.getHeuristic(state);
+		secondaryKeys[state] = cost;
+		siftUp(state, size++);
+	}
+
+	/**
+	 * Removes the state with the smallest key from the queue
+	 * @return Returns the removed state id
+	 */
+	private int poll() {
+
+		int first = heap[0];
+		remove(first);
+
+		return first;
+	}
+
+	/**
+	 * Removes the state from the queue
+	 * @param state The state id
+	 */
+	private void remove(int state) {
+
+		int i = positions[state];
+		positions[state] = -1;
+		size--;
+
+		if (i < size) {
+			int last = heap[size];
+			siftDown(last, i);
+			if (heap[i] == last) {
+				siftUp(last, i);
+			}
+		}
+	}
+
+	/**
+	 * Moves the state up from the provided position until the queue order is restored
+	 * @param state The state id
+	 * @param i The position of the state
+	 */
+	private void siftUp(int state, int i) {
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (compareQueued(state, heap[parent]) >= 0) {
+				break;
+			}
+
+			heap[i] = heap[parent];
+			positions[heap[i]] = i;
+			i = parent;
+		}
+
+		heap[i] = state;
+		positions[state] = i;
+	}
+
+	/**
+	 * Moves the state down from the provided position until the queue order is restored
+	 * @param state The state id
+	 * @param i The position of the state
+	 */
+	private void siftDown(int state, int i) {
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+
+			if (child + 1 < size && compareQueued(heap[child + 1], heap[child]) < 0) {
+				child++;
+			}
+
+			if (compareQueued(heap[child], state) >= 0) {
+				break;
+			}
+
+			heap[i] = heap[child];
+			positions[heap[i]] = i;
+			i = child;
+		}
+
+		heap[i] = state;
+		positions[state] = i;
+	}
+
+	/**
+	 * Compares the keys with which two states were inserted into the queue
+	 * @param state1 The first state id
+	 * @param state2 The second state id
+	 * @return Returns a negative number, zero or a positive number if the first key is smaller, equal to or larger
+	 * than the second one
+	 */
+	private int compareQueued(int state1, int state2) {
+
+		int compared = Double.compare(primaryKeys[state1], primaryKeys[state2]);
+		if (compared == 0) {
+			compared = Double.compare(secondaryKeys[state1], secondaryKeys[state2]);
+		}
+
+		return compared != 0 ? compared : Integer.compare(graph.getRank(state1), graph.getRank(state2));
+	}
+
+	/**
+	 * Checks whether the first <code>count</code> states of the provided array contain the state
+	 * @param states The array of states
+	 * @param count The number of states
+	 * @param state The state
+	 * @return Returns true if the state is contained, false otherwise
+	 */
+	private static boolean contains(int[] states, int count, int state) {
+		for (int i = 0; i < count; i++) {
+			if (states[i] == state) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
@@ -0,0 +1,65 @@
+package ui;
+
+/**
+ * An implementation of a class which can execute an A* search algorithm guided by the larger of the heuristic
+ * of the graph and the lower bound given by the {@link Landmarks}
+ * @author Vito Sabalic
+ *
+ */
+public class LandmarkAStar implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+	private Landmarks landmarks;
+	private boolean compare;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 * @param landmarks
+	 * @param compare true if the search should be repeated without the landmarks, to report how many fewer states
+	 * are visited with them, false otherwise
+	 */
+	public LandmarkAStar(Graph graph, int[] solutions, int starterNode, String heuristicsPath, Landmarks landmarks,
+			boolean compare) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+		this.landmarks = landmarks;
+		this.compare = compare;
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		AStar aStar = new AStar(graph, solutions, starterNode, heuristicsPath);
+		Heuristic heuristic = landmarks.createHeuristic(solutions, graph::getHeuristic);
+
+		SearchResult result = aStar.search(context, starterNode, solutions, heuristic, context.getHeap(),
+				"# A-STAR-ALT " + heuristicsPath).addStatistic("LANDMARKS", landmarks.getLandmarks().length);
+
+		if (compare) {
+			int baseline = aStar.search(context, starterNode, solutions).getVisitedCount();
+			result.addStatistic("STATES_VISITED_WITHOUT_LANDMARKS", baseline);
+			result.addStatistic("VISITED_REDUCTION", String.format("%.1f%%",
+					baseline == 0 ? 0 : 100.0 * (baseline - result.getVisitedCount()) / baseline));
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,438 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The distances from a few landmark states to every state, and from every state to the landmarks, which give
+ * a lower bound of the cost of the cheapest path between any two states through the triangle inequality (ALT).
+ * The landmarks are chosen one by one as the state farthest from the already chosen ones by the number of
+ * transitions in either direction, and the distances are computed by a Dijkstra search from every landmark over
+ * the graph and over the reverse graph, all of them in parallel. The distances are stored as floats, with
+ * the distances of every state next to each other.
+ * <p>
+ * The file starts with a header of the magic number, the format version, the number of states, the number
+ * of transitions and the number of landmarks. It is followed by the landmarks, the distances from the landmarks
+ * and the distances to the landmarks
+ * @author Vito Sabalic
+ *
+ */
+public class Landmarks {
+
+	private static final int MAGIC = 0x55494C4D;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+	private int stateCount;
+	private int[] landmarks;
+	private float[] distancesFrom;
+	private float[] distancesTo;
+
+	/**
+	 * A simple constructor
+	 * @param stateCount The number of states
+	 * @param landmarks The landmark state ids
+	 * @param distancesFrom The distances from every landmark to every state, indexed by the state id times the number
+	 * of landmarks plus the landmark index
+	 * @param distancesTo The distances from every state to every landmark, indexed the same way
+	 */
+	public Landmarks(int stateCount, int[] landmarks, float[] distancesFrom, float[] distancesTo) {
+		this.stateCount = stateCount;
+		this.landmarks = landmarks;
+		this.distancesFrom = distancesFrom;
+		this.distancesTo = distancesTo;
+	}
+
+	/**
+	 * A getter for the landmarks
+	 * @return Returns the landmark state ids
+	 */
+	public int[] getLandmarks() {
+		return landmarks;
+	}
+
+	/**
+	 * A getter for the size of the distance tables
+	 * @return Returns the size in bytes
+	 */
+	public long getTableSize() {
+		return (long) Float.BYTES * (distancesFrom.length + distancesTo.length);
+	}
+
+	/**
+	 * Chooses the landmarks of the graph and computes their distance tables
+	 * @param graph The graph
+	 * @param count The number of landmarks, limited by the number of states
+	 * @param threads The number of threads which compute the distances
+	 * @return Returns the computed landmarks
+	 */
+	public static Landmarks compute(Graph graph, int count, int threads) {
+
+		int stateCount = graph.getStateCount();
+		int[] landmarks = choose(graph, Math.min(count, stateCount));
+		int k = landmarks.length;
+		float[] distancesFrom = new float[stateCount * k];
+		float[] distancesTo = new float[stateCount * k];
+		Graph reverse = graph.getReverse();
+
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			for (int i = 0; i < k; i++) {
+				int index = i;
+				tasks.add(pool.submit(() -> computeDistances(graph, landmarks[index], distancesFrom, index, k)));
+				tasks.add(pool.submit(() -> computeDistances(reverse, landmarks[index], distancesTo, index, k)));
+			}
+
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		return new Landmarks(stateCount, landmarks, distancesFrom, distancesTo);
+	}
+
+	/**
+	 * Creates a heuristic for the provided destination states, which is the larger of the lower bound given by
+	 * the landmarks and the provided heuristic. States from which the landmarks prove that no destination state
+	 * can be reached are estimated as infinitely far
+	 * @param goals The destination state ids
+	 * @param base The heuristic which is combined with the lower bound of the landmarks
+	 * @return Returns the created heuristic
+	 */
+	public Heuristic createHeuristic(int[] goals, Heuristic base) {
+
+		int k = landmarks.length;
+		if (k == 0 || goals.length == 0) {
+			return base;
+		}
+
+		float[] goalsFrom = new float[goals.length * k];
+		float[] goalsTo = new float[goals.length * k];
+		for (int g = 0; g < goals.length; g++) {
+			System.arraycopy(distancesFrom, goals[g] * k, goalsFrom, g * k, k);
+			System.arraycopy(distancesTo, goals[g] * k, goalsTo, g * k, k);
+		}
+
+		return new Heuristic() {
+
+			@Override
+			public double estimate(int state) {
+
+				double best = Double.POSITIVE_INFINITY;
+
+				for (int g = 0; g < goals.length && best > 0; g++) {
+					best = Math.min(best, estimateToGoal(state, goalsFrom, goalsTo, g * k));
+				}
+
+				return Math.max(best, base.estimate(state));
+			}
+
+		};
+	}
+
+	/**
+	 * Estimates the lower bound of the cost of the cheapest path from the state to a single destination state
+	 * @param state The state id
+	 * @param goalsFrom The distances from the landmarks to the destination states
+	 * @param goalsTo The distances from the destination states to the landmarks
+	 * @param goalOffset The offset of the distances of the destination state
+	 * @return Returns the lower bound, which is infinite if the destination state cannot be reached
+	 */
+	private double estimateToGoal(int state, float[] goalsFrom, float[] goalsTo, int goalOffset) {
+
+		int k = landmarks.length;
+		int stateOffset = state * k;
+		double bound = 0;
+
+		for (int i = 0; i < k; i++) {
+			float fromToGoal = goalsFrom[goalOffset + i];
+			float fromToState = distancesFrom[stateOffset + i];
+			float stateToLandmark = distancesTo[stateOffset + i];
+			float goalToLandmark = goalsTo[goalOffset + i];
+
+			boolean stateReached = fromToState != Float.POSITIVE_INFINITY;
+			boolean goalReached = fromToGoal != Float.POSITIVE_INFINITY;
+			boolean stateReaches = stateToLandmark != Float.POSITIVE_INFINITY;
+			boolean goalReaches = goalToLandmark != Float.POSITIVE_INFINITY;
+
+			if (stateReached && !goalReached || !stateReaches && goalReaches) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			if (stateReached) {
+				bound = Math.max(bound, lowerBound(fromToGoal, fromToState));
+			}
+
+			if (goalReaches && stateReaches) {
+				bound = Math.max(bound, lowerBound(stateToLandmark, goalToLandmark));
+			}
+		}
+
+		return bound;
+	}
+
+	/**
+	 * Calculates the difference of two distances, decreased by the largest rounding error of the distances
+	 * stored as floats, so that it remains a lower bound
+	 * @param minuend The larger distance
+	 * @param subtrahend The smaller distance
+	 * @return Returns the difference, or 0 if it is negative
+	 */
+	private static double lowerBound(float minuend, float subtrahend) {
+		return Math.max(0, (double) minuend - subtrahend - ((double) minuend + subtrahend) * 0x1p-23);
+	}
+
+	/**
+	 * Writes the landmarks to the file on the provided path
+	 * @param path The path of the file
+	 * @param graph The graph of the landmarks, whose size is stored to validate the file when it is read
+	 * @throws IOException If the file cannot be written
+	 */
+	public void write(String path, Graph graph) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(GraphSnapshot.CHUNK_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(stateCount).putInt(graph.getTransitionCount())
+					.putInt(landmarks.length);
+
+			GraphSnapshot.writeInts(channel, buffer, landmarks);
+			writeFloats(channel, buffer, distancesFrom);
+			writeFloats(channel, buffer, distancesTo);
+			GraphSnapshot.flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Reads the landmarks from the file on the provided path
+	 * @param path The path of the file
+	 * @param graph The graph of the landmarks
+	 * @return Returns the read landmarks
+	 * @throws IOException If the file cannot be read, is not a landmark file of a supported version or was created
+	 * for a different graph
+	 */
+	public static Landmarks read(String path, Graph graph) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException(path + ": not a landmark file");
+			}
+
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC) {
+				throw new IOException(path + ": not a landmark file");
+			}
+
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(path + ": unsupported landmark file version " + version);
+			}
+
+			int stateCount = header.getInt();
+			int transitionCount = header.getInt();
+			int count = header.getInt();
+
+			if (stateCount != graph.getStateCount() || transitionCount != graph.getTransitionCount()) {
+				throw new IOException(path + ": landmarks of a different state space");
+			}
+
+			long expectedSize = HEADER_SIZE + (long) Integer.BYTES * count + 2L * Float.BYTES * count * stateCount;
+			if (count < 0 || expectedSize != channel.size()) {
+				throw new IOException(path + ": corrupted landmark file");
+			}
+
+			int[] landmarks = new int[count];
+			long position = GraphSnapshot.readInts(channel, HEADER_SIZE, landmarks);
+			float[] distancesFrom = new float[count * stateCount];
+			position = readFloats(channel, position, distancesFrom);
+			float[] distancesTo = new float[count * stateCount];
+			readFloats(channel, position, distancesTo);
+
+			return new Landmarks(stateCount, landmarks, distancesFrom, distancesTo);
+		}
+	}
+
+	/**
+	 * Chooses the landmarks, each the state farthest from the already chosen ones by the number of transitions
+	 * in either direction. States which cannot be reached from the chosen ones are the farthest, and the first
+	 * landmark is the state farthest from the first state
+	 * @param graph The graph
+	 * @param count The number of landmarks
+	 * @return Returns the landmark state ids
+	 */
+	private static int[] choose(Graph graph, int count) {
+
+		int stateCount = graph.getStateCount();
+		Graph reverse = graph.getReverse();
+		int[] hops = new int[stateCount];
+		int[] queue = new int[stateCount];
+		int[] landmarks = new int[count];
+
+		if (count == 0) {
+			return landmarks;
+		}
+
+		Arrays.fill(hops, Integer.MAX_VALUE);
+		updateHops(graph, reverse, 0, hops, queue);
+		int next = farthest(hops);
+
+		for (int i = 0; i < count; i++) {
+			landmarks[i] = next;
+
+			if (i == 0) {
+				Arrays.fill(hops, Integer.MAX_VALUE);
+			}
+
+			updateHops(graph, reverse, next, hops, queue);
+			next = farthest(hops);
+		}
+
+		return landmarks;
+	}
+
+	/**
+	 * Lowers the number of transitions to every state to the number of transitions from the provided state,
+	 * in either direction, if it is smaller
+	 * @param graph The graph
+	 * @param reverse The reverse graph
+	 * @param source The state id from which the transitions are counted
+	 * @param hops The numbers of transitions from the nearest chosen state
+	 * @param queue The queue of the BFS, large enough for all states
+	 */
+	private static void updateHops(Graph graph, Graph reverse, int source, int[] hops, int[] queue) {
+
+		Graph[] directions = { graph, reverse };
+		int head = 0;
+		int tail = 0;
+		hops[source] = 0;
+		queue[tail++] = source;
+
+		while (head < tail) {
+			int state = queue[head++];
+
+			for (Graph g : directions) {
+				for (int i = g.getFirstTransition(state); i < g.getLastTransition(state); i++) {
+					int adjacent = g.getTarget(i);
+
+					if (hops[state] + 1 < hops[adjacent]) {
+						hops[adjacent] = hops[state] + 1;
+						queue[tail++] = adjacent;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the state with the largest number of transitions from the chosen states
+	 * @param hops The numbers of transitions from the nearest chosen state
+	 * @return Returns the state id, the smallest one if there are several
+	 */
+	private static int farthest(int[] hops) {
+
+		int farthest = 0;
+		for (int i = 1; i < hops.length; i++) {
+			if (hops[i] > hops[farthest]) {
+				farthest = i;
+			}
+		}
+
+		return farthest;
+	}
+
+	/**
+	 * Computes the distances from the landmark to every state by a Dijkstra search
+	 * @param graph The graph or the reverse graph
+	 * @param landmark The landmark state id
+	 * @param table The table of the distances
+	 * @param index The index of the landmark
+	 * @param count The number of landmarks
+	 */
+	private static void computeDistances(Graph graph, int landmark, float[] table, int index, int count) {
+
+		SearchContext context = new SearchContext(graph);
+		context.reset();
+		context.set(landmark, 0, -1);
+
+		Frontier unvisited = context.getFrontier(false);
+		unvisited.push(landmark, 0);
+
+		while (!unvisited.isEmpty()) {
+			int currentNode = unvisited.poll();
+
+			for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+				int adjacent = graph.getTarget(i);
+
+				if (!context.isClosed(adjacent) && context.relax(adjacent, graph.getCost(i), currentNode)) {
+					unvisited.push(adjacent, context.getDistance(adjacent));
+				}
+			}
+
+			context.close(currentNode);
+		}
+
+		for (int state = 0; state < graph.getStateCount(); state++) {
+			double distance = context.getDistance(state);
+			table[state * count + index] = distance == Double.MAX_VALUE ? Float.POSITIVE_INFINITY : (float) distance;
+		}
+	}
+
+	/**
+	 * Writes the array through the buffer
+	 * @param channel The channel
+	 * @param buffer The buffer
+	 * @param values The array
+	 * @throws IOException If the array cannot be written
+	 */
+	private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] values) throws IOException {
+
+		int written = 0;
+		while (written < values.length) {
+			if (buffer.remaining() < Float.BYTES) {
+				GraphSnapshot.flush(channel, buffer);
+			}
+
+			int count = Math.min(values.length - written, buffer.remaining() / Float.BYTES);
+			buffer.asFloatBuffer().put(values, written, count);
+			buffer.position(buffer.position() + count * Float.BYTES);
+			written += count;
+		}
+	}
+
+	/**
+	 * Reads the array from the memory-mapped file, chunk by chunk
+	 * @param channel The channel
+	 * @param position The position of the array in the file
+	 * @param values The array to read into
+	 * @return Returns the position after the array
+	 * @throws IOException If the array cannot be read
+	 */
+	private static long readFloats(FileChannel channel, long position, float[] values) throws IOException {
+
+		int read = 0;
+		while (read < values.length) {
+			int count = Math.min(values.length - read, GraphSnapshot.CHUNK_SIZE / Float.BYTES);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Float.BYTES).asFloatBuffer()
+					.get(values, read, count);
+			position += (long) count * Float.BYTES;
+			read += count;
+		}
+
+		return position;
+	}
+
+}
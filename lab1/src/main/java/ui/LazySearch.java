@@ -0,0 +1,485 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute the BFS, UCS, A* and IDA* search algorithms over a
+ * {@link StateSpace}, whose states are generated only when they are reached. The BFS, UCS and A* algorithms
+ * store only the reached states in a {@link StateTable}, while the IDA* algorithm stores only the current path
+ * and the successors of its states, and checks whether a successor is already on the path by scanning the path.
+ * Ties between states are broken by {@link StateSpace#getOrder(long)}, and the BFS algorithm keeps the last state
+ * which reached a state as its previous state, so over a loaded graph the output is the same as the one of the
+ * {@link BFS}, {@link UCS}, {@link AStar} and {@link IDAStar} algorithms, followed by the number of reached states
+ * @author Vito Sabalic
+ *
+ */
+public class LazySearch {
+
+	private StateSpace space;
+	private String algorithm;
+	private String heuristicName;
+	private StateTable table;
+	private int[] heapIds;
+	private double[] heapKeys;
+	private long[] heapOrders;
+	private int heapSize;
+	private long[][] children;
+	private double[][] childCosts;
+	private int[] childCounts;
+
+	/**
+	 * A simple constructor
+	 * @param space The state space
+	 * @param algorithm The name of the algorithm, one of <code>bfs</code>, <code>ucs</code>, <code>astar</code>
+	 * and <code>idastar</code>
+	 * @param heuristicName The name of the heuristic, used in the output of the A* and IDA* algorithms
+	 */
+	public LazySearch(StateSpace space, String algorithm, String heuristicName) {
+		this.space = space;
+		this.algorithm = algorithm;
+		this.heuristicName = heuristicName;
+	}
+
+	/**
+	 * Checks whether the algorithm with the provided name can search over a state space
+	 * @param algorithm The name of the algorithm
+	 * @return Returns true if it can, false otherwise
+	 */
+	public static boolean supports(String algorithm) {
+		return algorithm.equals("bfs") || algorithm.equals("ucs") || algorithm.equals("astar") || algorithm.equals("idastar");
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search());
+	}
+
+	/**
+	 * Searches for the path from the starter state to any of the destination states
+	 * @return Returns the result of the search
+	 */
+	public SearchResult search() {
+
+		switch (algorithm) {
+		case "bfs":
+			return breadthFirst();
+		case "ucs":
+			return bestFirst("# UCS", false);
+		case "astar":
+			return bestFirst("# A-STAR " + heuristicName, true);
+		case "idastar":
+			return iterativeDeepening("# IDA-STAR " + heuristicName);
+		default:
+			throw new IllegalArgumentException("The algorithm '" + algorithm + "' cannot search over a state space");
+		}
+	}
+
+	/**
+	 * Executes the BFS algorithm
+	 * @return Returns the result of the search
+	 */
+	private SearchResult breadthFirst() {
+
+		table = new StateTable();
+		int[] queue = new int[1 << 10];
+		int head = 0;
+		int tail = 0;
+		long[][] successors = { new long[4] };
+		long[][] orders = { new long[4] };
+		int[] count = { 0 };
+
+		queue[tail++] = table.add(space.getStarter(), 0, -1);
+
+		while (head < tail) {
+
+			int current = queue[head++];
+			long state = table.getState(current);
+
+			if (space.isGoal(state)) {
+				int[] path = table.calculatePath(current);
+				return found("# BFS", table.getClosedCount() + 1, path, calculateCostBackwards(path));
+			}
+
+			table.close(current);
+
+			count[0] = 0;
+			space.expand(state, (successor, cost) -> {
+				int adjacent = table.find(successor);
+
+				if (adjacent == -1 || !table.isClosed(adjacent)) {
+					if (count[0] == successors[0].length) {
+						successors[0] = Arrays.copyOf(successors[0], count[0] * 2);
+						orders[0] = Arrays.copyOf(orders[0], count[0] * 2);
+					}
+					successors[0][count[0]] = successor;
+					orders[0][count[0]++] = space.getOrder(successor);
+				}
+			});
+
+			sortByOrder(successors[0], orders[0], count[0]);
+
+			for (int i = 0; i < count[0]; i++) {
+				int adjacent = table.find(successors[0][i]);
+
+				if (adjacent == -1) {
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, tail * 2);
+					}
+					queue[tail++] = table.add(successors[0][i], 0, current);
+				} else {
+					table.set(adjacent, 0, current);
+				}
+			}
+		}
+
+		return notFound("# BFS", table.getClosedCount());
+	}
+
+	/**
+	 * Executes the UCS or the A* algorithm
+	 * @param header The header line of the output
+	 * @param heuristic true if the heuristic is added to the keys of the frontier, false otherwise
+	 * @return Returns the result of the search
+	 */
+	private SearchResult bestFirst(String header, boolean heuristic) {
+
+		table = new StateTable();
+		heapIds = new int[1 << 10];
+		heapKeys = new double[1 << 10];
+		heapOrders = new long[1 << 10];
+		heapSize = 0;
+
+		long starter = space.getStarter();
+		push(table.add(starter, 0, -1), heuristic ? space.getHeuristic(starter) : 0, space.getOrder(starter));
+
+		while (heapSize > 0) {
+
+			int current = poll();
+			if (table.isClosed(current)) {
+				continue;
+			}
+
+			long state = table.getState(current);
+
+			if (space.isGoal(state)) {
+				return found(header, table.getClosedCount() + 1, table.calculatePath(current), table.getDistance(current));
+			}
+
+			table.close(current);
+
+			space.expand(state, (successor, cost) -> {
+				double distance = table.getDistance(current) + cost;
+				int adjacent = table.find(successor);
+
+				if (adjacent == -1) {
+					adjacent = table.add(successor, distance, current);
+				} else if (!table.isClosed(adjacent) && distance < table.getDistance(adjacent)) {
+					table.set(adjacent, distance, current);
+				} else {
+					return;
+				}
+
+				push(adjacent, heuristic ? distance + space.getHeuristic(successor) : distance, space.getOrder(successor));
+			});
+		}
+
+		return notFound(header, table.getClosedCount());
+	}
+
+	/**
+	 * Executes the IDA* algorithm
+	 * @param header The header line of the output
+	 * @return Returns the result of the search
+	 */
+	private SearchResult iterativeDeepening(String header) {
+
+		long[] path = new long[16];
+		double[] costs = new double[16];
+		children = new long[16][];
+		childCosts = new double[16][];
+		childCounts = new int[16];
+		int[] cursors = new int[16];
+		boolean[] repeated = new boolean[16];
+		double bound = space.getHeuristic(space.getStarter());
+		double previousBound = Double.NEGATIVE_INFINITY;
+		long expanded = 0;
+		long reexpanded = 0;
+		int iterations = 0;
+
+		while (true) {
+
+			iterations++;
+			double nextBound = Double.MAX_VALUE;
+			int depth = 0;
+			path[0] = space.getStarter();
+			costs[0] = 0;
+			cursors[0] = -1;
+
+			while (depth >= 0) {
+
+				long state = path[depth];
+
+				if (cursors[depth] == -1) {
+					double estimate = costs[depth] + space.getHeuristic(state);
+
+					if (estimate > bound) {
+						nextBound = Math.min(nextBound, estimate);
+						depth--;
+						continue;
+					}
+
+					if (space.isGoal(state)) {
+						String[] names = new String[depth + 1];
+						for (int i = 0; i <= depth; i++) {
+							names[i] = space.getName(path[i]);
+						}
+
+						return new SearchResult(header, true, (int) Math.min(expanded + 1, Integer.MAX_VALUE), names, costs[depth])
+								.addStatistic("REEXPANSIONS", reexpanded)
+								.addStatistic("ITERATIONS", iterations);
+					}
+
+					expanded++;
+					repeated[depth] = estimate <= previousBound && (depth == 0 || repeated[depth - 1]);
+					if (repeated[depth]) {
+						reexpanded++;
+					}
+
+					if (children[depth] == null) {
+						children[depth] = new long[4];
+						childCosts[depth] = new double[4];
+					}
+
+					int level = depth;
+					childCounts[level] = 0;
+					space.expand(state, (successor, cost) -> {
+						if (childCounts[level] == children[level].length) {
+							children[level] = Arrays.copyOf(children[level], childCounts[level] * 2);
+							childCosts[level] = Arrays.copyOf(childCosts[level], childCounts[level] * 2);
+						}
+						children[level][childCounts[level]] = successor;
+						childCosts[level][childCounts[level]++] = cost;
+					});
+					cursors[depth] = 0;
+				}
+
+				if (cursors[depth] == childCounts[depth]) {
+					depth--;
+					continue;
+				}
+
+				int i = cursors[depth]++;
+				long successor = children[depth][i];
+
+				if (isOnPath(path, depth, successor)) {
+					continue;
+				}
+
+				if (++depth == path.length) {
+					path = Arrays.copyOf(path, depth * 2);
+					costs = Arrays.copyOf(costs, depth * 2);
+					children = Arrays.copyOf(children, depth * 2);
+					childCosts = Arrays.copyOf(childCosts, depth * 2);
+					childCounts = Arrays.copyOf(childCounts, depth * 2);
+					cursors = Arrays.copyOf(cursors, depth * 2);
+					repeated = Arrays.copyOf(repeated, depth * 2);
+				}
+
+				path[depth] = successor;
+				costs[depth] = costs[depth - 1] + childCosts[depth - 1][i];
+				cursors[depth] = -1;
+			}
+
+			if (nextBound == Double.MAX_VALUE) {
+				return new SearchResult(header, false, (int) Math.min(expanded, Integer.MAX_VALUE), null, 0)
+						.addStatistic("REEXPANSIONS", reexpanded)
+						.addStatistic("ITERATIONS", iterations);
+			}
+
+			previousBound = bound;
+			bound = nextBound;
+		}
+	}
+
+	/**
+	 * Checks whether the state is on the current path
+	 * @param path The current path
+	 * @param depth The depth of the last state of the path
+	 * @param state The encoding of the state
+	 * @return Returns true if the state is on the path, false otherwise
+	 */
+	private static boolean isOnPath(long[] path, int depth, long state) {
+
+		for (int i = depth; i >= 0; i--) {
+			if (path[i] == state) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Sorts the first <code>count</code> successors by their order keys, keeping equal successors in their order
+	 * @param successors The encodings of the successors
+	 * @param orders The order keys of the successors
+	 * @param count The number of successors to sort
+	 */
+	private static void sortByOrder(long[] successors, long[] orders, int count) {
+
+		for (int i = 1; i < count; i++) {
+			long successor = successors[i];
+			long order = orders[i];
+			int j = i - 1;
+
+			while (j >= 0 && Long.compareUnsigned(orders[j], order) > 0) {
+				successors[j + 1] = successors[j];
+				orders[j + 1] = orders[j];
+				j--;
+			}
+
+			successors[j + 1] = successor;
+			orders[j + 1] = order;
+		}
+	}
+
+	/**
+	 * Calculates the total cost of the path, adding the costs of the transitions from the last state on,
+	 * the way {@link Graph#calculateCostBackwards(int[])} does
+	 * @param path The path of state ids
+	 * @return Returns the total cost
+	 */
+	private double calculateCostBackwards(int[] path) {
+
+		double[] cost = { 0 };
+
+		for (int i = path.length - 1; i > 0; i--) {
+			long target = table.getState(path[i]);
+			boolean[] found = { false };
+
+			space.expand(table.getState(path[i - 1]), (successor, transitionCost) -> {
+				if (!found[0] && successor == target) {
+					cost[0] += transitionCost;
+					found[0] = true;
+				}
+			});
+		}
+
+		return cost[0];
+	}
+
+	/**
+	 * Creates the result of a search which found a solution, with the number of reached states
+	 * @param header The header line of the output
+	 * @param visitedCount The number of visited states
+	 * @param path The path of state ids
+	 * @param cost The total cost of the path
+	 * @return Returns the created result
+	 */
+	private SearchResult found(String header, int visitedCount, int[] path, double cost) {
+
+		String[] names = new String[path.length];
+		for (int i = 0; i < path.length; i++) {
+			names[i] = space.getName(table.getState(path[i]));
+		}
+
+		return new SearchResult(header, true, visitedCount, names, cost)
+				.addStatistic("STATES_REACHED", table.size());
+	}
+
+	/**
+	 * Creates the result of a search which found no solution, with the number of reached states
+	 * @param header The header line of the output
+	 * @param visitedCount The number of visited states
+	 * @return Returns the created result
+	 */
+	private SearchResult notFound(String header, int visitedCount) {
+		return new SearchResult(header, false, visitedCount, null, 0)
+				.addStatistic("STATES_REACHED", table.size());
+	}
+
+	/**
+	 * Pushes the state to the frontier, which can contain the same state more than once.
+	 * States with equal keys are ordered by their order keys
+	 * @param id The state id
+	 * @param key The key
+	 * @param order The order key of the state
+	 */
+	private void push(int id, double key, long order) {
+
+		if (heapSize == heapIds.length) {
+			heapIds = Arrays.copyOf(heapIds, heapSize * 2);
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			heapOrders = Arrays.copyOf(heapOrders, heapSize * 2);
+		}
+
+		int i = heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!less(key, order, heapKeys[parent], heapOrders[parent])) {
+				break;
+			}
+			heapIds[i] = heapIds[parent];
+			heapKeys[i] = heapKeys[parent];
+			heapOrders[i] = heapOrders[parent];
+			i = parent;
+		}
+
+		heapIds[i] = id;
+		heapKeys[i] = key;
+		heapOrders[i] = order;
+	}
+
+	/**
+	 * Removes the entry with the smallest key from the frontier
+	 * @return Returns the state id of the removed entry
+	 */
+	private int poll() {
+
+		int first = heapIds[0];
+		heapSize--;
+
+		int id = heapIds[heapSize];
+		double key = heapKeys[heapSize];
+		long order = heapOrders[heapSize];
+		int i = 0;
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && less(heapKeys[child + 1], heapOrders[child + 1], heapKeys[child], heapOrders[child])) {
+				child++;
+			}
+			if (!less(heapKeys[child], heapOrders[child], key, order)) {
+				break;
+			}
+			heapIds[i] = heapIds[child];
+			heapKeys[i] = heapKeys[child];
+			heapOrders[i] = heapOrders[child];
+			i = child;
+		}
+
+		heapIds[i] = id;
+		heapKeys[i] = key;
+		heapOrders[i] = order;
+
+		return first;
+	}
+
+	/**
+	 * Compares two entries of the frontier
+	 * @param key The key of the first entry
+	 * @param order The order key of the state of the first entry
+	 * @param otherKey The key of the second entry
+	 * @param otherOrder The order key of the state of the second entry
+	 * @return Returns true if the first entry is removed before the second one, false otherwise
+	 */
+	private static boolean less(double key, long order, double otherKey, long otherOrder) {
+		return key < otherKey || key == otherKey && Long.compareUnsigned(order, otherOrder) < 0;
+	}
+
+}
@@ -0,0 +1,58 @@
+package ui;
+
+/**
+ * A heuristic derived from the destination states instead of being read from a heuristic file, selected by
+ * passing <code>nearest-goal</code> as the heuristic. The heuristic of every state is the cost of the cheapest path
+ * from it to its nearest destination state, calculated once by a single search over the reverse graph which starts
+ * from all destination states at once, in parallel if there is more than one thread, so it is both optimistic and
+ * consistent. The costs are summed backwards from the destination state, so unless the sums of transition costs
+ * are exact, the heuristic can exceed the cost the optimistic check sums in the forward order in the last digits.
+ * States which cannot reach any destination state get the largest cost of the other states, which keeps
+ * the heuristic consistent
+ * @author Vito Sabalic
+ *
+ */
+public class NearestGoalHeuristic {
+
+	/**
+	 * The name which selects the heuristic in place of the path of a heuristic file
+	 */
+	public static final String NAME = "nearest-goal";
+
+	/**
+	 * Checks whether the provided heuristic path selects this heuristic
+	 * @param heuristicPath The heuristic path
+	 * @return Returns true if it does, false otherwise
+	 */
+	public static boolean isSelected(String heuristicPath) {
+		return NAME.equals(heuristicPath);
+	}
+
+	/**
+	 * Calculates the heuristics of all states for the provided destination states
+	 * @param graph The graph
+	 * @param goals The destination state ids
+	 * @param threads The number of threads
+	 * @return Returns the heuristics, indexed by state id
+	 */
+	public static double[] calculate(Graph graph, int[] goals, int threads) {
+
+		double[] heuristics = OptimisticTest.calculateReverseCosts(graph, goals, threads);
+
+		double unreachable = 0;
+		for (double heuristic : heuristics) {
+			if (heuristic != Double.MAX_VALUE) {
+				unreachable = Math.max(unreachable, heuristic);
+			}
+		}
+
+		for (int i = 0; i < heuristics.length; i++) {
+			if (heuristics[i] == Double.MAX_VALUE) {
+				heuristics[i] = unreachable;
+			}
+		}
+
+		return heuristics;
+	}
+
+}
@@ -1,13 +1,6 @@
 package ui;
 
-import java.util.Comparator;
-
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * An implementation which checks whether the provided heuristic is optimistic
@@ -16,106 +9,266 @@ import java.util.Set;
  */
 public class OptimisticTest {
 
-	private List<Node> nodes;
-	private List<Node> endNodes;
+	/**
+	 * The relative difference of costs which is still considered to be caused by rounding
+	 */
+	private static final double TOLERANCE = 1e-9;
+
+	private Graph graph;
+	private int[] endNodes;
 	private boolean optimistic;
 	private String path;
+	private int threads;
 
 	/**
 	 * A simple constructor
-	 * @param nodes
+	 * @param graph
 	 * @param endNodes
 	 * @param path
+	 * @param threads The number of threads which calculate the true costs
 	 */
-	public OptimisticTest(List<Node> nodes, List<Node> endNodes, String path) {
-		this.nodes = nodes;
+	public OptimisticTest(Graph graph, int[] endNodes, String path, int threads) {
+		this.graph = graph;
 		this.endNodes = endNodes;
 		this.optimistic = true;
 		this.path = path;
+		this.threads = Math.max(1, threads);
 	}
 
 	/**
-	 * Executes the algorithm
+	 * Executes the algorithm. The true cost to reach the nearest end node is calculated for all nodes at once,
+	 * by a single search over the reverse graph which starts from all end nodes, in parallel if there is more than
+	 * one thread
 	 */
 	public void start() {
 
 		System.out.println("# HEURISTIC-OPTIMISTIC " + path);
 
-		l: for (Node starterNode : nodes) {
-			starterNode.setValue(0);
+		double[] costsToGo = calculateCostsToGo(graph, endNodes, threads);
 
-			Set<Node> visited = new HashSet<>();
-			Queue<Node> unvisited = new PriorityQueue<>(new Comparator<Node>() {
-				@Override
-				public int compare(Node o1, Node o2) {
+		for (int starterNode : graph.getStatesByName()) {
 
-					int i = Double.compare(o1.getValue(), o2.getValue());
-					if (i == 0) {
-						i = o1.getName().compareTo(o2.getName());
-					}
+			if (costsToGo[starterNode] == Double.MAX_VALUE) {
+				continue;
+			}
 
-					return i;
-				}
-			});
+			if (graph.getHeuristic(starterNode) <= costsToGo[starterNode]) {
+				System.out.println("[CONDITION]: [OK] h(" + graph.getName(starterNode) + ") <= h*: "
+						+ graph.getHeuristic(starterNode) + " <= " + costsToGo[starterNode]);
+			} else {
+				optimistic = false;
+				System.out.println("[CONDITION]: [ERR] h(" + graph.getName(starterNode) + ") <= h*: "
+						+ graph.getHeuristic(starterNode) + " <= " + costsToGo[starterNode]);
+			}
+		}
+
+		System.out.println("[CONCLUSION]: " + (optimistic ? "Heuristic is optimistic." : "Heuristic is not optimistic."));
+
+	}
+
+	/**
+	 * Calculates the cost of the cheapest path from every node to its nearest end node, by running
+	 * a single UCS search over the reverse graph, starting from all end nodes at once
+	 * @param graph The graph
+	 * @param endNodes The end nodes
+	 * @return Returns the costs indexed by node id, {@link Double#MAX_VALUE} for nodes which cannot reach any end node
+	 */
+	public static double[] calculateCostsToGo(Graph graph, int[] endNodes) {
+		return calculateCostsToGo(graph, endNodes, 1);
+	}
+
+	/**
+	 * Calculates the cost of the cheapest path from every node to its nearest end node, through the {@link DeltaStepping}
+	 * engine over the reverse graph if there is more than one thread, or a single UCS search over the reverse graph
+	 * otherwise. Unless the sums of transition costs are exact, see {@link #hasExactSums(Graph)}, the costs are then
+	 * summed again in the forward order, see {@link #calculateForwardCosts(Graph, int[], double[])}
+	 * @param graph The graph
+	 * @param endNodes The end nodes
+	 * @param threads The number of threads
+	 * @return Returns the costs indexed by node id, {@link Double#MAX_VALUE} for nodes which cannot reach any end node
+	 */
+	public static double[] calculateCostsToGo(Graph graph, int[] endNodes, int threads) {
 
-			unvisited.add(starterNode);
+		double[] costsToGo = calculateReverseCosts(graph, endNodes, threads);
 
-			while (!unvisited.isEmpty()) {
+		if (!hasExactSums(graph)) {
+			calculateForwardCosts(graph, endNodes, costsToGo);
+		}
 
-				Node currentNode = unvisited.poll();
+		return costsToGo;
+	}
 
-				if (endNodes.contains(currentNode)) {
-					visited.add(currentNode);
+	/**
+	 * Calculates the cost of the cheapest path from every node to its nearest end node, summed backwards from the
+	 * end node, through the {@link DeltaStepping} engine over the reverse graph if there is more than one thread,
+	 * or a single UCS search over the reverse graph otherwise
+	 * @param graph The graph
+	 * @param endNodes The end nodes
+	 * @param threads The number of threads
+	 * @return Returns the costs indexed by node id, {@link Double#MAX_VALUE} for nodes which cannot reach any end node
+	 */
+	static double[] calculateReverseCosts(Graph graph, int[] endNodes, int threads) {
+		return threads <= 1 ? runReverseSearch(graph, endNodes)
+				: new DeltaStepping(graph.getReverse(), threads).calculateDistances(endNodes, null);
+	}
 
-					if (starterNode.getHeuristic() <= currentNode.getValue()) {
-						System.out.println("[CONDITION]: [OK] h(" + starterNode.getName() + ") <= h*: "
-								+ starterNode.getHeuristic() + " <= " + currentNode.getValue());
-					} else {
-						optimistic = false;
-						System.out.println("[CONDITION]: [ERR] h(" + starterNode.getName() + ") <= h*: "
-								+ starterNode.getHeuristic() + " <= " + currentNode.getValue());
-					}
+	/**
+	 * Runs a single UCS search over the reverse graph, starting from all end nodes at once
+	 * @param graph The graph
+	 * @param endNodes The end nodes
+	 * @return Returns the costs indexed by node id, {@link Double#MAX_VALUE} for nodes which cannot reach any end node
+	 */
+	private static double[] runReverseSearch(Graph graph, int[] endNodes) {
 
-					nodes.forEach(n -> {
-						n.setValue(Integer.MAX_VALUE);
-						n.setVisitedFrom(null);
-					});
+		Graph reverse = graph.getReverse();
+		SearchContext context = new SearchContext(reverse);
+		Frontier unvisited = context.getFrontier(false);
 
-					continue l;
+		for (int endNode : endNodes) {
+			context.set(endNode, 0, -1);
+			unvisited.push(endNode, 0);
+		}
 
-				}
+		while (!unvisited.isEmpty()) {
 
-				for (Map.Entry<Node, Double> entry : currentNode.getAdjacentNodes().entrySet()) {
-					Node adjacent = entry.getKey();
+			int currentNode = unvisited.poll();
 
-					if (!visited.contains(adjacent)) {
-						calculateMinimumDistance(adjacent, entry.getValue(), currentNode);
-						unvisited.add(adjacent);
-					}
-				}
+			for (int i = reverse.getFirstTransition(currentNode); i < reverse.getLastTransition(currentNode); i++) {
+				int adjacent = reverse.getTarget(i);
 
-				visited.add(currentNode);
+				if (!context.isClosed(adjacent) && context.relax(adjacent, reverse.getCost(i), currentNode)) {
+					unvisited.push(adjacent, context.getDistance(adjacent));
+				}
 			}
+
+			context.close(currentNode);
 		}
 
-		System.out.println("[CONCLUSION]: " + (optimistic ? "Heuristic is optimistic." : "Heuristic is not optimistic."));
+		double[] costsToGo = new double[graph.getStateCount()];
+		for (int i = 0; i < costsToGo.length; i++) {
+			costsToGo[i] = context.getDistance(i);
+		}
+
+		return costsToGo;
+	}
+
+	/**
+	 * Checks whether every sum of transition costs along a path is exact in floating point, which holds if all
+	 * costs are multiples of the same power of two, such as integer or dyadic costs, and the cost of the longest
+	 * possible path in those units still fits into the significand
+	 * @param graph The graph
+	 * @return Returns true if the sums are exact, false otherwise
+	 */
+	private static boolean hasExactSums(Graph graph) {
+
+		if (graph.hasIntegerCosts()) {
+			return true;
+		}
+
+		int scale = 0;
+		for (double cost : graph.getCosts()) {
+			if (cost == 0) {
+				continue;
+			}
+			if (cost < Double.MIN_NORMAL || Double.isInfinite(cost)) {
+				return false;
+			}
 
+			long significand = Double.doubleToRawLongBits(cost) & 0xFFFFFFFFFFFFFL | 1L << 52;
+			scale = Math.max(scale, 52 - Math.getExponent(cost) - Long.numberOfTrailingZeros(significand));
+		}
+
+		return Math.scalb(graph.getMaxCost(), scale) * graph.getStateCount() <= 0x1p53;
 	}
 
 	/**
-	 * Calculates whether the cost of the transition from the current node to the adjacent node 
-	 * is cheaper than the stored cost of the transition in the adjacent node
-	 * @param adjacent The adjacent node
-	 * @param value The cost of the transition
-	 * @param currentNode The current node
+	 * Replaces the costs calculated over the reverse graph by the ones summed in the forward order. Floating point
+	 * addition is not associative, so summing the costs backwards from the end node can differ in the last digits
+	 * from the sum the UCS search starting from the node would find. A transition is tight if it lies on a path
+	 * whose cost is within rounding of the cheapest one. The tight transitions are walked backwards from the end
+	 * nodes in breadth first order, and every node follows the tight transition into an earlier visited node
+	 * whose chain has the smallest forward sum, the first one in the transition order on ties, which makes the
+	 * result independent of the number of threads which calculated the reverse costs
+	 * @param graph The graph
+	 * @param endNodes The end nodes
+	 * @param costsToGo The costs calculated over the reverse graph, which are replaced
 	 */
-	private void calculateMinimumDistance(Node adjacent, double value, Node currentNode) {
+	private static void calculateForwardCosts(Graph graph, int[] endNodes, double[] costsToGo) {
+
+		int count = costsToGo.length;
+		Graph reverse = graph.getReverse();
+		int[] order = new int[count];
+		int[] depths = new int[count];
+		int[] next = new int[count];
+		double[] nextCosts = new double[count];
+		double[] forwardCosts = costsToGo.clone();
+		Arrays.fill(depths, -1);
+
+		int head = 0;
+		int tail = 0;
+		for (int endNode : endNodes) {
+			if (depths[endNode] == -1) {
+				depths[endNode] = 0;
+				next[endNode] = -1;
+				forwardCosts[endNode] = 0;
+				order[tail++] = endNode;
+			}
+		}
+
+		while (head < tail) {
+			int node = order[head++];
+
+			for (int i = reverse.getFirstTransition(node); i < reverse.getLastTransition(node); i++) {
+				int adjacent = reverse.getTarget(i);
 
-		if (currentNode.getValue() + value < adjacent.getValue()) {
-			adjacent.setValue(currentNode.getValue() + value);
-			adjacent.setVisitedFrom(currentNode);
+				if (depths[adjacent] == -1 && isTight(costsToGo, adjacent, node, reverse.getCost(i))) {
+					depths[adjacent] = depths[node] + 1;
+					order[tail++] = adjacent;
+				}
+			}
+
+			if (depths[node] == 0) {
+				continue;
+			}
+
+			double best = Double.MAX_VALUE;
+			for (int i = graph.getFirstTransition(node); i < graph.getLastTransition(node); i++) {
+				int target = graph.getTarget(i);
+
+				if (depths[target] == -1 || depths[target] >= depths[node]
+						|| !isTight(costsToGo, node, target, graph.getCost(i))) {
+					continue;
+				}
+
+				double cost = graph.getCost(i);
+				for (int n = target; next[n] != -1; n = next[n]) {
+					cost += nextCosts[n];
+				}
+
+				if (cost < best) {
+					best = cost;
+					next[node] = target;
+					nextCosts[node] = graph.getCost(i);
+				}
+			}
+
+			forwardCosts[node] = best;
 		}
 
+		System.arraycopy(forwardCosts, 0, costsToGo, 0, count);
+	}
+
+	/**
+	 * Checks whether the transition lies on a path whose cost is within rounding of the cheapest one
+	 * @param costsToGo The costs calculated over the reverse graph
+	 * @param node The node the transition starts from
+	 * @param target The node the transition leads to
+	 * @param cost The cost of the transition
+	 * @return Returns true if the transition is tight, false otherwise
+	 */
+	private static boolean isTight(double[] costsToGo, int node, int target, double cost) {
+		return costsToGo[node] != Double.MAX_VALUE && costsToGo[target] != Double.MAX_VALUE
+				&& costsToGo[target] + cost <= costsToGo[node] + TOLERANCE * Math.max(1, costsToGo[node]);
 	}
 
 }
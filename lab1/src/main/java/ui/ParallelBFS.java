@@ -0,0 +1,337 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An implementation of a class which can execute a level-synchronous parallel BFS search algorithm.
+ * Every level is expanded by all threads at once, in two phases. In the first phase every unvisited state
+ * adjacent to the level is claimed by the earliest state of the level which reaches it. In the second phase
+ * every state of the level collects the states it claimed, sorted by their names, and marks them as visited
+ * in an atomic bitset. The collected states, in the order of the level, form the next level. The previous state
+ * of every state is the last state which reached it before it was visited, which can be an earlier state
+ * of its own level, as in the {@link BFS} algorithm, so the levels, the found path and its cost are the same
+ * as the ones of the {@link BFS} algorithm, regardless of the number of threads
+ * @author Vito Sabalic
+ *
+ */
+public class ParallelBFS implements Search {
+
+	/**
+	 * The smallest number of states of a level expanded by a single task
+	 */
+	private static final int CHUNK_STATES = 1 << 10;
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private int threads;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param threads
+	 */
+	public ParallelBFS(Graph graph, int[] solutions, int starterNode, int threads) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		context.reset();
+		GoalSet goals = context.getGoals(solutions);
+		context.set(starterNode, 0, -1);
+
+		AtomicLongArray visited = new AtomicLongArray((graph.getStateCount() + 63) >>> 6);
+		AtomicLongArray claims = new AtomicLongArray(graph.getStateCount());
+		AtomicLongArray parents = new AtomicLongArray(graph.getStateCount());
+		int[] order = new int[graph.getStateCount()];
+		ForkJoinPool pool = threads == 1 ? null : new ForkJoinPool(threads);
+
+		mark(visited, starterNode);
+		int[] level = { starterNode };
+		int previousCount = 0;
+		int depth = 0;
+
+		try {
+			while (level.length > 0) {
+
+				for (int i = 0; i < level.length; i++) {
+					if (depth > 0) {
+						context.set(level[i], depth, (int) parents.get(level[i]));
+					}
+
+					if (goals.contains(level[i])) {
+						int[] path = context.calculatePath(level[i]);
+						return new SearchResult(graph, "# BFS-PARALLEL", true, previousCount + i + 1, path,
+								graph.calculateCostBackwards(path))
+								.addStatistic("THREADS", threads)
+								.addStatistic("LEVELS", depth + 1);
+					}
+				}
+
+				depth++;
+				int[] current = level;
+				int currentOffset = previousCount;
+				long round = depth;
+				int chunkCount = Math.max(1, Math.min(threads * 4, (current.length + CHUNK_STATES - 1) / CHUNK_STATES));
+				int chunkSize = (current.length + chunkCount - 1) / chunkCount;
+
+				run(pool, chunkCount, chunk -> {
+					for (int p = chunk * chunkSize; p < Math.min(current.length, (chunk + 1) * chunkSize); p++) {
+						claim(visited, claims, parents, current[p], round << 32 | p, currentOffset + p);
+					}
+					return null;
+				});
+
+				List<int[]> parts = run(pool, chunkCount, chunk -> {
+					int[] part = new int[16];
+					int size = 0;
+
+					for (int p = chunk * chunkSize; p < Math.min(current.length, (chunk + 1) * chunkSize); p++) {
+						int state = current[p];
+						int first = size;
+
+						for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+							int adjacent = graph.getTarget(i);
+
+							if (claims.get(adjacent) == (round << 32 | p) && !isMarked(visited, adjacent)) {
+								mark(visited, adjacent);
+								if (size == part.length) {
+									part = Arrays.copyOf(part, size * 2);
+								}
+								part[size++] = adjacent;
+							}
+						}
+
+						sortByName(part, first, size);
+					}
+
+					return Arrays.copyOf(part, size);
+				});
+
+				int nextLength = 0;
+				for (int[] part : parts) {
+					nextLength += part.length;
+				}
+
+				previousCount += current.length;
+
+				int[] next = new int[nextLength];
+				int offset = 0;
+				for (int[] part : parts) {
+					System.arraycopy(part, 0, next, offset, part.length);
+					offset += part.length;
+				}
+				for (int p = 0; p < next.length; p++) {
+					order[next[p]] = previousCount + p;
+				}
+
+				int nextChunkCount = Math.max(1, Math.min(threads * 4, (next.length + CHUNK_STATES - 1) / CHUNK_STATES));
+				int nextChunkSize = (next.length + nextChunkCount - 1) / nextChunkCount;
+
+				run(pool, nextChunkCount, chunk -> {
+					for (int p = chunk * nextChunkSize; p < Math.min(next.length, (chunk + 1) * nextChunkSize); p++) {
+						claimLater(visited, parents, order, next[p], order[next[p]]);
+					}
+					return null;
+				});
+
+				level = next;
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+
+		return SearchResult.notFound(graph, "# BFS-PARALLEL", previousCount)
+				.addStatistic("THREADS", threads)
+				.addStatistic("LEVELS", depth);
+	}
+
+	/**
+	 * A task which expands a single chunk of a level
+	 * @author Vito Sabalic
+	 *
+	 * @param <T> The type of the result of the task
+	 */
+	private interface ChunkTask<T> {
+
+		/**
+		 * Expands the chunk
+		 * @param chunk The index of the chunk
+		 * @return Returns the result of the chunk
+		 */
+		T expand(int chunk);
+
+	}
+
+	/**
+	 * Runs the task for every chunk, in parallel if there is a pool
+	 * @param <T> The type of the results of the task
+	 * @param pool The pool, or null if the chunks should be expanded by the calling thread
+	 * @param chunkCount The number of chunks
+	 * @param task The task
+	 * @return Returns the results of the chunks, in the order of the chunks
+	 */
+	private static <T> List<T> run(ForkJoinPool pool, int chunkCount, ChunkTask<T> task) {
+
+		List<T> results = new ArrayList<>(chunkCount);
+
+		if (pool == null || chunkCount == 1) {
+			for (int chunk = 0; chunk < chunkCount; chunk++) {
+				results.add(task.expand(chunk));
+			}
+			return results;
+		}
+
+		List<ForkJoinTask<T>> tasks = new ArrayList<>(chunkCount);
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			int index = chunk;
+			tasks.add(pool.submit(() -> task.expand(index)));
+		}
+
+		for (ForkJoinTask<T> forkJoinTask : tasks) {
+			results.add(forkJoinTask.join());
+		}
+
+		return results;
+	}
+
+	/**
+	 * Claims every unvisited state adjacent to the state of the level, unless it is already claimed by an earlier
+	 * state of the same level, and offers the state as their previous state
+	 * @param visited The bitset of the visited states
+	 * @param claims The claims of the states, each the index of the level in the upper half and the position
+	 * of the claiming state in the lower half
+	 * @param parents The previous states of the states, see {@link #offerParent(AtomicLongArray, int, int, int)}
+	 * @param state The state of the level
+	 * @param claim The claim of the state
+	 * @param position The position of the state in the order in which the states are visited
+	 */
+	private void claim(AtomicLongArray visited, AtomicLongArray claims, AtomicLongArray parents, int state, long claim,
+			int position) {
+
+		for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+			int adjacent = graph.getTarget(i);
+
+			if (isMarked(visited, adjacent)) {
+				continue;
+			}
+
+			long existing = claims.get(adjacent);
+			while ((existing >>> 32 != claim >>> 32 || existing > claim) && !claims.compareAndSet(adjacent, existing, claim)) {
+				existing = claims.get(adjacent);
+			}
+
+			offerParent(parents, adjacent, state, position);
+		}
+	}
+
+	/**
+	 * Offers the state of the level as the previous state of every state adjacent to it which comes later
+	 * in the same level, which the sequential BFS does as well, since those states are not yet visited when
+	 * the state is expanded
+	 * @param visited The bitset of the visited states
+	 * @param parents The previous states of the states, see {@link #offerParent(AtomicLongArray, int, int, int)}
+	 * @param order The positions of the states of the level and the earlier levels in the order in which
+	 * the states are visited
+	 * @param state The state of the level
+	 * @param position The position of the state in the order in which the states are visited
+	 */
+	private void claimLater(AtomicLongArray visited, AtomicLongArray parents, int[] order, int state, int position) {
+
+		for (int i = graph.getFirstTransition(state); i < graph.getLastTransition(state); i++) {
+			int adjacent = graph.getTarget(i);
+
+			if (isMarked(visited, adjacent) && order[adjacent] > position) {
+				offerParent(parents, adjacent, state, position);
+			}
+		}
+	}
+
+	/**
+	 * Offers the state as the previous state of the adjacent state. The sequential BFS overwrites the previous
+	 * state every time a state is reached before it is visited, so the previous state is the one which was
+	 * visited last, and the offer with the latest position is kept
+	 * @param parents The previous states, each the position of the previous state plus one in the upper half and
+	 * the previous state in the lower half
+	 * @param adjacent The adjacent state
+	 * @param state The offered state
+	 * @param position The position of the offered state in the order in which the states are visited
+	 */
+	private static void offerParent(AtomicLongArray parents, int adjacent, int state, int position) {
+
+		long offer = (long) (position + 1) << 32 | state;
+		long existing = parents.get(adjacent);
+		while (existing < offer && !parents.compareAndSet(adjacent, existing, offer)) {
+			existing = parents.get(adjacent);
+		}
+	}
+
+	/**
+	 * Checks whether the state is marked in the bitset
+	 * @param bits The bitset
+	 * @param state The state id
+	 * @return Returns true if it is marked, false otherwise
+	 */
+	private static boolean isMarked(AtomicLongArray bits, int state) {
+		return (bits.get(state >>> 6) & (1L << state)) != 0;
+	}
+
+	/**
+	 * Marks the state in the bitset
+	 * @param bits The bitset
+	 * @param state The state id
+	 */
+	private static void mark(AtomicLongArray bits, int state) {
+
+		long bit = 1L << state;
+		long word = bits.get(state >>> 6);
+		while ((word & bit) == 0 && !bits.compareAndSet(state >>> 6, word, word | bit)) {
+			word = bits.get(state >>> 6);
+		}
+	}
+
+	/**
+	 * Sorts a range of the provided array of states by their names, through their ranks
+	 * @param states The states
+	 * @param from The index of the first state of the range
+	 * @param to The index after the last state of the range
+	 */
+	private void sortByName(int[] states, int from, int to) {
+
+		for (int i = from + 1; i < to; i++) {
+			int state = states[i];
+			int rank = graph.getRank(state);
+			int j = i - 1;
+
+			while (j >= from && graph.getRank(states[j]) > rank) {
+				states[j + 1] = states[j];
+				j--;
+			}
+
+			states[j + 1] = state;
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package ui;
+
+/**
+ * An implementation of a class which can execute the UCS search algorithm in parallel, through the
+ * {@link DeltaStepping} engine. Once the cost of a destination state is final, the path is walked backwards
+ * from the destination state, each time to the previous state from which the UCS algorithm would reach the
+ * current state: the cheapest one on a cheapest path, and the alphabetically first one among equally cheap ones.
+ * The visited states are the states the UCS algorithm would close, so the output is the same as the one
+ * of the UCS algorithm whenever all transitions have a positive cost
+ * @author Vito Sabalic
+ *
+ */
+public class ParallelUCS implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private int threads;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param threads
+	 */
+	public ParallelUCS(Graph graph, int[] solutions, int starterNode, int threads) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		long startTime = System.nanoTime();
+		DeltaStepping engine = new DeltaStepping(graph, threads);
+		double[] distances = engine.calculateDistances(new int[] { starterNode }, solutions);
+		long elapsed = Math.max(1, System.nanoTime() - startTime);
+
+		int finalState = -1;
+		for (int solution : solutions) {
+			if (distances[solution] != Double.MAX_VALUE
+					&& (finalState == -1 || isPreferred(distances, solution, finalState))) {
+				finalState = solution;
+			}
+		}
+
+		if (finalState == -1) {
+			return addStatistics(SearchResult.notFound(graph, "# UCS-PARALLEL", engine.getSettledCount()), engine, elapsed);
+		}
+
+		int visitedCount = 1;
+		for (int state = 0; state < distances.length; state++) {
+			if (distances[state] != Double.MAX_VALUE && isPreferred(distances, state, finalState)) {
+				visitedCount++;
+			}
+		}
+
+		int[] path = calculatePath(context, distances, starterNode, finalState);
+		if (path == null) {
+			SearchResult result = new UCS(graph, solutions, starterNode).search(context, starterNode, solutions);
+			path = result.getPath();
+			visitedCount = result.getVisitedCount();
+		}
+
+		return addStatistics(new SearchResult(graph, "# UCS-PARALLEL", true, visitedCount, path, distances[finalState]),
+				engine, elapsed);
+	}
+
+	/**
+	 * Adds the statistics of the engine to the result
+	 * @param result The result
+	 * @param engine The engine
+	 * @param elapsed The time spent by the engine in nanoseconds
+	 * @return Returns the result
+	 */
+	private SearchResult addStatistics(SearchResult result, DeltaStepping engine, long elapsed) {
+
+		return result.addStatistic("THREADS", threads)
+				.addStatistic("DELTA", engine.getDelta())
+				.addStatistic("BUCKETS", engine.getBucketCount())
+				.addStatistic("STATES_SETTLED", engine.getSettledCount())
+				.addStatistic("RELAXATIONS", engine.getRelaxations())
+				.addStatistic("THROUGHPUT", String.format("%.2f M transitions/s", engine.getRelaxations() * 1e3 / elapsed));
+	}
+
+	/**
+	 * Walks backwards from the final state, each time to the previous state from which the UCS algorithm would
+	 * reach the current state, and stores the path in the context
+	 * @param context The context
+	 * @param distances The costs of the states
+	 * @param starterNode The starter state id
+	 * @param finalState The final state id
+	 * @return Returns the path, or null if it cannot be walked because of transitions without a cost
+	 */
+	private int[] calculatePath(SearchContext context, double[] distances, int starterNode, int finalState) {
+
+		Graph reverse = graph.getReverse();
+		context.reset();
+
+		for (int currentNode = finalState; currentNode != starterNode;) {
+			int best = -1;
+
+			for (int i = reverse.getFirstTransition(currentNode); i < reverse.getLastTransition(currentNode); i++) {
+				int candidate = reverse.getTarget(i);
+
+				if (distances[candidate] != Double.MAX_VALUE
+						&& distances[candidate] + reverse.getCost(i) == distances[currentNode]
+						&& isPreferred(distances, candidate, currentNode)
+						&& (best == -1 || isPreferred(distances, candidate, best))) {
+					best = candidate;
+				}
+			}
+
+			if (best == -1) {
+				return null;
+			}
+
+			context.set(currentNode, distances[currentNode], best);
+			currentNode = best;
+		}
+
+		context.set(starterNode, 0, -1);
+
+		return context.calculatePath(finalState);
+	}
+
+	/**
+	 * Checks whether the UCS algorithm would close the state before the other state
+	 * @param distances The costs of the states
+	 * @param state The state id
+	 * @param other The other state id
+	 * @return Returns true if it would, false otherwise
+	 */
+	private boolean isPreferred(double[] distances, int state, int other) {
+
+		int compared = Double.compare(distances[state], distances[other]);
+
+		return compared != 0 ? compared < 0 : graph.getRank(state) < graph.getRank(other);
+	}
+
+}
@@ -0,0 +1,132 @@
+package ui;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the shortest path trees grown by the UCS search algorithm, keyed by their starter states and
+ * shared by all threads of the {@link QueryServer}. The total size of the arrays of the cached trees is bounded
+ * by a memory budget: once it is exceeded, the least recently used trees are evicted, and a tree which alone
+ * exceeds the budget is not cached at all
+ * @author Vito Sabalic
+ *
+ */
+public class PathTreeCache {
+
+	private final long memoryBudget;
+	private final LinkedHashMap<Integer, ShortestPathTree> trees;
+	private long bytes;
+	private long hits;
+	private long resumes;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * A simple constructor
+	 * @param memoryBudget The largest total number of bytes of the cached trees
+	 */
+	public PathTreeCache(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		this.trees = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * A getter for the cached tree of the starter state, which becomes the most recently used one
+	 * @param starter The starter state id
+	 * @return Returns the tree, or null if it is not cached
+	 */
+	public synchronized ShortestPathTree get(int starter) {
+		return trees.get(starter);
+	}
+
+	/**
+	 * Caches the tree in place of the previous tree of its starter state, and evicts the least recently used trees
+	 * until the cached trees fit into the memory budget
+	 * @param tree The tree
+	 */
+	public synchronized void put(ShortestPathTree tree) {
+
+		ShortestPathTree previous = trees.remove(tree.getStarter());
+		if (previous != null) {
+			bytes -= previous.getBytes();
+		}
+
+		if (tree.getBytes() > memoryBudget) {
+			return;
+		}
+
+		trees.put(tree.getStarter(), tree);
+		bytes += tree.getBytes();
+
+		Iterator<Map.Entry<Integer, ShortestPathTree>> iterator = trees.entrySet().iterator();
+		while (bytes > memoryBudget && iterator.hasNext()) {
+			bytes -= iterator.next().getValue().getBytes();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Records a query which was answered by a cached tree alone
+	 */
+	public synchronized void recordHit() {
+		hits++;
+	}
+
+	/**
+	 * Records a query which was answered by resuming a partially completed cached tree
+	 */
+	public synchronized void recordResume() {
+		resumes++;
+	}
+
+	/**
+	 * Records a query whose starter state had no cached tree
+	 */
+	public synchronized void recordMiss() {
+		misses++;
+	}
+
+	/**
+	 * Calculates the share of the queries which were answered by a cached tree alone
+	 * @return Returns the hit rate, between 0 and 1
+	 */
+	public synchronized double getHitRate() {
+		long queries = hits + resumes + misses;
+		return queries == 0 ? 0 : (double) hits / queries;
+	}
+
+	/**
+	 * A getter for the number of queries which resumed a cached tree
+	 * @return Returns the number of queries
+	 */
+	public synchronized long getResumes() {
+		return resumes;
+	}
+
+	/**
+	 * A getter for the number of evicted trees
+	 * @return Returns the number of evicted trees
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * A getter for the number of cached trees
+	 * @return Returns the number of trees
+	 */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/**
+	 * A getter for the total number of bytes of the cached trees
+	 * @return Returns the number of bytes
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+}
@@ -0,0 +1,421 @@
+package ui;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.IntStream;
+
+/**
+ * A long-running server which answers search queries over a graph which is loaded only once.
+ * Every query is a single line containing the algorithm, the starter state and optionally the destination
+ * states, for example <code>ucs Pula Buzet</code>. If no destination states are given, the ones from the
+ * state space file are used. Queries are answered concurrently by a pool of worker threads, each with its
+ * own {@link SearchContext}, but the answers are written in the order in which the queries were read.
+ * Every answer is in the output format of the search algorithms, followed by the latency of the query
+ * and an empty line. With the <code>nearest-goal</code> heuristic, a query with its own destination states
+ * first derives the heuristic for them, which costs a search over the whole reverse graph. The derived heuristics
+ * of the most recently used sets of destination states are cached, so repeated queries skip that search
+ * @author Vito Sabalic
+ *
+ */
+public class QueryServer {
+
+	/**
+	 * The largest number of sets of destination states whose derived heuristics are cached
+	 */
+	private static final int MAX_DERIVED_HEURISTICS = 8;
+
+	private final Graph graph;
+	private final int[] solutions;
+	private final String heuristicsPath;
+	private final int threads;
+	private final ExecutorService executor;
+	private final ThreadLocal<SearchContext> contexts;
+	private final LinkedHashMap<String, Graph> derivedHeuristics;
+	private Landmarks landmarks;
+	private ContractionHierarchy hierarchy;
+	private double weight = ARAStar.DEFAULT_WEIGHT;
+	private long timeBudget;
+	private PrintStream metricsOutput;
+	private PathTreeCache treeCache;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph
+	 * @param solutions The default destination states
+	 * @param heuristicsPath The path of the heuristic file, used in the output of the A* algorithm
+	 * @param threads The number of worker threads
+	 */
+	public QueryServer(Graph graph, int[] solutions, String heuristicsPath, int threads) {
+		this.graph = graph;
+		this.solutions = solutions;
+		this.heuristicsPath = heuristicsPath;
+		this.threads = threads;
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "query-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.contexts = ThreadLocal.withInitial(() -> new SearchContext(graph));
+		this.derivedHeuristics = new LinkedHashMap<String, Graph>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Graph> eldest) {
+				return size() > MAX_DERIVED_HEURISTICS;
+			}
+		};
+	}
+
+	/**
+	 * A setter for the landmarks, which enable the <code>astar-alt</code> algorithm
+	 * @param landmarks The landmarks of the graph, or null if there are none
+	 */
+	public void setLandmarks(Landmarks landmarks) {
+		this.landmarks = landmarks;
+	}
+
+	/**
+	 * A setter for the contraction hierarchy, which enables the <code>ch</code> algorithm
+	 * @param hierarchy The contraction hierarchy of the graph, or null if there is none
+	 */
+	public void setHierarchy(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+	}
+
+	/**
+	 * A setter for the starting weight and the time budget of the <code>arastar</code> algorithm
+	 * @param weight The weight of the heuristic in the first iteration
+	 * @param timeBudget The time budget of a query in milliseconds, or 0 if there is none
+	 */
+	public void setAnytimeLimits(double weight, long timeBudget) {
+		this.weight = weight;
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * A setter for the output of the metrics, to which a JSON line with the metrics of every answered query
+	 * is written. The queries of the algorithms which do not record the metrics are answered with an error line
+	 * @param metricsOutput The output, or null if the metrics should not be recorded
+	 */
+	public void setMetrics(PrintStream metricsOutput) {
+		this.metricsOutput = metricsOutput;
+	}
+
+	/**
+	 * A setter for the cache of shortest path trees, which makes the <code>ucs</code> algorithm answer repeated
+	 * starter states from their cached trees
+	 * @param treeCache The cache, or null if the trees should not be cached
+	 */
+	public void setTreeCache(PathTreeCache treeCache) {
+		this.treeCache = treeCache;
+	}
+
+	/**
+	 * Answers all queries read from the input until its end, neither stream is closed. A query whose search fails
+	 * is answered with an error line, like a malformed query, and the following queries are still answered
+	 * @param in The input the queries are read from
+	 * @param out The output the answers are written to
+	 * @throws IOException If reading or writing fails
+	 */
+	public void serve(InputStream in, OutputStream out) throws IOException {
+
+		BlockingQueue<CompletableFuture<String>> answers = new LinkedBlockingQueue<>();
+		CompletableFuture<String> end = CompletableFuture.completedFuture(null);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		IOException[] failure = new IOException[1];
+
+		Thread writerThread = new Thread(() -> {
+			try {
+				while (true) {
+					CompletableFuture<String> answer = answers.take();
+					if (answer == end) {
+						break;
+					}
+
+					writer.write(answer.get());
+					writer.write(System.lineSeparator());
+					if (answers.isEmpty()) {
+						writer.flush();
+					}
+				}
+				writer.flush();
+			} catch (IOException e) {
+				failure[0] = e;
+			} catch (InterruptedException | ExecutionException e) {
+				failure[0] = new IOException(e);
+			}
+		}, "query-writer");
+		writerThread.start();
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String query = line.trim();
+				if (query.isEmpty() || query.startsWith("#")) {
+					continue;
+				}
+
+				answers.add(CompletableFuture.supplyAsync(() -> answer(query), executor)
+						.exceptionally(e -> failed(query, e)));
+			}
+		} finally {
+			answers.add(end);
+			try {
+				writerThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+	/**
+	 * Listens for connections on the provided local port, and answers the queries of every connection
+	 * until it is closed. Every connection is handled by its own thread, while the queries of all connections
+	 * share the worker threads
+	 * @param port The port
+	 * @throws IOException If the port cannot be opened
+	 */
+	public void listen(int port) throws IOException {
+
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			while (true) {
+				Socket socket = serverSocket.accept();
+
+				Thread thread = new Thread(() -> {
+					try (socket) {
+						serve(socket.getInputStream(), socket.getOutputStream());
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}, "query-connection");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * Creates the answer to a query whose search failed, so that the failure does not stop the answers
+	 * to the following queries
+	 * @param query The query line
+	 * @param e The exception thrown by the search
+	 * @return Returns the answer, ending with a line separator
+	 */
+	private static String failed(String query, Throwable e) {
+
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		return "[ERROR]: the query '" + query + "' failed: " + cause + System.lineSeparator();
+	}
+
+	/**
+	 * Answers a single query
+	 * @param query The query line
+	 * @return Returns the answer, ending with a line separator so that consecutive answers are separated by an empty line
+	 */
+	String answer(String query) {
+
+		long startTime = System.nanoTime();
+		String[] parts = query.split("\\s+");
+
+		if (parts.length < 2) {
+			return "[ERROR]: expected <algorithm> <starter state> [<destination state> ...]" + System.lineSeparator();
+		}
+
+		int starterNode = graph.getId(parts[1]);
+		if (starterNode == -1) {
+			return "[ERROR]: unknown state '" + parts[1] + "'" + System.lineSeparator();
+		}
+
+		int[] destinationNodes = solutions;
+		if (parts.length > 2) {
+			destinationNodes = new int[parts.length - 2];
+			for (int i = 2; i < parts.length; i++) {
+				destinationNodes[i - 2] = graph.getId(parts[i]);
+				if (destinationNodes[i - 2] == -1) {
+					return "[ERROR]: unknown state '" + parts[i] + "'" + System.lineSeparator();
+				}
+			}
+		}
+
+		Graph searchGraph = graph;
+		if (destinationNodes != solutions && NearestGoalHeuristic.isSelected(heuristicsPath)
+				&& usesHeuristic(parts[0])) {
+			searchGraph = deriveHeuristic(destinationNodes);
+		}
+
+		Search search = createSearch(parts[0], searchGraph, destinationNodes, starterNode);
+		if (search == null) {
+			return "[ERROR]: unknown algorithm '" + parts[0] + "'" + System.lineSeparator();
+		}
+
+		if (metricsOutput != null) {
+			if (!SearchMetrics.supports(parts[0])) {
+				return "[ERROR]: the algorithm '" + parts[0] + "' does not record metrics" + System.lineSeparator();
+			}
+
+			return answerMeasured(parts[0], search, starterNode, destinationNodes, startTime);
+		}
+
+		SearchResult result = search.search(contexts.get(), starterNode, destinationNodes);
+
+		return result + System.lineSeparator()
+				+ String.format("[LATENCY]: %.3f ms", (System.nanoTime() - startTime) / 1e6)
+				+ System.lineSeparator();
+	}
+
+	/**
+	 * Finds the graph with the <code>nearest-goal</code> heuristic derived for the destination states, which is
+	 * calculated only if it is not cached for the same set of destination states
+	 * @param destinationNodes The destination state ids
+	 * @return Returns the graph with the derived heuristic
+	 */
+	private Graph deriveHeuristic(int[] destinationNodes) {
+
+		String key = Arrays.toString(IntStream.of(destinationNodes).sorted().distinct().toArray());
+
+		synchronized (derivedHeuristics) {
+			Graph cached = derivedHeuristics.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		Graph derived = graph.withHeuristics(NearestGoalHeuristic.calculate(graph, destinationNodes, 1));
+
+		synchronized (derivedHeuristics) {
+			derivedHeuristics.put(key, derived);
+		}
+
+		return derived;
+	}
+
+	/**
+	 * Answers a single parsed query with the metrics attached to the context, and writes the JSON line
+	 * of its metrics
+	 * @param algorithm The name of the algorithm
+	 * @param search The search algorithm
+	 * @param starterNode The starter state
+	 * @param destinationNodes The destination states
+	 * @param startTime The time at which the parsing of the query started
+	 * @return Returns the answer
+	 */
+	private String answerMeasured(String algorithm, Search search, int starterNode, int[] destinationNodes,
+			long startTime) {
+
+		SearchContext context = contexts.get();
+		SearchMetrics metrics = new SearchMetrics();
+		context.setMetrics(metrics);
+
+		long searchStart = System.nanoTime();
+		SearchResult result;
+		try {
+			result = search.search(context, starterNode, destinationNodes);
+		} finally {
+			context.setMetrics(null);
+		}
+		long outputStart = System.nanoTime();
+
+		String answer = result + System.lineSeparator()
+				+ String.format("[LATENCY]: %.3f ms", (System.nanoTime() - startTime) / 1e6)
+				+ System.lineSeparator();
+		long outputEnd = System.nanoTime();
+
+		metrics.setClosedCount(context.getClosedCount());
+		metrics.setTimes(searchStart - startTime, outputStart - searchStart, outputEnd - outputStart);
+		metricsOutput.println(metrics.toJson(graph, algorithm, starterNode, result));
+
+		return answer;
+	}
+
+	/**
+	 * Checks whether the algorithm with the provided name is guided by the heuristics of the graph
+	 * @param algorithm The name of the algorithm
+	 * @return Returns true if it is, false otherwise
+	 */
+	private static boolean usesHeuristic(String algorithm) {
+
+		switch (algorithm) {
+		case "astar":
+		case "hdastar":
+		case "astar-alt":
+		case "arastar":
+		case "idastar":
+		case "rbfs":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Creates the search algorithm with the provided name
+	 * @param algorithm The name of the algorithm
+	 * @param graph The graph, with heuristics derived for the destination states of the query if they replace
+	 * the default ones while the <code>nearest-goal</code> heuristic is used
+	 * @param destinationNodes The destination states
+	 * @param starterNode The starter state
+	 * @return Returns the search algorithm, or null if there is no algorithm with the provided name
+	 */
+	private Search createSearch(String algorithm, Graph graph, int[] destinationNodes, int starterNode) {
+
+		switch (algorithm) {
+		case "bfs":
+			return new BFS(graph, destinationNodes, starterNode);
+		case "ucs":
+			return treeCache == null ? new UCS(graph, destinationNodes, starterNode)
+					: new CachedUCS(graph, destinationNodes, starterNode, treeCache);
+		case "ucs-parallel":
+			return new ParallelUCS(graph, destinationNodes, starterNode, threads);
+		case "bfs-parallel":
+			return new ParallelBFS(graph, destinationNodes, starterNode, threads);
+		case "bibfs":
+			return new BidirectionalBFS(graph, destinationNodes, starterNode);
+		case "biucs":
+			return new BidirectionalUCS(graph, destinationNodes, starterNode);
+		case "astar":
+			return new AStar(graph, destinationNodes, starterNode, heuristicsPath);
+		case "hdastar":
+			return new HDAStar(graph, destinationNodes, starterNode, heuristicsPath, threads);
+		case "astar-alt":
+			return landmarks == null ? null : new LandmarkAStar(graph, destinationNodes, starterNode, heuristicsPath, landmarks, false);
+		case "ch":
+			return hierarchy == null ? null : new HierarchySearch(graph, destinationNodes, starterNode, hierarchy);
+		case "arastar":
+			return new ARAStar(graph, destinationNodes, starterNode, heuristicsPath, weight, timeBudget);
+		case "idastar":
+			return new IDAStar(graph, destinationNodes, starterNode, heuristicsPath);
+		case "rbfs":
+			return new RBFS(graph, destinationNodes, starterNode, heuristicsPath);
+		default:
+			return null;
+		}
+	}
+
+}
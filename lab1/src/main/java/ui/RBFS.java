@@ -0,0 +1,191 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a class which can execute a recursive best-first search algorithm.
+ * The search always continues in the child with the smallest estimated total cost, until it exceeds the estimate
+ * of the best alternative, and then backs up the exceeded estimate into the child before turning to the alternative.
+ * Only the current path and the children of its states are stored, so the memory used by the search is linear
+ * in the depth of the solution, while the abandoned subtrees are expanded again when they are returned to.
+ * A successor which is already on the current path is found by scanning the path, and the context of the search
+ * is only used for its destination states. An expansion is counted as a re-expansion if the estimated total cost
+ * backed up into the state exceeds its own, which is the test the search itself uses to recognize a subtree it
+ * returned to, and which is exact for consistent heuristics
+ * @author Vito Sabalic
+ *
+ */
+public class RBFS implements Search {
+
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
+	private String heuristicsPath;
+
+	/**
+	 * A simple constructor
+	 * @param graph
+	 * @param solutions
+	 * @param starterNode
+	 * @param heuristicsPath
+	 */
+	public RBFS(Graph graph, int[] solutions, int starterNode, String heuristicsPath) {
+
+		this.graph = graph;
+		this.solutions = solutions;
+		this.starterNode = starterNode;
+		this.heuristicsPath = heuristicsPath;
+	}
+
+	/**
+	 * Executes the algorithm
+	 */
+	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
+
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
+
+		String header = "# RBFS " + heuristicsPath;
+		Run run = new Run(context.getGoals(solutions));
+
+		run.path[0] = starterNode;
+		expand(run, 0, 0, graph.getHeuristic(starterNode), Double.MAX_VALUE);
+
+		if (run.solution == null) {
+			return SearchResult.notFound(graph, header, (int) Math.min(run.expanded, Integer.MAX_VALUE))
+					.addStatistic("REEXPANSIONS", run.reexpanded);
+		}
+
+		return new SearchResult(graph, header, true, (int) Math.min(run.expanded + 1, Integer.MAX_VALUE),
+				run.solution, run.cost)
+				.addStatistic("REEXPANSIONS", run.reexpanded);
+	}
+
+	/**
+	 * Searches the subtree of the last state of the current path, as long as its best estimated total cost
+	 * does not exceed the bound
+	 * @param run The state of the search
+	 * @param depth The depth of the state in the current path
+	 * @param cost The cost of the current path
+	 * @param storedEstimate The estimated total cost backed up into the state
+	 * @param bound The estimated total cost of the best alternative
+	 * @return Returns the new estimated total cost backed up into the state, which is only meaningful if no solution is found
+	 */
+	private double expand(Run run, int depth, double cost, double storedEstimate, double bound) {
+
+		int currentNode = run.path[depth];
+
+		if (run.goals.contains(currentNode)) {
+			run.solution = Arrays.copyOf(run.path, depth + 1);
+			run.cost = cost;
+			return storedEstimate;
+		}
+
+		boolean inherited = cost + graph.getHeuristic(currentNode) < storedEstimate;
+		run.expanded++;
+		if (inherited) {
+			run.reexpanded++;
+		}
+
+		int first = graph.getFirstTransition(currentNode);
+		int count = graph.getLastTransition(currentNode) - first;
+		int[] children = new int[count];
+		double[] childCosts = new double[count];
+		double[] estimates = new double[count];
+		int size = 0;
+
+		for (int i = first; i < first + count; i++) {
+			int adjacent = graph.getTarget(i);
+
+			if (!isOnPath(run.path, depth, adjacent)) {
+				children[size] = adjacent;
+				childCosts[size] = cost + graph.getCost(i);
+				estimates[size] = childCosts[size] + graph.getHeuristic(adjacent);
+				if (inherited) {
+					estimates[size] = Math.max(storedEstimate, estimates[size]);
+				}
+				size++;
+			}
+		}
+
+		if (size == 0) {
+			return Double.MAX_VALUE;
+		}
+
+		if (depth + 1 == run.path.length) {
+			run.path = Arrays.copyOf(run.path, run.path.length * 2);
+		}
+
+		while (true) {
+
+			int best = 0;
+			double alternative = Double.MAX_VALUE;
+			for (int i = 1; i < size; i++) {
+				if (estimates[i] < estimates[best] || estimates[i] == estimates[best]
+						&& graph.getRank(children[i]) < graph.getRank(children[best])) {
+					alternative = estimates[best];
+					best = i;
+				} else {
+					alternative = Math.min(alternative, estimates[i]);
+				}
+			}
+
+			if (estimates[best] > bound || estimates[best] == Double.MAX_VALUE) {
+				return estimates[best];
+			}
+
+			run.path[depth + 1] = children[best];
+			estimates[best] = expand(run, depth + 1, childCosts[best], estimates[best], Math.min(bound, alternative));
+
+			if (run.solution != null) {
+				return estimates[best];
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the state is on the current path
+	 * @param path The states of the current path
+	 * @param depth The depth of the last state of the path
+	 * @param state The state id
+	 * @return Returns true if it is, false otherwise
+	 */
+	private static boolean isOnPath(int[] path, int depth, int state) {
+
+		for (int i = depth; i >= 0; i--) {
+			if (path[i] == state) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * The state of a single recursive best-first search
+	 * @author Vito Sabalic
+	 *
+	 */
+	private static class Run {
+
+		private final GoalSet goals;
+		private int[] path;
+		private int[] solution;
+		private double cost;
+		private long expanded;
+		private long reexpanded;
+
+		/**
+		 * A simple constructor
+		 * @param goals The destination states
+		 */
+		Run(GoalSet goals) {
+			this.goals = goals;
+			this.path = new int[16];
+		}
+
+	}
+
+}
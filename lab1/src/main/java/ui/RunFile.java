@@ -0,0 +1,233 @@
+package ui;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A sorted run of fixed size records on the disk, used by the {@link ExternalSearch} to spill the states
+ * which do not fit into the memory. Every record consists of the same number of <code>long</code> fields
+ * and the records are written in the ascending order of their fields. The run is read one page at a time,
+ * either sequentially through a cursor or by the first field, which is found through the first field
+ * of every page kept in the memory, so a lookup reads at most one page. The same page sized buffer is used
+ * for writing and reading, so apart from the first fields of the pages a run takes the memory of one page
+ * @author Vito Sabalic
+ *
+ */
+public class RunFile implements Closeable {
+
+	private Path path;
+	private FileChannel channel;
+	private int width;
+	private int pageRecords;
+	private long count;
+	private long[] fences;
+	private int fenceCount;
+	private ByteBuffer buffer;
+	private long pageIndex;
+	private long cursor;
+
+	/**
+	 * A simple constructor, which creates an empty run in the provided file
+	 * @param path The path of the file
+	 * @param width The number of fields of every record
+	 * @param pageRecords The number of records in a page
+	 * @throws IOException If the file cannot be created
+	 */
+	public RunFile(Path path, int width, int pageRecords) throws IOException {
+
+		this.path = path;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.width = width;
+		this.pageRecords = pageRecords;
+		this.fences = new long[16];
+		this.buffer = ByteBuffer.allocate(pageRecords * width * Long.BYTES);
+		this.pageIndex = -1;
+	}
+
+	/**
+	 * Appends a record, which must not be smaller than the previous one, to the end of the run
+	 * @param records The array which contains the record
+	 * @param offset The index of the first field of the record in the array
+	 * @throws IOException If the record cannot be written
+	 */
+	public void append(long[] records, int offset) throws IOException {
+
+		if (count % pageRecords == 0) {
+			if (fenceCount == fences.length) {
+				fences = Arrays.copyOf(fences, fenceCount * 2);
+			}
+			fences[fenceCount++] = records[offset];
+		}
+
+		if (buffer.remaining() < width * Long.BYTES) {
+			flush();
+		}
+
+		for (int i = 0; i < width; i++) {
+			buffer.putLong(records[offset + i]);
+		}
+		count++;
+	}
+
+	/**
+	 * Writes all appended records which are still in the memory, after which the run can be read
+	 * @throws IOException If the records cannot be written
+	 */
+	public void flush() throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * A getter for the number of records
+	 * @return Returns the number of records
+	 */
+	public long size() {
+		return count;
+	}
+
+	/**
+	 * A getter for the number of bytes of the run
+	 * @return Returns the number of bytes
+	 */
+	public long getBytes() {
+		return count * width * Long.BYTES;
+	}
+
+	/**
+	 * Calculates the number of bytes of the memory taken by a run with the provided page size, apart from the first
+	 * fields of its pages
+	 * @param width The number of fields of every record
+	 * @param pageRecords The number of records in a page
+	 * @return Returns the number of bytes
+	 */
+	public static long calculatePageBytes(int width, int pageRecords) {
+		return (long) pageRecords * width * Long.BYTES;
+	}
+
+	/**
+	 * A getter for a field of the record
+	 * @param index The index of the record
+	 * @param field The index of the field
+	 * @return Returns the value of the field
+	 * @throws IOException If the page of the record cannot be read
+	 */
+	public long get(long index, int field) throws IOException {
+
+		long pageNumber = index / pageRecords;
+		if (pageNumber != pageIndex) {
+			readPage(pageNumber);
+		}
+
+		return buffer.getLong(((int) (index % pageRecords) * width + field) * Long.BYTES);
+	}
+
+	/**
+	 * Finds the record whose first field has the provided value
+	 * @param key The value of the first field
+	 * @return Returns the index of the first such record, or -1 if there is none
+	 * @throws IOException If the page of the record cannot be read
+	 */
+	public long find(long key) throws IOException {
+
+		int low = 0;
+		int high = fenceCount - 1;
+
+		if (high < 0 || key < fences[0]) {
+			return -1;
+		}
+
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (fences[middle] < key) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		long first = (long) low * pageRecords;
+		long lowIndex = first;
+		long highIndex = Math.min(count, first + 2L * pageRecords) - 1;
+
+		while (lowIndex < highIndex) {
+			long middle = (lowIndex + highIndex) >>> 1;
+			if (get(middle, 0) < key) {
+				lowIndex = middle + 1;
+			} else {
+				highIndex = middle;
+			}
+		}
+
+		return lowIndex < count && get(lowIndex, 0) == key ? lowIndex : -1;
+	}
+
+	/**
+	 * Checks whether the cursor has not yet passed the last record
+	 * @return Returns true if there is a record at the cursor, false otherwise
+	 */
+	public boolean hasNext() {
+		return cursor < count;
+	}
+
+	/**
+	 * A getter for a field of the record at the cursor
+	 * @param field The index of the field
+	 * @return Returns the value of the field
+	 * @throws IOException If the page of the record cannot be read
+	 */
+	public long peek(int field) throws IOException {
+		return get(cursor, field);
+	}
+
+	/**
+	 * Moves the cursor to the next record
+	 */
+	public void advance() {
+		cursor++;
+	}
+
+	/**
+	 * Closes and deletes the file of the run
+	 * @throws IOException If the file cannot be deleted
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Reads the page into the memory
+	 * @param pageNumber The index of the page
+	 * @throws IOException If the page cannot be read
+	 */
+	private void readPage(long pageNumber) throws IOException {
+
+		buffer.clear();
+		pageIndex = -1;
+		long position = pageNumber * pageRecords * width * Long.BYTES;
+		int length = (int) Math.min(buffer.capacity(), getBytes() - position);
+		buffer.limit(length);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of the run " + path);
+			}
+		}
+
+		pageIndex = pageNumber;
+	}
+
+}
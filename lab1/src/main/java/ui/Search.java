@@ -0,0 +1,21 @@
+package ui;
+
+/**
+ * An interface of a search algorithm which can answer queries over an immutable {@link Graph}.
+ * All state of a query is kept in the provided {@link SearchContext}, so queries with different
+ * contexts can run concurrently
+ * @author Vito Sabalic
+ *
+ */
+public interface Search {
+
+	/**
+	 * Searches for the path from the starter state to any of the destination states
+	 * @param context The context of the query, which is reset before it is used
+	 * @param starterNode The starter state id
+	 * @param solutions The destination state ids
+	 * @return Returns the result of the search
+	 */
+	SearchResult search(SearchContext context, int starterNode, int[] solutions);
+
+}
@@ -0,0 +1,327 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * The mutable state of a single search over an immutable {@link Graph}: the cost of the best known path
+ * to every state, the state each state was visited from, and which states are already closed.
+ * Every query running at the same time needs its own context, while a single context can be reused by
+ * consecutive queries. Resetting a context takes constant time, because every entry is stamped with
+ * the generation of the query which wrote it, and entries of older generations are treated as unset
+ * @author Vito Sabalic
+ *
+ */
+public class SearchContext {
+
+	private final Graph graph;
+	private final double[] distances;
+	private final int[] parents;
+	private final int[] stamps;
+	private final int[] closedStamps;
+	private int generation;
+	private int closedGeneration;
+	private int closedCount;
+	private Frontier frontier;
+	private boolean frontierHeuristic;
+	private Frontier heap;
+	private int[] queue;
+	private SearchContext reverse;
+	private SearchMetrics metrics;
+	private GoalSet goals;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph which is searched
+	 */
+	public SearchContext(Graph graph) {
+		this.graph = graph;
+		this.distances = new double[graph.getStateCount()];
+		this.parents = new int[graph.getStateCount()];
+		this.stamps = new int[graph.getStateCount()];
+		this.closedStamps = new int[graph.getStateCount()];
+		this.generation = 1;
+		this.closedGeneration = 1;
+		this.closedCount = 0;
+	}
+
+	/**
+	 * A getter for the graph
+	 * @return Returns the graph
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Forgets the state of the previous query, so the context can be used by the next one
+	 */
+	public void reset() {
+
+		generation++;
+		closedGeneration++;
+		closedCount = 0;
+
+		if (closedGeneration == Integer.MAX_VALUE) {
+			Arrays.fill(stamps, 0);
+			Arrays.fill(closedStamps, 0);
+			generation = 1;
+			closedGeneration = 1;
+		}
+
+		if (frontier != null) {
+			frontier.clear();
+		}
+
+		if (heap != null) {
+			heap.clear();
+		}
+	}
+
+	/**
+	 * A getter for the cost of the best known path to the state
+	 * @param state The state id
+	 * @return Returns the cost, or {@link Double#MAX_VALUE} if the state was not reached
+	 */
+	public double getDistance(int state) {
+		return stamps[state] == generation ? distances[state] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * A getter for the state from which the state was visited from
+	 * @param state The state id
+	 * @return Returns the previous state id, or -1 if there is none
+	 */
+	public int getParent(int state) {
+		return stamps[state] == generation ? parents[state] : -1;
+	}
+
+	/**
+	 * Sets the cost of the best known path to the state and the state it was visited from
+	 * @param state The state id
+	 * @param distance The cost
+	 * @param parent The previous state id, or -1 if there is none
+	 */
+	public void set(int state, double distance, int parent) {
+		distances[state] = distance;
+		parents[state] = parent;
+		stamps[state] = generation;
+	}
+
+	/**
+	 * Sets the state from which the state was visited from, without changing its cost
+	 * @param state The state id
+	 * @param parent The previous state id
+	 */
+	public void setParent(int state, int parent) {
+		set(state, getDistance(state), parent);
+	}
+
+	/**
+	 * Calculates whether the cost of the transition from the current state to the adjacent state
+	 * is cheaper than the stored cost of the path to the adjacent state, and stores it if it is
+	 * @param adjacent The adjacent state id
+	 * @param value The cost of the transition
+	 * @param current The current state id
+	 * @return Returns true if the stored cost was updated, false otherwise
+	 */
+	public boolean relax(int adjacent, double value, int current) {
+
+		double distance = getDistance(current) + value;
+
+		if (distance < getDistance(adjacent)) {
+			set(adjacent, distance, current);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks whether the state is closed
+	 * @param state The state id
+	 * @return Returns true if it is closed, false otherwise
+	 */
+	public boolean isClosed(int state) {
+		return closedStamps[state] == closedGeneration;
+	}
+
+	/**
+	 * Closes the state, if it is not closed already
+	 * @param state The state id
+	 */
+	public void close(int state) {
+
+		if (closedStamps[state] != closedGeneration) {
+			closedStamps[state] = closedGeneration;
+			closedCount++;
+		}
+	}
+
+	/**
+	 * Opens the closed state again, if it is closed
+	 * @param state The state id
+	 */
+	public void open(int state) {
+
+		if (closedStamps[state] == closedGeneration) {
+			closedStamps[state] = 0;
+			closedCount--;
+		}
+	}
+
+	/**
+	 * Opens all closed states again, while the costs and the previous states are kept. Like resetting,
+	 * it takes constant time
+	 */
+	public void reopenAll() {
+
+		closedGeneration++;
+		closedCount = 0;
+
+		if (closedGeneration == Integer.MAX_VALUE) {
+			Arrays.fill(closedStamps, 0);
+			closedGeneration = 1;
+		}
+	}
+
+	/**
+	 * A getter for the set of the provided destination states. The set is kept until the context is asked
+	 * for a different array, so the queries which share the same array of destination states build it only once
+	 * @param solutions The destination state ids, which must not be modified while the set is kept
+	 * @return Returns the set of the destination states
+	 */
+	public GoalSet getGoals(int[] solutions) {
+
+		if (goals == null || goals.getStates() != solutions) {
+			goals = new GoalSet(graph.getStateCount(), solutions);
+		}
+
+		return goals;
+	}
+
+	/**
+	 * A getter for the metrics recorded by the searches which use this context
+	 * @return Returns the metrics, or null if they are not recorded
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * A setter for the metrics recorded by the searches which use this context. Like the reverse context,
+	 * they are not reset together with this context
+	 * @param metrics The metrics, or null if they should not be recorded
+	 */
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * A getter for the number of closed states
+	 * @return Returns the number of closed states
+	 */
+	public int getClosedCount() {
+		return closedCount;
+	}
+
+	/**
+	 * A getter for an empty frontier of this context, created when it is first needed
+	 * @param heuristic true if the keys of the frontier include the heuristic of the state, false otherwise
+	 * @return Returns the frontier
+	 */
+	public Frontier getFrontier(boolean heuristic) {
+
+		if (frontier == null || frontierHeuristic != heuristic) {
+			frontier = Frontier.create(graph, heuristic);
+			frontierHeuristic = heuristic;
+		}
+
+		return frontier;
+	}
+
+	/**
+	 * A getter for an empty frontier of this context which accepts any keys, used with heuristics which are not
+	 * stored in the graph, created when it is first needed
+	 * @return Returns the frontier
+	 */
+	public Frontier getHeap() {
+
+		if (heap == null) {
+			heap = new StateHeap(graph);
+		}
+
+		return heap;
+	}
+
+	/**
+	 * A getter for a queue large enough to hold a state once for every transition of the graph,
+	 * created when it is first needed
+	 * @return Returns the queue
+	 */
+	public int[] getQueue() {
+
+		if (queue == null) {
+			queue = new int[graph.getTransitionCount() + 1];
+		}
+
+		return queue;
+	}
+
+	/**
+	 * A getter for a context of the reverse graph, used by the searches which also search backwards
+	 * from the destination states, created when it is first needed. It is not reset together with this context
+	 * @return Returns the context of the reverse graph
+	 */
+	public SearchContext getReverse() {
+
+		if (reverse == null) {
+			reverse = new SearchContext(graph.getReverse());
+		}
+
+		return reverse;
+	}
+
+	/**
+	 * Calculates the path which was taken to arrive to the final state
+	 * @param finalState The final state id
+	 * @return Returns the path of states, starting with the starter state
+	 */
+	public int[] calculatePath(int finalState) {
+		int length = 0;
+		for (int n = finalState; n != -1; n = getParent(n)) {
+			length++;
+		}
+
+		int[] path = new int[length];
+		for (int n = finalState; n != -1; n = getParent(n)) {
+			path[--length] = n;
+		}
+
+		return path;
+	}
+
+	/**
+	 * Calculates the path which was taken to arrive to the meeting state, continued by the path which was
+	 * taken by the search over the reverse graph to arrive to the meeting state
+	 * @param meetingState The meeting state id
+	 * @param reverse The context of the search over the reverse graph
+	 * @return Returns the path of states, starting with the starter state
+	 */
+	public int[] calculatePath(int meetingState, SearchContext reverse) {
+
+		int[] forwardPath = calculatePath(meetingState);
+		int length = forwardPath.length;
+		for (int n = reverse.getParent(meetingState); n != -1; n = reverse.getParent(n)) {
+			length++;
+		}
+
+		int[] path = Arrays.copyOf(forwardPath, length);
+		int i = forwardPath.length;
+		for (int n = reverse.getParent(meetingState); n != -1; n = reverse.getParent(n)) {
+			path[i++] = n;
+		}
+
+		return path;
+	}
+
+}
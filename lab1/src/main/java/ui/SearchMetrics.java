@@ -0,0 +1,181 @@
+package ui;
+
+import java.util.Locale;
+
+/**
+ * The counters and timings of a single query, recorded by the loops of the BFS, UCS and A* search algorithms
+ * when the metrics are attached to their {@link SearchContext}. Without attached metrics, the loops only check
+ * a local reference, so recording costs nothing when it is disabled. The metrics of a query are exported as
+ * a single JSON line, so that the lines of many queries can be aggregated
+ * @author Vito Sabalic
+ *
+ */
+public class SearchMetrics {
+
+	private long expansions;
+	private long generated;
+	private long duplicatePushes;
+	private long heapOperations;
+	private int peakFrontier;
+	private int closedCount;
+	private long parseTime;
+	private long searchTime;
+	private long outputTime;
+
+	/**
+	 * Checks whether the loop of the algorithm records the metrics
+	 * @param algorithm The name of the algorithm
+	 * @return Returns true if it does, false otherwise
+	 */
+	public static boolean supports(String algorithm) {
+		return algorithm.equals("bfs") || algorithm.equals("ucs") || algorithm.equals("astar");
+	}
+
+	/**
+	 * Records that a state was taken from the frontier
+	 */
+	public void polled() {
+		heapOperations++;
+	}
+
+	/**
+	 * Records that a state was expanded
+	 * @param successors The number of transitions of the state
+	 */
+	public void expanded(int successors) {
+		expansions++;
+		generated += successors;
+	}
+
+	/**
+	 * Records that a state was put into the frontier
+	 * @param duplicate true if the state was already put into the frontier during this query, false otherwise
+	 * @param frontierSize The size of the frontier after the state was put into it
+	 */
+	public void pushed(boolean duplicate, int frontierSize) {
+		heapOperations++;
+		if (duplicate) {
+			duplicatePushes++;
+		}
+		if (frontierSize > peakFrontier) {
+			peakFrontier = frontierSize;
+		}
+	}
+
+	/**
+	 * A setter for the number of closed states at the end of the search
+	 * @param closedCount The number of closed states
+	 */
+	public void setClosedCount(int closedCount) {
+		this.closedCount = closedCount;
+	}
+
+	/**
+	 * A setter for the time split of the query
+	 * @param parseTime The time spent on parsing the input in nanoseconds
+	 * @param searchTime The time spent on the search in nanoseconds
+	 * @param outputTime The time spent on writing the output in nanoseconds
+	 */
+	public void setTimes(long parseTime, long searchTime, long outputTime) {
+		this.parseTime = parseTime;
+		this.searchTime = searchTime;
+		this.outputTime = outputTime;
+	}
+
+	/**
+	 * A getter for the number of expanded states
+	 * @return Returns the number of expanded states
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/**
+	 * A getter for the number of transitions of the expanded states
+	 * @return Returns the number of generated successors
+	 */
+	public long getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * A getter for the number of states which were put into the frontier again
+	 * @return Returns the number of duplicate pushes
+	 */
+	public long getDuplicatePushes() {
+		return duplicatePushes;
+	}
+
+	/**
+	 * A getter for the number of operations of the frontier
+	 * @return Returns the number of pushes and polls
+	 */
+	public long getHeapOperations() {
+		return heapOperations;
+	}
+
+	/**
+	 * A getter for the largest size of the frontier
+	 * @return Returns the largest size
+	 */
+	public int getPeakFrontier() {
+		return peakFrontier;
+	}
+
+	/**
+	 * Creates the JSON line of the query
+	 * @param graph The graph
+	 * @param algorithm The name of the algorithm
+	 * @param starterNode The starter state id
+	 * @param result The result of the search
+	 * @return Returns the JSON object, without a line separator
+	 */
+	public String toJson(Graph graph, String algorithm, int starterNode, SearchResult result) {
+
+		int[] path = result.getPath();
+		StringBuilder s = new StringBuilder(256);
+
+		s.append("{\"algorithm\":").append(quote(algorithm));
+		s.append(",\"start\":").append(quote(graph.getName(starterNode)));
+		s.append(",\"found\":").append(result.isFound());
+		s.append(",\"states_visited\":").append(result.getVisitedCount());
+		s.append(",\"path_length\":").append(path == null ? 0 : path.length);
+		if (result.isFound()) {
+			s.append(",\"total_cost\":").append(result.getCost());
+		}
+		s.append(",\"expansions\":").append(expansions);
+		s.append(",\"generated\":").append(generated);
+		s.append(",\"duplicate_pushes\":").append(duplicatePushes);
+		s.append(",\"heap_operations\":").append(heapOperations);
+		s.append(",\"peak_frontier\":").append(peakFrontier);
+		s.append(",\"closed\":").append(closedCount);
+		s.append(String.format(Locale.ROOT, ",\"parse_ms\":%.3f,\"search_ms\":%.3f,\"output_ms\":%.3f}",
+				parseTime / 1e6, searchTime / 1e6, outputTime / 1e6));
+
+		return s.toString();
+	}
+
+	/**
+	 * Quotes the text as a JSON string
+	 * @param text The text
+	 * @return Returns the quoted text
+	 */
+	private static String quote(String text) {
+
+		StringBuilder s = new StringBuilder(text.length() + 2).append('"');
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				s.append('\\').append(c);
+			} else if (c < ' ') {
+				s.append(String.format("\\u%04x", (int) c));
+			} else {
+				s.append(c);
+			}
+		}
+
+		return s.append('"').toString();
+	}
+
+}
@@ -0,0 +1,168 @@
+package ui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The result of a single search, which can be formatted in the output format of the search algorithms
+ * @author Vito Sabalic
+ *
+ */
+public class SearchResult {
+
+	private final Graph graph;
+	private final String header;
+	private final boolean found;
+	private final int visitedCount;
+	private final int[] path;
+	private final String[] pathNames;
+	private final double cost;
+	private final Map<String, Object> statistics;
+
+	/**
+	 * A complex constructor
+	 * @param graph The searched graph
+	 * @param header The header line of the output, describing the algorithm
+	 * @param found true if a solution is found, false otherwise
+	 * @param visitedCount The number of visited states
+	 * @param path The path of states from the starter state to the final state, or null if no solution is found
+	 * @param cost The total cost of the path
+	 */
+	public SearchResult(Graph graph, String header, boolean found, int visitedCount, int[] path, double cost) {
+		this.graph = graph;
+		this.header = header;
+		this.found = found;
+		this.visitedCount = visitedCount;
+		this.path = path;
+		this.pathNames = null;
+		this.cost = cost;
+		this.statistics = new LinkedHashMap<>();
+	}
+
+	/**
+	 * A complex constructor for the results of searches over a {@link StateSpace}, whose states have no ids
+	 * @param header The header line of the output, describing the algorithm
+	 * @param found true if a solution is found, false otherwise
+	 * @param visitedCount The number of visited states
+	 * @param pathNames The names of the states of the path from the starter state to the final state, or null if no solution is found
+	 * @param cost The total cost of the path
+	 */
+	public SearchResult(String header, boolean found, int visitedCount, String[] pathNames, double cost) {
+		this.graph = null;
+		this.header = header;
+		this.found = found;
+		this.visitedCount = visitedCount;
+		this.path = null;
+		this.pathNames = pathNames;
+		this.cost = cost;
+		this.statistics = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Creates a result of a search which found no solution
+	 * @param graph The searched graph
+	 * @param header The header line of the output, describing the algorithm
+	 * @param visitedCount The number of visited states
+	 * @return Returns the created result
+	 */
+	public static SearchResult notFound(Graph graph, String header, int visitedCount) {
+		return new SearchResult(graph, header, false, visitedCount, null, 0);
+	}
+
+	/**
+	 * Checks whether a solution was found
+	 * @return Returns true if it was found, false otherwise
+	 */
+	public boolean isFound() {
+		return found;
+	}
+
+	/**
+	 * A getter for the number of visited states
+	 * @return Returns the number of visited states
+	 */
+	public int getVisitedCount() {
+		return visitedCount;
+	}
+
+	/**
+	 * A getter for the path
+	 * @return Returns the path of states from the starter state to the final state, or null if no solution is found
+	 * or if the searched states have no ids
+	 */
+	public int[] getPath() {
+		return path;
+	}
+
+	/**
+	 * A getter for the total cost of the path
+	 * @return Returns the total cost
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Adds a statistic of the search, which is printed after the number of visited states
+	 * @param name The name of the statistic, printed in square brackets
+	 * @param value The value of the statistic
+	 * @return Returns this result
+	 */
+	public SearchResult addStatistic(String name, Object value) {
+		statistics.put(name, value);
+		return this;
+	}
+
+	/**
+	 * A getter for the statistics of the search
+	 * @return Returns the statistics by their names, in the order in which they were added
+	 */
+	public Map<String, Object> getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Formats the result in the output format of the search algorithms, without the trailing line separator
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder s = new StringBuilder();
+		s.append(header).append(System.lineSeparator());
+
+		if (!found) {
+			s.append("[FOUND_SOLUTION]: no");
+			appendStatistics(s);
+			return s.toString();
+		}
+
+		s.append("[FOUND_SOLUTION]: yes").append(System.lineSeparator());
+		s.append("[STATES_VISITED]: ").append(visitedCount);
+		appendStatistics(s);
+		s.append(System.lineSeparator());
+		int length = path != null ? path.length : pathNames.length;
+		s.append("[PATH_LENGTH]: ").append(length).append(System.lineSeparator());
+		s.append("[TOTAL_COST]: ").append(cost).append(System.lineSeparator());
+		s.append("[PATH]: ");
+
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				s.append(" => ");
+			}
+			s.append(path != null ? graph.getName(path[i]) : pathNames[i]);
+		}
+
+		return s.toString();
+	}
+
+	/**
+	 * Appends every statistic in its own line, each preceded by a line separator
+	 * @param s The builder of the output
+	 */
+	private void appendStatistics(StringBuilder s) {
+		for (Map.Entry<String, Object> statistic : statistics.entrySet()) {
+			s.append(System.lineSeparator()).append('[').append(statistic.getKey()).append("]: ").append(statistic.getValue());
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * A shortest path tree grown by the UCS search algorithm from a single starter state, which may be only partially
+ * completed. The closed states are stored in the order in which the search closed them, followed by the states
+ * which were reached but not yet closed, and every state stores the position of its previous state instead of
+ * its id, so a path is walked without any lookups. Since the UCS algorithm closes the states in the same order
+ * for any destination states, the first closed destination state answers a query, and a tree which does not
+ * contain one yet is resumed from its open states
+ * @author Vito Sabalic
+ *
+ */
+public class ShortestPathTree {
+
+	private final int starter;
+	private final int[] states;
+	private final int[] parents;
+	private final double[] distances;
+	private final int closedCount;
+
+	/**
+	 * A simple constructor
+	 * @param starter The starter state id
+	 * @param states The closed states in the order in which they were closed, followed by the open states
+	 * @param parents The positions of the previous states, -1 for the starter state
+	 * @param distances The costs of the paths to the states
+	 * @param closedCount The number of closed states
+	 */
+	ShortestPathTree(int starter, int[] states, int[] parents, double[] distances, int closedCount) {
+		this.starter = starter;
+		this.states = states;
+		this.parents = parents;
+		this.distances = distances;
+		this.closedCount = closedCount;
+	}
+
+	/**
+	 * Records the tree grown by a search in the provided context
+	 * @param context The context of the search
+	 * @param starter The starter state id
+	 * @param closed The closed states in the order in which they were closed
+	 * @param closedCount The number of closed states
+	 * @param reached The states reached by the search, which contain all open states
+	 * @param reachedCount The number of reached states
+	 * @return Returns the recorded tree
+	 */
+	static ShortestPathTree record(SearchContext context, int starter, int[] closed, int closedCount, int[] reached,
+			int reachedCount) {
+
+		int size = closedCount;
+		int[] states = Arrays.copyOf(closed, closedCount + reachedCount);
+		for (int i = 0; i < reachedCount; i++) {
+			if (!context.isClosed(reached[i])) {
+				states[size++] = reached[i];
+			}
+		}
+		states = Arrays.copyOf(states, size);
+
+		int capacity = Integer.highestOneBit(Math.max(1, size) * 2) * 2;
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		for (int i = 0; i < size; i++) {
+			int slot = hash(states[i]) & capacity - 1;
+			while (slots[slot] != -1) {
+				slot = slot + 1 & capacity - 1;
+			}
+			slots[slot] = i;
+		}
+
+		int[] parents = new int[size];
+		double[] distances = new double[size];
+		for (int i = 0; i < size; i++) {
+			distances[i] = context.getDistance(states[i]);
+			parents[i] = -1;
+
+			int parent = context.getParent(states[i]);
+			if (parent == -1) {
+				continue;
+			}
+
+			int slot = hash(parent) & capacity - 1;
+			while (states[slots[slot]] != parent) {
+				slot = slot + 1 & capacity - 1;
+			}
+			parents[i] = slots[slot];
+		}
+
+		return new ShortestPathTree(starter, states, parents, distances, closedCount);
+	}
+
+	/**
+	 * Spreads the bits of the state id
+	 * @param state The state id
+	 * @return Returns the hash
+	 */
+	private static int hash(int state) {
+		int hash = state * 0x9E3779B9;
+		return hash ^ hash >>> 16;
+	}
+
+	/**
+	 * A getter for the starter state
+	 * @return Returns the starter state id
+	 */
+	public int getStarter() {
+		return starter;
+	}
+
+	/**
+	 * A getter for the number of closed states
+	 * @return Returns the number of closed states
+	 */
+	public int getClosedCount() {
+		return closedCount;
+	}
+
+	/**
+	 * Checks whether the search was completed, so that no states are open
+	 * @return Returns true if it was, false otherwise
+	 */
+	public boolean isComplete() {
+		return states.length == closedCount;
+	}
+
+	/**
+	 * A getter for the number of bytes of the arrays of the tree
+	 * @return Returns the number of bytes
+	 */
+	public long getBytes() {
+		return (long) states.length * (2 * Integer.BYTES + Double.BYTES);
+	}
+
+	/**
+	 * Finds the first closed destination state
+	 * @param goals The destination states
+	 * @return Returns its position, or -1 if no destination state is closed
+	 */
+	public int find(GoalSet goals) {
+		for (int i = 0; i < closedCount; i++) {
+			if (goals.contains(states[i])) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * A getter for the cost of the path to the state at the provided position
+	 * @param position The position of the state
+	 * @return Returns the cost
+	 */
+	public double getDistance(int position) {
+		return distances[position];
+	}
+
+	/**
+	 * Walks the path from the starter state to the state at the provided position
+	 * @param position The position of the state
+	 * @return Returns the path of states, starting with the starter state
+	 */
+	public int[] calculatePath(int position) {
+
+		int length = 0;
+		for (int p = position; p != -1; p = parents[p]) {
+			length++;
+		}
+
+		int[] path = new int[length];
+		for (int p = position; p != -1; p = parents[p]) {
+			path[--length] = states[p];
+		}
+
+		return path;
+	}
+
+	/**
+	 * Restores the search into the provided context: the closed states are closed again, and the open states
+	 * are put into the frontier with their costs and previous states
+	 * @param context The context, which is reset first
+	 * @param frontier The frontier of the context
+	 */
+	void restore(SearchContext context, Frontier frontier) {
+
+		context.reset();
+
+		for (int i = 0; i < states.length; i++) {
+			context.set(states[i], distances[i], parents[i] == -1 ? -1 : states[parents[i]]);
+
+			if (i < closedCount) {
+				context.close(states[i]);
+			} else {
+				frontier.push(states[i], distances[i]);
+			}
+		}
+	}
+
+	/**
+	 * Copies the states of the tree in their order, closed states first
+	 * @return Returns the states
+	 */
+	int[] getStates() {
+		return states.clone();
+	}
+
+}
@@ -0,0 +1,190 @@
+package ui;
+
+/**
+ * A sliding puzzle of at most 16 cells as a {@link StateSpace}. The tile in every cell is encoded in 4 bits
+ * of the state, with 0 being the empty cell, and every move of a tile into the empty cell costs 1. In the
+ * destination state the tiles are ordered by their numbers and the empty cell is the last one. The heuristic
+ * is the sum of the Manhattan distances of the tiles from their destination cells, and the name of a state
+ * lists the tiles of every row as hexadecimal digits, for example <code>123_456_780</code>
+ * @author Vito Sabalic
+ *
+ */
+public class SlidingPuzzle implements StateSpace {
+
+	private final int width;
+	private final int height;
+	private final long starter;
+	private final long goal;
+
+	/**
+	 * A simple constructor
+	 * @param width The number of columns
+	 * @param height The number of rows
+	 * @param tiles The tiles of the starter state, row by row
+	 */
+	public SlidingPuzzle(int width, int height, int[] tiles) {
+
+		int cells = width * height;
+		if (cells < 2 || cells > 16 || tiles.length != cells) {
+			throw new IllegalArgumentException("A sliding puzzle needs between 2 and 16 cells, and a tile for each of them");
+		}
+
+		boolean[] used = new boolean[cells];
+		long starter = 0;
+		long goal = 0;
+
+		for (int i = 0; i < cells; i++) {
+			if (tiles[i] < 0 || tiles[i] >= cells || used[tiles[i]]) {
+				throw new IllegalArgumentException("The tiles must be the numbers from 0 to " + (cells - 1) + ", each once");
+			}
+			used[tiles[i]] = true;
+
+			starter |= (long) tiles[i] << (4 * i);
+			goal |= (long) ((i + 1) % cells) << (4 * i);
+		}
+
+		this.width = width;
+		this.height = height;
+		this.starter = starter;
+		this.goal = goal;
+	}
+
+	/**
+	 * Creates a sliding puzzle from its description, which lists the comma separated tiles of the starter state
+	 * row by row, optionally preceded by the dimensions, for example <code>3x3:8,1,3,4,0,2,7,6,5</code>.
+	 * Without the dimensions the puzzle is a square
+	 * @param description The description
+	 * @return Returns the created puzzle
+	 */
+	public static SlidingPuzzle parse(String description) {
+
+		int width = -1;
+		int height = -1;
+		int colon = description.indexOf(':');
+
+		if (colon != -1) {
+			String[] dimensions = description.substring(0, colon).split("x");
+			width = Integer.parseInt(dimensions[0].trim());
+			height = Integer.parseInt(dimensions[1].trim());
+			description = description.substring(colon + 1);
+		}
+
+		String[] parts = description.split(",");
+		int[] tiles = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			tiles[i] = Integer.parseInt(parts[i].trim());
+		}
+
+		if (width == -1) {
+			width = (int) Math.round(Math.sqrt(tiles.length));
+			height = width;
+		}
+
+		return new SlidingPuzzle(width, height, tiles);
+	}
+
+	@Override
+	public long getStarter() {
+		return starter;
+	}
+
+	@Override
+	public boolean isGoal(long state) {
+		return state == goal;
+	}
+
+	@Override
+	public void expand(long state, Successors successors) {
+
+		int empty = findEmpty(state);
+		int row = empty / width;
+		int column = empty % width;
+
+		if (row > 0) {
+			successors.accept(move(state, empty, empty - width), 1);
+		}
+		if (row < height - 1) {
+			successors.accept(move(state, empty, empty + width), 1);
+		}
+		if (column > 0) {
+			successors.accept(move(state, empty, empty - 1), 1);
+		}
+		if (column < width - 1) {
+			successors.accept(move(state, empty, empty + 1), 1);
+		}
+	}
+
+	@Override
+	public double getHeuristic(long state) {
+
+		int distance = 0;
+
+		for (int i = 0; i < width * height; i++) {
+			int tile = (int) (state >>> (4 * i)) & 15;
+
+			if (tile != 0) {
+				int target = tile - 1;
+				distance += Math.abs(i / width - target / width) + Math.abs(i % width - target % width);
+			}
+		}
+
+		return distance;
+	}
+
+	@Override
+	public String getName(long state) {
+
+		StringBuilder name = new StringBuilder();
+
+		for (int i = 0; i < width * height; i++) {
+			if (i > 0 && i % width == 0) {
+				name.append('_');
+			}
+			name.append(Character.forDigit((int) (state >>> (4 * i)) & 15, 16));
+		}
+
+		return name.toString();
+	}
+
+	@Override
+	public long getOrder(long state) {
+
+		long order = 0;
+
+		for (int i = 0; i < width * height; i++) {
+			order = order << 4 | (state >>> (4 * i)) & 15;
+		}
+
+		return order;
+	}
+
+	/**
+	 * Finds the empty cell of the state
+	 * @param state The encoding of the state
+	 * @return Returns the index of the empty cell
+	 */
+	private int findEmpty(long state) {
+
+		for (int i = 0; i < width * height; i++) {
+			if (((state >>> (4 * i)) & 15) == 0) {
+				return i;
+			}
+		}
+
+		throw new IllegalStateException("The state has no empty cell");
+	}
+
+	/**
+	 * Moves the tile of the provided cell into the empty cell
+	 * @param state The encoding of the state
+	 * @param empty The index of the empty cell
+	 * @param cell The index of the cell whose tile is moved
+	 * @return Returns the encoding of the state after the move
+	 */
+	private static long move(long state, int empty, int cell) {
+
+		long tile = (state >>> (4 * cell)) & 15;
+		return (state & ~(15L << (4 * cell))) | (tile << (4 * empty));
+	}
+
+}
@@ -1,15 +1,10 @@
 package ui;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
 
 /**
  * Main class which initalizes all necessary variables and lists, then calls and executes the provided algorithm
@@ -17,13 +12,35 @@ import java.util.Scanner;
  *
  */
 public class Solution {
-	private static Map<String, Node> nodes;
+	private static Graph graph;
 
 	public static void main(String[] args) {
 
 		String algorithm = new String();
 		String path = new String();
 		String pathToHeuristic = new String();
+		String snapshotPath = new String();
+		boolean stats = false;
+		boolean violationsOnly = false;
+		boolean speedup = false;
+		boolean lazy = false;
+		String domain = new String();
+		String landmarksPath = new String();
+		String landmarksOutput = new String();
+		int landmarkCount = 16;
+		String hierarchyPath = new String();
+		String hierarchyOutput = new String();
+		boolean serve = false;
+		int port = -1;
+		double weight = ARAStar.DEFAULT_WEIGHT;
+		long timeBudget = 0;
+		String changesPath = new String();
+		boolean external = false;
+		long memoryBudget = 256L << 20;
+		String spillDirectory = new String();
+		String metricsPath = new String();
+		long treeCacheBudget = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
 
 		for (int i = 0; i < args.length; i++) {
 
@@ -43,6 +60,73 @@ public class Solution {
 			case "--check-consistent":
 				algorithm = "consistent";
 				break;
+			case "--export-snapshot":
+				snapshotPath = args[++i];
+				break;
+			case "--serve":
+				serve = true;
+				break;
+			case "--port":
+				serve = true;
+				port = Integer.parseInt(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--violations-only":
+				violationsOnly = true;
+				break;
+			case "--landmarks":
+				landmarksPath = args[++i];
+				break;
+			case "--build-landmarks":
+				landmarksOutput = args[++i];
+				break;
+			case "--landmark-count":
+				landmarkCount = Integer.parseInt(args[++i]);
+				break;
+			case "--ch":
+				hierarchyPath = args[++i];
+				break;
+			case "--build-ch":
+				hierarchyOutput = args[++i];
+				break;
+			case "--weight":
+				weight = Double.parseDouble(args[++i]);
+				break;
+			case "--time-budget":
+				timeBudget = Long.parseLong(args[++i]);
+				break;
+			case "--changes":
+				changesPath = args[++i];
+				break;
+			case "--external":
+				external = true;
+				break;
+			case "--memory-budget":
+				memoryBudget = parseBytes(args[++i]);
+				break;
+			case "--spill-dir":
+				spillDirectory = args[++i];
+				break;
+			case "--tree-cache":
+				treeCacheBudget = parseBytes(args[++i]);
+				break;
+			case "--metrics":
+				metricsPath = args[++i];
+				break;
+			case "--domain":
+				domain = args[++i];
+				break;
+			case "--lazy":
+				lazy = true;
+				break;
+			case "--speedup":
+				speedup = true;
+				break;
+			case "--stats":
+				stats = true;
+				break;
 			default:
 				System.out.println("Incorrect arguments");
 				break;
@@ -50,31 +134,179 @@ public class Solution {
 
 		}
 
-		List<Node> nodes = extractNodes(path, pathToHeuristic);
-		Collections.sort(nodes, new Comparator<Node>() {
-			@Override
-			public int compare(Node o1, Node o2) {
-				return o1.getName().compareTo(o2.getName());
+		if (!metricsPath.isEmpty() && !serve && (!SearchMetrics.supports(algorithm) || !domain.isEmpty()
+				|| external && ExternalSearch.supports(algorithm))) {
+			System.out.println("Incorrect arguments: the metrics are only recorded by the bfs, ucs and astar algorithms"
+					+ " over a loaded graph");
+			return;
+		}
+
+		if (!spillDirectory.isEmpty() && Files.exists(Paths.get(spillDirectory))
+				&& !Files.isDirectory(Paths.get(spillDirectory))) {
+			System.out.println("Incorrect arguments: the spill directory '" + spillDirectory + "' is not a directory");
+			return;
+		}
+
+		if (!domain.isEmpty()) {
+			if (!domain.startsWith("puzzle:") || !LazySearch.supports(algorithm)) {
+				System.out.println("Incorrect arguments");
+				return;
+			}
+
+			SlidingPuzzle puzzle = SlidingPuzzle.parse(domain.substring("puzzle:".length()));
+			if (external && ExternalSearch.supports(algorithm)) {
+				new ExternalSearch(puzzle, algorithm, memoryBudget, spillDirectory).start();
+			} else {
+				new LazySearch(puzzle, algorithm, "manhattan").start();
+			}
+			return;
+		}
+
+		GraphSnapshot snapshot;
+		long parseStart = System.nanoTime();
+		try {
+			boolean nearestGoal = NearestGoalHeuristic.isSelected(pathToHeuristic);
+			snapshot = extractNodes(path, nearestGoal ? "" : pathToHeuristic, stats);
+
+			if (nearestGoal) {
+				snapshot = deriveHeuristic(snapshot, threads, stats);
+			}
+
+			if (!snapshotPath.isEmpty()) {
+				snapshot.write(snapshotPath);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		long parseTime = System.nanoTime() - parseStart;
+		graph = snapshot.getGraph();
+		int startingNode = snapshot.getStarter();
+		int[] destinationNodes = snapshot.getGoals();
+
+		Landmarks landmarks = null;
+		if (!landmarksOutput.isEmpty() || !landmarksPath.isEmpty() || algorithm.equals("astar-alt")) {
+			try {
+				landmarks = extractLandmarks(graph, landmarksPath, landmarksOutput, landmarkCount, threads);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+		}
+
+		ContractionHierarchy hierarchy = null;
+		if (!hierarchyOutput.isEmpty() || !hierarchyPath.isEmpty() || algorithm.equals("ch")) {
+			try {
+				hierarchy = extractHierarchy(graph, hierarchyPath, hierarchyOutput);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			}
+		}
+
+		if (serve) {
+			QueryServer server = new QueryServer(graph, destinationNodes, pathToHeuristic, threads);
+			server.setLandmarks(landmarks);
+			server.setHierarchy(hierarchy);
+			server.setAnytimeLimits(weight, timeBudget);
+			if (treeCacheBudget > 0) {
+				server.setTreeCache(new PathTreeCache(treeCacheBudget));
+			}
+			try {
+				if (!metricsPath.isEmpty()) {
+					server.setMetrics(openMetrics(metricsPath));
+				}
+				if (port == -1) {
+					server.serve(System.in, System.out);
+				} else {
+					server.listen(port);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+
+		if (external && ExternalSearch.supports(algorithm)) {
+			new ExternalSearch(new GraphStateSpace(graph, destinationNodes, startingNode), algorithm, memoryBudget,
+					spillDirectory).start();
+			return;
+		}
+
+		if (!metricsPath.isEmpty() && SearchMetrics.supports(algorithm)) {
+			Search search = algorithm.equals("bfs") ? new BFS(graph, destinationNodes, startingNode)
+					: algorithm.equals("ucs") ? new UCS(graph, destinationNodes, startingNode)
+					: new AStar(graph, destinationNodes, startingNode, pathToHeuristic);
+			try {
+				PrintStream metricsOutput = openMetrics(metricsPath);
+				runMeasured(search, algorithm, startingNode, destinationNodes, parseTime, metricsOutput);
+				if (metricsOutput != System.err) {
+					metricsOutput.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-		});
-		Node startingNode = extractStarter(path);
-		List<Node> destinationNodes = extractDestinationNodes(path);
+			return;
+		}
+
+		if (lazy && LazySearch.supports(algorithm)) {
+			new LazySearch(new GraphStateSpace(graph, destinationNodes, startingNode), algorithm, pathToHeuristic).start();
+			return;
+		}
 
 		switch (algorithm) {
 		case "bfs":
-			new BFS(destinationNodes, startingNode).start();
+			new BFS(graph, destinationNodes, startingNode).start();
 			break;
 		case "ucs":
-			new UCS(destinationNodes, startingNode).start();
+			new UCS(graph, destinationNodes, startingNode).start();
+			break;
+		case "ucs-parallel":
+			new ParallelUCS(graph, destinationNodes, startingNode, threads).start();
+			break;
+		case "bfs-parallel":
+			new ParallelBFS(graph, destinationNodes, startingNode, threads).start();
+			break;
+		case "bibfs":
+			new BidirectionalBFS(graph, destinationNodes, startingNode).start();
+			break;
+		case "biucs":
+			new BidirectionalUCS(graph, destinationNodes, startingNode).start();
 			break;
 		case "astar":
-			new AStar(destinationNodes, startingNode, pathToHeuristic).start();
+			new AStar(graph, destinationNodes, startingNode, pathToHeuristic).start();
+			break;
+		case "hdastar":
+			HDAStar hdaStar = new HDAStar(graph, destinationNodes, startingNode, pathToHeuristic, threads);
+			hdaStar.start();
+			if (speedup) {
+				hdaStar.benchmark(System.err, 5);
+			}
+			break;
+		case "astar-alt":
+			new LandmarkAStar(graph, destinationNodes, startingNode, pathToHeuristic, landmarks, stats).start();
+			break;
+		case "ch":
+			new HierarchySearch(graph, destinationNodes, startingNode, hierarchy).start();
+			break;
+		case "arastar":
+			new ARAStar(graph, destinationNodes, startingNode, pathToHeuristic, weight, timeBudget).start();
+			break;
+		case "lpastar":
+			new IncrementalAStar(graph, destinationNodes, startingNode, pathToHeuristic).start(changesPath);
+			break;
+		case "idastar":
+			new IDAStar(graph, destinationNodes, startingNode, pathToHeuristic).start();
+			break;
+		case "rbfs":
+			new RBFS(graph, destinationNodes, startingNode, pathToHeuristic).start();
 			break;
 		case "optimistic":
-			new OptimisticTest(nodes, destinationNodes, pathToHeuristic).start();
+			new OptimisticTest(graph, destinationNodes, pathToHeuristic, threads).start();
 			break;
 		case "consistent":
-			new ConsistencyTest(nodes, pathToHeuristic).start();
+			new ConsistencyTest(graph, pathToHeuristic, threads, violationsOnly).start();
 			break;
 		default:
 			break;
@@ -83,146 +315,193 @@ public class Solution {
 	}
 
 	/**
-	 * Extracts the destination nodes from the file on the provided path
-	 * @param path The provided path
-	 * @return A {@link List} of destination nodes
+	 * Executes the search with the metrics attached to its context, prints its result and writes the JSON line
+	 * of its metrics
+	 * @param search The search algorithm
+	 * @param algorithm The name of the algorithm
+	 * @param startingNode The starter state id
+	 * @param destinationNodes The destination state ids
+	 * @param parseTime The time spent on loading the state space in nanoseconds
+	 * @param metricsOutput The output of the metrics
 	 */
-	private static List<Node> extractDestinationNodes(String path) {
-
-		List<Node> destinationNodes = new ArrayList<>();
-		int i = 0;
-		try (Scanner sc = new Scanner(Paths.get(path))) {
+	private static void runMeasured(Search search, String algorithm, int startingNode, int[] destinationNodes,
+			long parseTime, PrintStream metricsOutput) {
+
+		SearchContext context = new SearchContext(graph);
+		SearchMetrics metrics = new SearchMetrics();
+		context.setMetrics(metrics);
+
+		long searchStart = System.nanoTime();
+		SearchResult result = search.search(context, startingNode, destinationNodes);
+		long outputStart = System.nanoTime();
+		System.out.println(result);
+		System.out.flush();
+		long outputEnd = System.nanoTime();
+
+		metrics.setClosedCount(context.getClosedCount());
+		metrics.setTimes(parseTime, outputStart - searchStart, outputEnd - outputStart);
+		metricsOutput.println(metrics.toJson(graph, algorithm, startingNode, result));
+	}
 
-			while (sc.hasNextLine()) {
+	/**
+	 * Opens the output of the metrics, which are appended to the file or written to the standard error output
+	 * @param metricsPath The path of the file, or <code>-</code> for the standard error output
+	 * @return Returns the output
+	 * @throws IOException If the file cannot be opened
+	 */
+	private static PrintStream openMetrics(String metricsPath) throws IOException {
 
-				String s = sc.nextLine();
+		if (metricsPath.equals("-")) {
+			return System.err;
+		}
 
-				if (s.startsWith("#")) {
-					continue;
-				}
+		return new PrintStream(new FileOutputStream(metricsPath, true), true, "UTF-8");
+	}
 
-				if (i == 0) {
-					i++;
-					continue;
-				}
+	/**
+	 * Parses a number of bytes, optionally followed by the suffix k, m or g
+	 * @param value The number with its suffix
+	 * @return Returns the number of bytes
+	 */
+	private static long parseBytes(String value) {
 
-				String[] pom = s.split(" ");
+		String lower = value.toLowerCase();
+		int shift = lower.endsWith("k") ? 10 : lower.endsWith("m") ? 20 : lower.endsWith("g") ? 30 : 0;
 
-				for (String str : pom) {
-					destinationNodes.add(nodes.get(str));
-				}
+		return Long.parseLong(shift == 0 ? lower : lower.substring(0, lower.length() - 1)) << shift;
+	}
 
-				break;
+	/**
+	 * Reads the landmarks of the graph from the provided path, or computes them if there is no such path,
+	 * and writes them to the provided output path. The preprocessing time and the size of the distance tables
+	 * are printed to the standard error output
+	 * @param graph The graph
+	 * @param path The path of the landmark file, or an empty string if the landmarks should be computed
+	 * @param output The path the landmarks are written to, or an empty string if they should not be written
+	 * @param count The number of landmarks which are computed
+	 * @param threads The number of threads which compute the landmarks
+	 * @return Returns the landmarks
+	 * @throws IOException If any of the files cannot be read or written
+	 */
+	private static Landmarks extractLandmarks(Graph graph, String path, String output, int count, int threads)
+			throws IOException {
+
+		long startTime = System.nanoTime();
+		Landmarks landmarks;
+
+		if (!path.isEmpty()) {
+			landmarks = Landmarks.read(path, graph);
+			System.err.printf("[LANDMARKS]: %d landmarks read in %d ms, %.2f MB of distances%n",
+					landmarks.getLandmarks().length, (System.nanoTime() - startTime) / 1000000,
+					landmarks.getTableSize() / (1024.0 * 1024.0));
+		} else {
+			landmarks = Landmarks.compute(graph, count, threads);
+			System.err.printf("[LANDMARKS]: %d landmarks computed in %d ms with %d threads, %.2f MB of distances%n",
+					landmarks.getLandmarks().length, (System.nanoTime() - startTime) / 1000000, threads,
+					landmarks.getTableSize() / (1024.0 * 1024.0));
+		}
 
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
+		if (!output.isEmpty()) {
+			landmarks.write(output, graph);
 		}
 
-		return destinationNodes;
+		return landmarks;
 	}
 
 	/**
-	 * Extracts the starter node from the file on the provided path
-	 * @param path The provided path of the file
-	 * @return The starter node
+	 * Reads the contraction hierarchy of the graph from the provided path, or contracts the graph if there is
+	 * no such path, and writes the hierarchy to the provided output path. The preprocessing time and the size
+	 * of the hierarchy are printed to the standard error output
+	 * @param graph The graph
+	 * @param path The path of the hierarchy file, or an empty string if the graph should be contracted
+	 * @param output The path the hierarchy is written to, or an empty string if it should not be written
+	 * @return Returns the hierarchy
+	 * @throws IOException If any of the files cannot be read or written
 	 */
-	private static Node extractStarter(String path) {
-		Node starter = null;
+	private static ContractionHierarchy extractHierarchy(Graph graph, String path, String output) throws IOException {
 
-		try (Scanner sc = new Scanner(Paths.get(path))) {
+		long startTime = System.nanoTime();
+		ContractionHierarchy hierarchy = path.isEmpty() ? ContractionHierarchy.compute(graph)
+				: ContractionHierarchy.read(path, graph);
 
-			while (sc.hasNextLine()) {
-				String s = sc.nextLine();
-
-				if (s.startsWith("#")) {
-					continue;
-				}
-
-				starter = nodes.get(s);
-				break;
-			}
+		System.err.printf("[HIERARCHY]: %s in %d ms, %d shortcuts, %d core states%n", path.isEmpty() ? "contracted" : "read",
+				(System.nanoTime() - startTime) / 1000000, hierarchy.getShortcutCount(), hierarchy.getCoreSize());
 
-		} catch (IOException e) {
-			e.printStackTrace();
+		if (!output.isEmpty()) {
+			hierarchy.write(output);
 		}
 
-		return starter;
+		return hierarchy;
 	}
 
 	/**
-	 * Extracts all nodes from the provided path, initializes all adjacent nodes and heuristics
-	 * @param path The path of the file which contains adjacent nodes
-	 * @param heuristicPath The path of the file which contains heuristics for each node
-	 * @return A list of all nodes
+	 * Replaces the heuristics of the snapshot with the costs of the cheapest paths to the nearest destination state
+	 * @param snapshot The snapshot
+	 * @param threads The number of threads
+	 * @param stats true if the time of the calculation should be printed to the standard error output
+	 * @return Returns the snapshot with the derived heuristics
 	 */
-	private static List<Node> extractNodes(String path, String heuristicPath) {
-
-		nodes = new HashMap<>();
-		int i = 0;
-		try (Scanner sc = new Scanner(Paths.get(path))) {
-			while (sc.hasNextLine()) {
-				String s = sc.nextLine();
+	private static GraphSnapshot deriveHeuristic(GraphSnapshot snapshot, int threads, boolean stats) {
 
-				if (s.startsWith("#")) {
-					continue;
-				}
+		long startTime = System.nanoTime();
+		Graph graph = snapshot.getGraph();
+		double[] heuristics = NearestGoalHeuristic.calculate(graph, snapshot.getGoals(), threads);
 
-				if (i == 0 || i == 1) {
-					i++;
-					continue;
-				}
+		if (stats) {
+			System.err.printf("[HEURISTIC]: %s for %d destination states in %d ms%n", NearestGoalHeuristic.NAME,
+					snapshot.getGoals().length, (System.nanoTime() - startTime) / 1000000);
+		}
 
-				String[] pom = s.split(":");
+		return new GraphSnapshot(graph.withHeuristics(heuristics), snapshot.getStarter(), snapshot.getGoals());
+	}
 
-				Node n = null;
+	/**
+	 * Extracts all nodes, the starter node and the destination nodes from the provided path, which is either
+	 * a state space file or a {@link GraphSnapshot}, and initializes the heuristics of all nodes
+	 * @param path The path of the file which contains adjacent nodes, or of the snapshot
+	 * @param heuristicPath The path of the file which contains heuristics for each node, for a snapshot
+	 *                      these heuristics replace the stored ones
+	 * @param stats true if the load statistics should be printed to the standard error output
+	 * @return The extracted graph with the starter and destination nodes
+	 * @throws IOException If any of the files cannot be read
+	 */
+	private static GraphSnapshot extractNodes(String path, String heuristicPath, boolean stats) throws IOException {
 
-				if (!nodes.containsKey(pom[0])) {
-					n = new Node(pom[0]);
-					nodes.put(pom[0], n);
-				} else {
-					n = nodes.get(pom[0]);
-				}
+		long startTime = System.nanoTime();
 
-				Map<Node, Double> pomMap = new HashMap<>();
-				if (pom.length > 1) {
-					String[] pom2 = pom[1].trim().split(" ");
-					for (String str : pom2) {
-						String[] pom3 = str.split(",");
-
-						Node adjacentNode = null;
-						if (nodes.containsKey(pom3[0])) {
-							adjacentNode = nodes.get(pom3[0]);
-						} else {
-							adjacentNode = new Node(pom3[0]);
-							nodes.put(pom3[0], adjacentNode);
-						}
-						pomMap.put(adjacentNode, Double.parseDouble(pom3[1]));
-					}
-				}
+		if (GraphSnapshot.isSnapshot(path)) {
+			GraphSnapshot snapshot = GraphSnapshot.read(path);
 
-				n.setAdjacentNodes(pomMap);
+			if (!heuristicPath.isEmpty()) {
+				Graph graph = snapshot.getGraph();
+				snapshot = new GraphSnapshot(graph.withHeuristics(StateSpaceLoader.loadHeuristic(heuristicPath, graph)),
+						snapshot.getStarter(), snapshot.getGoals());
+			}
 
+			if (stats) {
+				System.err.printf("[LOAD]: snapshot in %d ms, %d states, %d transitions%n",
+						(System.nanoTime() - startTime) / 1000000, snapshot.getGraph().getStateCount(),
+						snapshot.getGraph().getTransitionCount());
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
+
+			return snapshot;
 		}
+
+		StateSpaceLoader loader = new StateSpaceLoader();
+		loader.loadStateSpace(path);
 		if (!heuristicPath.isEmpty()) {
-			try (Scanner sc = new Scanner(Paths.get(heuristicPath))) {
-				while (sc.hasNextLine()) {
-					String s = sc.nextLine();
+			loader.loadHeuristic(heuristicPath);
+		}
 
-					String[] pom = s.split(":");
+		Graph graph = loader.build();
 
-					Node n = nodes.get(pom[0]);
-					n.setHeuristic(Double.parseDouble(pom[1]));
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		if (stats) {
+			System.err.printf("[LOAD]: %.2f MB in %d ms (%.2f MB/s), %d states, %d transitions%n",
+					loader.getLoadedBytes() / (1024.0 * 1024.0), loader.getLoadTime() / 1000000,
+					loader.getThroughput(), graph.getStateCount(), graph.getTransitionCount());
 		}
 
-		return new LinkedList<>(nodes.values());
+		return new GraphSnapshot(graph, loader.getStarter(), loader.getGoals());
 	}
 
 }
@@ -0,0 +1,159 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of state ids. Every state is contained in the heap at most once,
+ * so the size of the heap is bounded by the number of states. States are ordered by their keys,
+ * and states with equal keys are ordered alphabetically by their names
+ * @author Vito Sabalic
+ *
+ */
+public class StateHeap implements Frontier {
+
+	private Graph graph;
+	private int[] heap;
+	private int[] positions;
+	private double[] keys;
+	private int size;
+
+	/**
+	 * A simple constructor
+	 * @param graph The graph whose states are stored in the heap
+	 */
+	public StateHeap(Graph graph) {
+		this.graph = graph;
+		this.heap = new int[graph.getStateCount()];
+		this.positions = new int[graph.getStateCount()];
+		this.keys = new double[graph.getStateCount()];
+		this.size = 0;
+
+		Arrays.fill(positions, -1);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(int state) {
+		return positions[state] != -1;
+	}
+
+	@Override
+	public void push(int state, double key) {
+
+		int i = positions[state];
+
+		if (i == -1) {
+			i = size++;
+		} else if (Double.compare(key, keys[state]) >= 0) {
+			return;
+		}
+
+		keys[state] = key;
+		siftUp(state, i);
+	}
+
+	@Override
+	public int poll() {
+
+		int first = heap[0];
+		positions[first] = -1;
+		size--;
+
+		if (size > 0) {
+			siftDown(heap[size], 0);
+		}
+
+		return first;
+	}
+
+	@Override
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	@Override
+	public void clear() {
+
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = -1;
+		}
+
+		size = 0;
+	}
+
+	/**
+	 * Moves the state up from the provided position until the heap order is restored
+	 * @param state The state id
+	 * @param i The position of the state
+	 */
+	private void siftUp(int state, int i) {
+
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (compare(state, heap[parent]) >= 0) {
+				break;
+			}
+
+			heap[i] = heap[parent];
+			positions[heap[i]] = i;
+			i = parent;
+		}
+
+		heap[i] = state;
+		positions[state] = i;
+	}
+
+	/**
+	 * Moves the state down from the provided position until the heap order is restored
+	 * @param state The state id
+	 * @param i The position of the state
+	 */
+	private void siftDown(int state, int i) {
+
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+
+			if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+				child++;
+			}
+
+			if (compare(heap[child], state) >= 0) {
+				break;
+			}
+
+			heap[i] = heap[child];
+			positions[heap[i]] = i;
+			i = child;
+		}
+
+		heap[i] = state;
+		positions[state] = i;
+	}
+
+	/**
+	 * Compares two states by their keys, and by the ranks of their names if the keys are equal
+	 * @return Returns a negative number, zero or a positive number if the first state is smaller, equal to or larger than the second one
+	 */
+	private int compare(int state1, int state2) {
+
+		int i = Double.compare(keys[state1], keys[state2]);
+		if (i == 0) {
+			i = Integer.compare(graph.getRank(state1), graph.getRank(state2));
+		}
+
+		return i;
+	}
+
+}
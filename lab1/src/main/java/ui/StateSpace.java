@@ -0,0 +1,73 @@
+package ui;
+
+/**
+ * An interface of a state space whose states are generated only when they are reached, so the state space
+ * does not need to be stored as a whole. Every state is encoded in a single <code>long</code>, and two states
+ * are the same state if and only if their encodings are equal
+ * @author Vito Sabalic
+ *
+ */
+public interface StateSpace {
+
+	/**
+	 * A receiver of the successors of a state
+	 * @author Vito Sabalic
+	 *
+	 */
+	interface Successors {
+
+		/**
+		 * Receives a single successor
+		 * @param state The encoding of the successor
+		 * @param cost The cost of the transition to the successor
+		 */
+		void accept(long state, double cost);
+
+	}
+
+	/**
+	 * A getter for the starter state
+	 * @return Returns the encoding of the starter state
+	 */
+	long getStarter();
+
+	/**
+	 * Checks whether the state is a destination state
+	 * @param state The encoding of the state
+	 * @return Returns true if it is a destination state, false otherwise
+	 */
+	boolean isGoal(long state);
+
+	/**
+	 * Generates all successors of the state, in a fixed order
+	 * @param state The encoding of the state
+	 * @param successors The receiver of the successors
+	 */
+	void expand(long state, Successors successors);
+
+	/**
+	 * A getter for the heuristic of the state
+	 * @param state The encoding of the state
+	 * @return Returns the estimated cost of the cheapest path from the state to a destination state
+	 */
+	double getHeuristic(long state);
+
+	/**
+	 * A getter for the name of the state, used in the output
+	 * @param state The encoding of the state
+	 * @return Returns the name
+	 */
+	String getName(long state);
+
+	/**
+	 * A getter for the key which orders the states the way their names are ordered alphabetically, so the search
+	 * algorithms break ties between the states the same way they do in a loaded graph. The keys are compared as
+	 * unsigned numbers, and by default the encoding of the state is used
+	 * @param state The encoding of the state
+	 * @return Returns the key
+	 */
+	default long getOrder(long state) {
+		return state;
+	}
+
+}
@@ -0,0 +1,526 @@
+package ui;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A loader which reads the state space and the heuristic files in a single pass each. The files are
+ * memory-mapped and tokenized directly from the mapped bytes, and the state names are interned to
+ * int ids as they are read, so a {@link String} is only created the first time a state is seen
+ * @author Vito Sabalic
+ *
+ */
+public class StateSpaceLoader {
+
+	private static final int WINDOW_SIZE = 1 << 30;
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+			100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+			100000000000000L, 1000000000000000L };
+
+	private GraphBuilder builder;
+	private Graph graph;
+	private double[] heuristics;
+	private int starter;
+	private int[] goals;
+	private long loadedBytes;
+	private long loadTime;
+
+	private MappedByteBuffer buffer;
+	private String path;
+	private int lineNumber;
+	private int tokenStart;
+	private int tokenEnd;
+
+	private int[] slots;
+	private int[] hashes;
+	private int[] nameOffsets;
+	private byte[] namePool;
+	private int nameCount;
+	private int namePoolSize;
+
+	/**
+	 * A simple constructor
+	 */
+	public StateSpaceLoader() {
+		this.builder = new GraphBuilder();
+		this.starter = -1;
+		this.goals = new int[0];
+		this.slots = new int[1024];
+		this.hashes = new int[256];
+		this.nameOffsets = new int[257];
+		this.namePool = new byte[4096];
+	}
+
+	/**
+	 * Loads the state space from the file on the provided path. The first line which is not a comment
+	 * contains the starter state, the second one the destination states, and every following line
+	 * a state with its transitions
+	 * @param path The path of the state space file
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public void loadStateSpace(String path) throws IOException {
+		load(path, true);
+	}
+
+	/**
+	 * Loads the heuristics from the file on the provided path. Every line which is not a comment
+	 * contains a state name and its heuristic, separated by a colon
+	 * @param path The path of the heuristic file
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public void loadHeuristic(String path) throws IOException {
+		load(path, false);
+	}
+
+	/**
+	 * Loads the heuristics of the states of an already built graph from the file on the provided path
+	 * @param path The path of the heuristic file
+	 * @param graph The graph
+	 * @return Returns the heuristics, indexed by state id
+	 * @throws IOException If the file cannot be read, is malformed or contains an unknown state
+	 */
+	public static double[] loadHeuristic(String path, Graph graph) throws IOException {
+
+		StateSpaceLoader loader = new StateSpaceLoader();
+		loader.graph = graph;
+		loader.heuristics = new double[graph.getStateCount()];
+		loader.load(path, false);
+
+		return loader.heuristics;
+	}
+
+	/**
+	 * Builds the graph out of all loaded states, transitions and heuristics
+	 * @return Returns the built graph
+	 */
+	public Graph build() {
+		return builder.build();
+	}
+
+	/**
+	 * A getter for the starter state
+	 * @return Returns the starter state id, or -1 if no state space was loaded
+	 */
+	public int getStarter() {
+		return starter;
+	}
+
+	/**
+	 * A getter for the destination states
+	 * @return Returns the destination state ids
+	 */
+	public int[] getGoals() {
+		return goals;
+	}
+
+	/**
+	 * A getter for the total number of loaded bytes
+	 * @return Returns the number of bytes
+	 */
+	public long getLoadedBytes() {
+		return loadedBytes;
+	}
+
+	/**
+	 * A getter for the total time spent loading
+	 * @return Returns the time in nanoseconds
+	 */
+	public long getLoadTime() {
+		return loadTime;
+	}
+
+	/**
+	 * Calculates the load throughput
+	 * @return Returns the throughput in megabytes per second
+	 */
+	public double getThroughput() {
+		return loadTime == 0 ? 0 : loadedBytes / (1024.0 * 1024.0) / (loadTime / 1e9);
+	}
+
+	/**
+	 * Maps the file window by window, every window ending with a complete line, and passes
+	 * every line which is neither empty nor a comment to the parser of the file
+	 * @param path The path of the file
+	 * @param stateSpace true if the file is a state space file, false if it is a heuristic file
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	private void load(String path, boolean stateSpace) throws IOException {
+
+		long startTime = System.nanoTime();
+		this.path = path;
+		this.lineNumber = 0;
+		int lineIndex = 0;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			long position = 0;
+
+			while (position < fileSize) {
+				long length = Math.min(WINDOW_SIZE, fileSize - position);
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+				int end = (int) length;
+				if (position + length < fileSize) {
+					while (end > 0 && buffer.get(end - 1) != '\n') {
+						end--;
+					}
+
+					if (end == 0) {
+						throw new IOException(path + ": line longer than " + WINDOW_SIZE + " bytes");
+					}
+				}
+
+				int lineStart = 0;
+				while (lineStart < end) {
+					int lineEnd = indexOf(lineStart, end, (byte) '\n');
+					if (lineEnd == -1) {
+						lineEnd = end;
+					}
+
+					lineNumber++;
+					int to = lineEnd;
+					while (to > lineStart && isWhitespace(buffer.get(to - 1))) {
+						to--;
+					}
+
+					if (to > lineStart && buffer.get(lineStart) != '#') {
+						if (!stateSpace) {
+							parseHeuristic(lineStart, to);
+						} else if (lineIndex == 0) {
+							parseStarter(lineStart, to);
+						} else if (lineIndex == 1) {
+							parseGoals(lineStart, to);
+						} else {
+							parseTransitions(lineStart, to);
+						}
+						lineIndex++;
+					}
+
+					lineStart = lineEnd + 1;
+				}
+
+				position += end;
+			}
+
+			loadedBytes += fileSize;
+		} finally {
+			buffer = null;
+			loadTime += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * Parses the line containing the starter state
+	 * @param from The position of the first byte of the line
+	 * @param to The position after the last byte of the line
+	 */
+	private void parseStarter(int from, int to) {
+		nextToken(from, to);
+		starter = intern(tokenStart, tokenEnd);
+	}
+
+	/**
+	 * Parses the line containing the destination states
+	 * @param from The position of the first byte of the line
+	 * @param to The position after the last byte of the line
+	 */
+	private void parseGoals(int from, int to) {
+
+		int[] destinations = new int[4];
+		int count = 0;
+
+		while (nextToken(from, to)) {
+			if (count == destinations.length) {
+				destinations = Arrays.copyOf(destinations, count * 2);
+			}
+			destinations[count++] = intern(tokenStart, tokenEnd);
+			from = tokenEnd;
+		}
+
+		goals = Arrays.copyOf(destinations, count);
+	}
+
+	/**
+	 * Parses a line containing a state and its transitions
+	 * @param from The position of the first byte of the line
+	 * @param to The position after the last byte of the line
+	 * @throws IOException If the line is malformed
+	 */
+	private void parseTransitions(int from, int to) throws IOException {
+
+		int colon = indexOf(from, to, (byte) ':');
+		if (colon == -1) {
+			throw error("missing ':'");
+		}
+
+		if (!nextToken(from, colon)) {
+			throw error("missing state name");
+		}
+		int state = intern(tokenStart, tokenEnd);
+
+		from = colon + 1;
+		while (nextToken(from, to)) {
+			from = tokenEnd;
+
+			int comma = indexOf(tokenStart, tokenEnd, (byte) ',');
+			if (comma == -1) {
+				throw error("missing ',' in transition");
+			}
+
+			int target = intern(tokenStart, comma);
+			builder.addTransition(state, target, parseNumber(comma + 1, tokenEnd));
+		}
+	}
+
+	/**
+	 * Parses a line containing a state and its heuristic
+	 * @param from The position of the first byte of the line
+	 * @param to The position after the last byte of the line
+	 * @throws IOException If the line is malformed
+	 */
+	private void parseHeuristic(int from, int to) throws IOException {
+
+		int colon = indexOf(from, to, (byte) ':');
+		if (colon == -1 || !nextToken(from, colon)) {
+			throw error("missing state name");
+		}
+
+		if (graph == null) {
+			builder.setHeuristic(intern(tokenStart, tokenEnd), parseNumber(colon + 1, to));
+			return;
+		}
+
+		byte[] name = new byte[tokenEnd - tokenStart];
+		for (int i = 0; i < name.length; i++) {
+			name[i] = buffer.get(tokenStart + i);
+		}
+
+		int state = graph.getId(new String(name, StandardCharsets.UTF_8));
+		if (state == -1) {
+			throw error("unknown state '" + new String(name, StandardCharsets.UTF_8) + "'");
+		}
+		heuristics[state] = parseNumber(colon + 1, to);
+	}
+
+	/**
+	 * Finds the next whitespace separated token and stores its bounds
+	 * @param from The position to start searching from
+	 * @param to The position after the last byte which can be searched
+	 * @return Returns true if a token was found, false otherwise
+	 */
+	private boolean nextToken(int from, int to) {
+
+		while (from < to && isWhitespace(buffer.get(from))) {
+			from++;
+		}
+
+		if (from == to) {
+			return false;
+		}
+
+		int end = from;
+		while (end < to && !isWhitespace(buffer.get(end))) {
+			end++;
+		}
+
+		tokenStart = from;
+		tokenEnd = end;
+		return true;
+	}
+
+	/**
+	 * Finds the first occurrence of the byte
+	 * @param from The position to start searching from
+	 * @param to The position after the last byte which can be searched
+	 * @param b The byte
+	 * @return Returns the position of the byte, or -1 if it was not found
+	 */
+	private int indexOf(int from, int to, byte b) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks whether the byte is a whitespace character
+	 * @param b The byte
+	 * @return Returns true if it is a whitespace, false otherwise
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+	/**
+	 * Parses a decimal number. Numbers with at most 15 significant digits and 15 decimals are parsed
+	 * directly from the bytes, which gives the same result as {@link Double#parseDouble(String)} because
+	 * both the digits and the power of ten are exactly representable, all other numbers are passed
+	 * to {@link Double#parseDouble(String)}
+	 * @param from The position of the first byte of the number
+	 * @param to The position after the last byte of the number, trailing whitespace is allowed
+	 * @return Returns the parsed number
+	 * @throws IOException If the number is malformed
+	 */
+	private double parseNumber(int from, int to) throws IOException {
+
+		while (from < to && isWhitespace(buffer.get(from))) {
+			from++;
+		}
+
+		int i = from;
+		boolean negative = false;
+		if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+
+		long digits = 0;
+		int digitCount = 0;
+		int decimals = -1;
+		boolean anyDigit = false;
+		boolean simple = true;
+
+		for (; i < to && simple; i++) {
+			byte b = buffer.get(i);
+
+			if (b >= '0' && b <= '9') {
+				anyDigit = true;
+				digits = digits * 10 + (b - '0');
+				if (digits != 0) {
+					digitCount++;
+				}
+				if (decimals >= 0) {
+					decimals++;
+				}
+			} else if (b == '.' && decimals == -1) {
+				decimals = 0;
+			} else {
+				simple = false;
+			}
+		}
+
+		if (simple && anyDigit && digitCount <= 15 && decimals < POWERS_OF_TEN.length) {
+			double value = decimals > 0 ? digits / (double) POWERS_OF_TEN[decimals] : digits;
+			return negative ? -value : value;
+		}
+
+		byte[] bytes = new byte[to - from];
+		for (int j = 0; j < bytes.length; j++) {
+			bytes[j] = buffer.get(from + j);
+		}
+
+		try {
+			return Double.parseDouble(new String(bytes, StandardCharsets.UTF_8));
+		} catch (NumberFormatException e) {
+			throw error("malformed number '" + new String(bytes, StandardCharsets.UTF_8) + "'");
+		}
+	}
+
+	/**
+	 * Returns the id of the state whose name is stored in the provided range of the current buffer,
+	 * creating a new state if it does not exist yet
+	 * @param from The position of the first byte of the name
+	 * @param to The position after the last byte of the name
+	 * @return Returns the state id
+	 */
+	private int intern(int from, int to) {
+
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + buffer.get(i);
+		}
+		hash ^= hash >>> 16;
+
+		int slot = hash & (slots.length - 1);
+		while (slots[slot] != 0) {
+			int id = slots[slot] - 1;
+			if (hashes[id] == hash && equalsName(id, from, to)) {
+				return id;
+			}
+			slot = (slot + 1) & (slots.length - 1);
+		}
+
+		int length = to - from;
+		if (nameCount == hashes.length) {
+			hashes = Arrays.copyOf(hashes, nameCount * 2);
+			nameOffsets = Arrays.copyOf(nameOffsets, nameCount * 2 + 1);
+		}
+		if (namePoolSize + length > namePool.length) {
+			namePool = Arrays.copyOf(namePool, Math.max(namePoolSize + length, namePool.length * 2));
+		}
+
+		for (int i = 0; i < length; i++) {
+			namePool[namePoolSize + i] = buffer.get(from + i);
+		}
+
+		int id = builder.intern(new String(namePool, namePoolSize, length, StandardCharsets.UTF_8));
+		hashes[id] = hash;
+		nameOffsets[id] = namePoolSize;
+		namePoolSize += length;
+		nameOffsets[id + 1] = namePoolSize;
+		nameCount++;
+		slots[slot] = id + 1;
+
+		if (nameCount * 2 > slots.length) {
+			rehash();
+		}
+
+		return id;
+	}
+
+	/**
+	 * Checks whether the name of the state equals the name stored in the provided range of the current buffer
+	 * @param id The state id
+	 * @param from The position of the first byte of the name
+	 * @param to The position after the last byte of the name
+	 * @return Returns true if the names are equal, false otherwise
+	 */
+	private boolean equalsName(int id, int from, int to) {
+
+		int offset = nameOffsets[id];
+		if (nameOffsets[id + 1] - offset != to - from) {
+			return false;
+		}
+
+		for (int i = from; i < to; i++) {
+			if (namePool[offset++] != buffer.get(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Doubles the size of the hash table of state names
+	 */
+	private void rehash() {
+
+		slots = new int[slots.length * 2];
+		for (int id = 0; id < nameCount; id++) {
+			int slot = hashes[id] & (slots.length - 1);
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & (slots.length - 1);
+			}
+			slots[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * Creates an exception describing a malformed line
+	 * @param message The description of the problem
+	 * @return Returns the created exception
+	 */
+	private IOException error(String message) {
+		return new IOException(path + ":" + lineNumber + ": " + message);
+	}
+
+}
@@ -0,0 +1,217 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * A table of the states reached by a search over a {@link StateSpace}, which gives every reached state
+ * a dense id in the order in which the states are added. The ids are found through an open addressing hash table
+ * of the state encodings, and the cost of the best known path, the previous state and the closed flag of every
+ * state are stored in arrays indexed by the ids, which grow together with the number of reached states
+ * @author Vito Sabalic
+ *
+ */
+public class StateTable {
+
+	private int[] slots;
+	private int mask;
+	private long[] states;
+	private double[] distances;
+	private int[] parents;
+	private boolean[] closed;
+	private int size;
+	private int closedCount;
+
+	/**
+	 * A simple constructor
+	 */
+	public StateTable() {
+		this.slots = new int[1 << 10];
+		this.mask = slots.length - 1;
+		this.states = new long[1 << 9];
+		this.distances = new double[1 << 9];
+		this.parents = new int[1 << 9];
+		this.closed = new boolean[1 << 9];
+		this.size = 0;
+		this.closedCount = 0;
+	}
+
+	/**
+	 * A getter for the number of reached states
+	 * @return Returns the number of states
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the id of the state
+	 * @param state The encoding of the state
+	 * @return Returns the id, or -1 if the state was not reached
+	 */
+	public int find(long state) {
+
+		for (int slot = hash(state) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+			if (states[slots[slot] - 1] == state) {
+				return slots[slot] - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Adds a state which was not reached before
+	 * @param state The encoding of the state
+	 * @param distance The cost of the path to the state
+	 * @param parent The previous state id, or -1 if there is none
+	 * @return Returns the id of the added state
+	 */
+	public int add(long state, double distance, int parent) {
+
+		if (size == states.length) {
+			int capacity = size * 2;
+			states = Arrays.copyOf(states, capacity);
+			distances = Arrays.copyOf(distances, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			closed = Arrays.copyOf(closed, capacity);
+		}
+
+		if (2 * (size + 1) > slots.length) {
+			rehash(slots.length * 2);
+		}
+
+		int id = size++;
+		states[id] = state;
+		distances[id] = distance;
+		parents[id] = parent;
+
+		int slot = hash(state) & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = id + 1;
+
+		return id;
+	}
+
+	/**
+	 * A getter for the encoding of the state
+	 * @param id The state id
+	 * @return Returns the encoding
+	 */
+	public long getState(int id) {
+		return states[id];
+	}
+
+	/**
+	 * A getter for the cost of the best known path to the state
+	 * @param id The state id
+	 * @return Returns the cost
+	 */
+	public double getDistance(int id) {
+		return distances[id];
+	}
+
+	/**
+	 * A getter for the state from which the state was reached
+	 * @param id The state id
+	 * @return Returns the previous state id, or -1 if there is none
+	 */
+	public int getParent(int id) {
+		return parents[id];
+	}
+
+	/**
+	 * Sets the cost of the best known path to the state and the state it was reached from
+	 * @param id The state id
+	 * @param distance The cost
+	 * @param parent The previous state id
+	 */
+	public void set(int id, double distance, int parent) {
+		distances[id] = distance;
+		parents[id] = parent;
+	}
+
+	/**
+	 * Checks whether the state is closed
+	 * @param id The state id
+	 * @return Returns true if it is closed, false otherwise
+	 */
+	public boolean isClosed(int id) {
+		return closed[id];
+	}
+
+	/**
+	 * Closes the state, if it is not closed already
+	 * @param id The state id
+	 */
+	public void close(int id) {
+
+		if (!closed[id]) {
+			closed[id] = true;
+			closedCount++;
+		}
+	}
+
+	/**
+	 * A getter for the number of closed states
+	 * @return Returns the number of closed states
+	 */
+	public int getClosedCount() {
+		return closedCount;
+	}
+
+	/**
+	 * Calculates the path which was taken to arrive to the final state
+	 * @param finalState The final state id
+	 * @return Returns the path of state ids, starting with the starter state
+	 */
+	public int[] calculatePath(int finalState) {
+		int length = 0;
+		for (int n = finalState; n != -1; n = parents[n]) {
+			length++;
+		}
+
+		int[] path = new int[length];
+		for (int n = finalState; n != -1; n = parents[n]) {
+			path[--length] = n;
+		}
+
+		return path;
+	}
+
+	/**
+	 * Moves all ids into a new hash table of the provided capacity
+	 * @param capacity The capacity, a power of two
+	 */
+	private void rehash(int capacity) {
+
+		slots = new int[capacity];
+		mask = capacity - 1;
+
+		for (int id = 0; id < size; id++) {
+			int slot = hash(states[id]) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * Mixes all bits of the state encoding into a hash
+	 * @param state The encoding of the state
+	 * @return Returns the hash
+	 */
+	private static int hash(long state) {
+
+		state ^= state >>> 33;
+		state *= 0xFF51AFD7ED558CCDL;
+		state ^= state >>> 33;
+		state *= 0xC4CEB9FE1A85EC53L;
+		state ^= state >>> 33;
+
+		return (int) state;
+	}
+
+}
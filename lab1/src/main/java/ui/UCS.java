@@ -1,33 +1,25 @@
 package ui;
 
-import java.util.ArrayList;
-
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-
 /**
  * An implementation of a class which can execute a UCS search algorithm
  * @author Vito Sabalic
  *
  */
-public class UCS {
+public class UCS implements Search {
 
-	private List<Node> solutions;
-	private Node starterNode;
+	private Graph graph;
+	private int[] solutions;
+	private int starterNode;
 
 	/**
 	 * A simple constructor
+	 * @param graph
 	 * @param solutions
 	 * @param starterNode
 	 */
-	public UCS(List<Node> solutions, Node starterNode) {
+	public UCS(Graph graph, int[] solutions, int starterNode) {
 
+		this.graph = graph;
 		this.solutions = solutions;
 		this.starterNode = starterNode;
 	}
@@ -36,119 +28,58 @@ public class UCS {
 	 * Executes the algorithm
 	 */
 	public void start() {
+		System.out.println(search(new SearchContext(graph), starterNode, solutions));
+	}
 
-		starterNode.setValue(0);
+	@Override
+	public SearchResult search(SearchContext context, int starterNode, int[] solutions) {
 
-		Set<Node> visited = new HashSet<>();
-		Queue<Node> unvisited = new PriorityQueue<>(new Comparator<Node>() {
-			@Override
-			public int compare(Node o1, Node o2) {
+		context.reset();
+		GoalSet goals = context.getGoals(solutions);
+		context.set(starterNode, 0, -1);
 
-				int i = Double.compare(o1.getValue(), o2.getValue());
-				if (i == 0) {
-					i = o1.getName().compareTo(o2.getName());
-				}
+		Frontier unvisited = context.getFrontier(false);
+		unvisited.push(starterNode, 0);
 
-				return i;
-			}
-		});
-
-		unvisited.add(starterNode);
+		SearchMetrics metrics = context.getMetrics();
+		if (metrics != null) {
+			metrics.pushed(false, unvisited.size());
+		}
 
 		while (!unvisited.isEmpty()) {
 
-			Node currentNode = unvisited.poll();
+			int currentNode = unvisited.poll();
 
-			if (solutions.contains(currentNode)) {
-				visited.add(solutions.get(solutions.indexOf(currentNode)));
-				printSolution(true, currentNode, visited);
-				return;
+			if (metrics != null) {
+				metrics.polled();
 			}
 
-			for (Map.Entry<Node, Double> entry : currentNode.getAdjacentNodes().entrySet()) {
-				Node adjacent = entry.getKey();
-
-				if (!visited.contains(adjacent)) {
-					calculateMinimumDistance(adjacent, entry.getValue(), currentNode);
-					unvisited.add(adjacent);
-				}
+			if (goals.contains(currentNode)) {
+				return new SearchResult(graph, "# UCS", true, context.getClosedCount() + 1,
+						context.calculatePath(currentNode), context.getDistance(currentNode));
 			}
 
-			visited.add(currentNode);
-		}
-
-	}
-
-	/**
-	 * Prints the solution found by the algorithm to the standard output
-	 * @param b true if a solution is found, false otherwise
-	 * @param currentNode The finishing node
-	 * @param visited All visited nodes
-	 */
-	private void printSolution(boolean b, Node currentNode, Set<Node> visited) {
-		System.out.println("# UCS");
-		if (!b) {
-			System.out.println("[FOUND_SOLUTION]: no");
-			return;
-		}
-
-		System.out.println("[FOUND_SOLUTION]: yes");
-		System.out.println("[STATES_VISITED]: " + visited.size());
-
-		List<Node> path = calculatePath(currentNode);
-		System.out.println("[PATH_LENGTH]: " + path.size());
-
-		System.out.println("[TOTAL_COST]: " + (double) currentNode.getValue());
-		Collections.reverse(path);
-		String s = new String();
-		for (Node node : path) {
-
-			if (path.indexOf(node) == path.size() - 1) {
-				s += node.getName();
-				break;
+			if (metrics != null) {
+				metrics.expanded(graph.getLastTransition(currentNode) - graph.getFirstTransition(currentNode));
 			}
 
-			s += node.getName() + " => ";
-		}
-
-		System.out.println("[PATH]: " + s);
-
-	}
-
-	/**
-	 * Calculates the path which was taken to arrive to the final node
-	 * @param finalNode The final node
-	 * @return Returns a list which represents a path of nodes
-	 */
-	private List<Node> calculatePath(Node finalNode) {
-		List<Node> path = new ArrayList<>();
-
-		path.add(finalNode);
-
-		Node previousNode = finalNode.getVisitedFrom();
+			for (int i = graph.getFirstTransition(currentNode); i < graph.getLastTransition(currentNode); i++) {
+				int adjacent = graph.getTarget(i);
 
-		while (previousNode != null) {
-			path.add(previousNode);
-			previousNode = previousNode.getVisitedFrom();
-		}
-
-		return path;
-	}
+				if (!context.isClosed(adjacent) && context.relax(adjacent, graph.getCost(i), currentNode)) {
+					boolean duplicate = metrics != null && unvisited.contains(adjacent);
+					unvisited.push(adjacent, context.getDistance(adjacent));
 
-	/**
-	 * Calculates whether the cost of the transition from the current node to the adjacent node 
-	 * is cheaper than the stored cost of the transition in the adjacent node
-	 * @param adjacent The adjacent node
-	 * @param value The cost of the transition
-	 * @param currentNode The current node
-	 */
-	private void calculateMinimumDistance(Node adjacent, double value, Node currentNode) {
+					if (metrics != null) {
+						metrics.pushed(duplicate, unvisited.size());
+					}
+				}
+			}
 
-		if (currentNode.getValue() + value < adjacent.getValue()) {
-			adjacent.setValue(currentNode.getValue() + value);
-			adjacent.setVisitedFrom(currentNode);
+			context.close(currentNode);
 		}
 
+		return SearchResult.notFound(graph, "# UCS", context.getClosedCount());
 	}
 
 }